@@ -0,0 +1,39 @@
+// k6 script used to compare the platform-thread and virtual-thread modes.
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=1000 loadtest/invoice-api.js
+// Run it once against the default profile and once with --spring.profiles.active=virtual-threads,
+// against the same Mongo data set, and compare http_reqs/s and the p(99) of http_req_duration.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '1000', 10);
+
+export const options = {
+    scenarios: {
+        ramp: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: VUS },
+                { duration: '2m', target: VUS },
+                { duration: '15s', target: 0 },
+            ],
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+    const page = http.get(`${BASE_URL}/api/invoices/page?limit=50`);
+    check(page, { 'page 200': (r) => r.status === 200 });
+
+    const companies = http.get(`${BASE_URL}/api/companies`);
+    check(companies, { 'companies 200': (r) => r.status === 200 });
+
+    const body = page.json();
+    if (body && body.invoices && body.invoices.length > 0) {
+        const invoice = body.invoices[Math.floor(Math.random() * body.invoices.length)];
+        const detail = http.get(`${BASE_URL}/api/invoices/${invoice.id}/with-amounts`);
+        check(detail, { 'with-amounts 200': (r) => r.status === 200 });
+    }
+}
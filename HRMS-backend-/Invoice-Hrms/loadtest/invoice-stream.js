@@ -0,0 +1,49 @@
+// k6 script comparing the servlet listing with the reactive NDJSON stream over the same data.
+//   k6 run -e SERVLET_URL=http://localhost:8080 -e REACTIVE_URL=http://localhost:8081 loadtest/invoice-stream.js
+// Start the app with --spring.profiles.active=reactive so both stacks run in one JVM. Compare
+// http_req_waiting (time to first byte) and http_req_duration per stack; watch heap usage of the
+// JVM while it runs, since the servlet endpoint materializes the full list before writing.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const SERVLET_URL = __ENV.SERVLET_URL || 'http://localhost:8080';
+const REACTIVE_URL = __ENV.REACTIVE_URL || 'http://localhost:8081';
+const VUS = parseInt(__ENV.VUS || '50', 10);
+
+export const options = {
+    scenarios: {
+        servlet: {
+            executor: 'constant-vus',
+            vus: VUS,
+            duration: '2m',
+            exec: 'servlet',
+        },
+        reactive: {
+            executor: 'constant-vus',
+            vus: VUS,
+            duration: '2m',
+            startTime: '2m15s',
+            exec: 'reactive',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        'http_req_waiting{stack:servlet}': [],
+        'http_req_waiting{stack:reactive}': [],
+        'http_req_duration{stack:servlet}': [],
+        'http_req_duration{stack:reactive}': [],
+    },
+};
+
+export function servlet() {
+    const res = http.get(`${SERVLET_URL}/api/invoices`, { tags: { stack: 'servlet' } });
+    check(res, { 'servlet 200': (r) => r.status === 200 });
+}
+
+export function reactive() {
+    const res = http.get(`${REACTIVE_URL}/api/invoices/stream`, {
+        headers: { Accept: 'application/x-ndjson' },
+        tags: { stack: 'reactive' },
+    });
+    check(res, { 'reactive 200': (r) => r.status === 200 });
+}
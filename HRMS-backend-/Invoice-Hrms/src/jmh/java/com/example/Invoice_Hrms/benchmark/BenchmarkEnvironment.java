@@ -0,0 +1,64 @@
+package com.example.Invoice_Hrms.benchmark;
+
+import com.example.Invoice_Hrms.InvoiceHrmsApplication;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+
+/**
+ * The real application context (services, repositories, Mongo driver) wired to an in-memory MongoDB
+ * wire-protocol server in the same JVM, so benchmarks need neither a database install nor Docker.
+ * Background jobs are pushed out of the measurement window.
+ */
+final class BenchmarkEnvironment implements AutoCloseable {
+
+    private final MongoServer server;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkEnvironment(MongoServer server, ConfigurableApplicationContext context) {
+        this.server = server;
+        this.context = context;
+    }
+
+    static BenchmarkEnvironment start() {
+        MongoServer server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        String uri = "mongodb://" + address.getHostString() + ":" + address.getPort() + "/invoicebench";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(InvoiceHrmsApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                // Command-line arguments so they win over application.properties
+                .run("--spring.data.mongodb.uri=" + uri,
+                        "--spring.data.mongodb.database=invoicebench",
+                        "--logging.level.root=WARN",
+                        // The reactive stack is not measured here; its Netty event loops would outlive the context
+                        "--spring.autoconfigure.exclude="
+                                + "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration",
+                        "--invoice.totals.reconcile-cron=-",
+                        "--invoice.reports.rollup-rebuild-cron=-",
+                        "--invoice.overdue.scan-cron=-",
+                        "--invoice.archive.cron=-",
+                        "--invoice.reports.rollup-flush-ms=3600000",
+                        "--invoice.mail.outbox.initial-delay-ms=3600000");
+        return new BenchmarkEnvironment(server, context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        server.shutdownNow();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.Invoice_Hrms.benchmark;
+
+import com.example.Invoice_Hrms.dto.InvoiceDto;
+import com.example.Invoice_Hrms.dto.itemDto;
+import com.example.Invoice_Hrms.model.Company;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.model.payment;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic invoices, items and payments. The same seed always produces the same data,
+ * so runs on different releases measure the same workload.
+ */
+final class InvoiceDataGenerator {
+
+    static final int ITEMS_PER_INVOICE = 3;
+
+    private static final int INSERT_BATCH_SIZE = 5000;
+    private static final String[] CUSTOMERS = {"Acme Corp", "Globex", "Initech", "Umbrella", "Hooli", "Stark Industries",
+            "Wayne Enterprises", "Soylent", "Tyrell", "Cyberdyne"};
+    private static final String[] STATUSES = {Invoice.STATUS_NEW, Invoice.STATUS_PARTIALLY_PAID, Invoice.STATUS_PAID};
+
+    private final Random random;
+
+    InvoiceDataGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Inserts invoiceCount invoices with their items and, for most of them, a payment.
+     * Returns the generated invoice ids in insertion order.
+     */
+    List<String> seed(MongoTemplate mongoTemplate, int invoiceCount) {
+        List<String> ids = new ArrayList<>(invoiceCount);
+        List<Invoice> invoices = new ArrayList<>(INSERT_BATCH_SIZE);
+        List<Item> items = new ArrayList<>(INSERT_BATCH_SIZE * ITEMS_PER_INVOICE);
+        List<payment> payments = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < invoiceCount; i++) {
+            Invoice invoice = invoice(i);
+            List<Item> lines = items(invoice.getId());
+            BigDecimal total = lines.stream().map(Item::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal paid = BigDecimal.ZERO;
+            if (!Invoice.STATUS_NEW.equals(invoice.getInvoiceStatus())) {
+                paid = Invoice.STATUS_PAID.equals(invoice.getInvoiceStatus())
+                        ? total
+                        : total.divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
+                payments.add(payment(invoice, paid));
+            }
+            invoice.setTotalAmount(total);
+            invoice.setPaidAmount(paid);
+            invoice.setPendingAmount(total.subtract(paid));
+
+            ids.add(invoice.getId());
+            invoices.add(invoice);
+            items.addAll(lines);
+            if (invoices.size() == INSERT_BATCH_SIZE) {
+                flush(mongoTemplate, invoices, items, payments);
+            }
+        }
+        flush(mongoTemplate, invoices, items, payments);
+        return ids;
+    }
+
+    private static void flush(MongoTemplate mongoTemplate, List<Invoice> invoices, List<Item> items, List<payment> payments) {
+        mongoTemplate.insert(invoices, Invoice.class);
+        mongoTemplate.insert(items, Item.class);
+        mongoTemplate.insert(payments, payment.class);
+        invoices.clear();
+        items.clear();
+        payments.clear();
+    }
+
+    InvoiceDto newInvoiceDto() {
+        Invoice template = invoice(random.nextInt(1_000_000));
+        InvoiceDto dto = new InvoiceDto();
+        dto.setInvoiceDate(template.getInvoiceDate());
+        dto.setDueDate(template.getDueDate());
+        dto.setInvoiceTerms(template.getInvoiceTerms());
+        dto.setInvoiceCompanyName(template.getInvoiceCompanyName());
+        dto.setInvoiceCompanyAddress(template.getInvoiceCompanyAddress());
+        dto.setInvoiceCountry(template.getInvoiceCountry());
+        dto.setInvoiceEmail(template.getInvoiceEmail());
+        dto.setInvoiceCurrency(template.getInvoiceCurrency());
+        dto.setCompanyName(template.getCompanyName());
+        List<itemDto> lines = new ArrayList<>();
+        for (Item item : items(null)) {
+            itemDto line = new itemDto();
+            line.setItemName(item.getItemName());
+            line.setDescription(item.getDescription());
+            line.setQty(item.getQty());
+            line.setRate(item.getRate());
+            line.setAmount(item.getAmount());
+            lines.add(line);
+        }
+        dto.setItems(lines);
+        return dto;
+    }
+
+    Invoice invoice(int index) {
+        LocalDate invoiceDate = LocalDate.of(2020, 1, 1).plusDays(index % 2000);
+        Invoice invoice = new Invoice();
+        invoice.setId(new ObjectId().toHexString());
+        invoice.setInvoiceNo(String.format("BENCH%08d", index));
+        invoice.setInvoiceDate(invoiceDate);
+        invoice.setDueDate(invoiceDate.plusDays(30));
+        invoice.setInvoiceTerms("Net 30");
+        invoice.setInvoiceCompanyName(CUSTOMERS[index % CUSTOMERS.length]);
+        invoice.setInvoiceCompanyAddress(index + " Benchmark Street, Chennai");
+        invoice.setInvoiceCountry("India");
+        invoice.setInvoicePinCode("600001");
+        invoice.setInvoiceEmail("billing" + (index % 100) + "@example.com");
+        invoice.setInvoiceMobileNo("9000000000");
+        invoice.setInvoiceConsultantName("Consultant " + (index % 50));
+        invoice.setInvoiceCurrency(index % 4 == 0 ? "USD" : "INR");
+        invoice.setInvoiceStatus(STATUSES[random.nextInt(STATUSES.length)]);
+        invoice.setCompanyName("Ascentware");
+        invoice.setCompanyAddress("1 Head Office Road, Chennai");
+        invoice.setCompanyEmail("accounts@example.com");
+        invoice.setThanksNote("Thank you for your business");
+        invoice.setDeleted(false);
+        return invoice;
+    }
+
+    List<Item> items(String invoiceId) {
+        List<Item> items = new ArrayList<>(ITEMS_PER_INVOICE);
+        for (int i = 0; i < ITEMS_PER_INVOICE; i++) {
+            BigDecimal qty = BigDecimal.valueOf(1 + random.nextInt(160));
+            BigDecimal rate = BigDecimal.valueOf(500 + random.nextInt(5000), 2);
+            Item item = new Item();
+            item.setId(new ObjectId().toHexString());
+            item.setItemName("Consulting hours " + (i + 1));
+            item.setDescription("Monthly engagement");
+            item.setQty(qty);
+            item.setRate(rate);
+            item.setAmount(qty.multiply(rate));
+            item.setInvoiceId(invoiceId);
+            items.add(item);
+        }
+        return items;
+    }
+
+    payment payment(Invoice invoice, BigDecimal amount) {
+        payment payment = new payment();
+        payment.setId(new ObjectId().toHexString());
+        payment.setInvoiceNo(invoice.getInvoiceNo());
+        payment.setPaymentAmount(amount);
+        payment.setPaymentDate(invoice.getInvoiceDate().plusDays(15));
+        payment.setPaymentMethod("Bank Transfer");
+        payment.setReferanceNo("UTR" + invoice.getInvoiceNo());
+        return payment;
+    }
+
+    Company company(int index) {
+        Company company = new Company();
+        company.setId(new ObjectId().toHexString());
+        company.setCompanyName(CUSTOMERS[index % CUSTOMERS.length]);
+        company.setContactName("Accounts Payable");
+        company.setCompanyAddress(index + " Benchmark Street, Chennai");
+        company.setCompanyCountry("India");
+        company.setCompanyPinCode("600001");
+        company.setCompanyEmail("ap@example.com");
+        company.setCompanyMobileNo("9000000000");
+        return company;
+    }
+}
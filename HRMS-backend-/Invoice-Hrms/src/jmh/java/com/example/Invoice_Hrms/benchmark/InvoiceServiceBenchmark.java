@@ -0,0 +1,159 @@
+package com.example.Invoice_Hrms.benchmark;
+
+import com.example.Invoice_Hrms.dto.InvoiceDto;
+import com.example.Invoice_Hrms.dto.InvoicePageDto;
+import com.example.Invoice_Hrms.dto.InvoiceSearchCriteria;
+import com.example.Invoice_Hrms.dto.itemDto;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.service.InvoiceService;
+import com.example.Invoice_Hrms.util.PageCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InvoiceService hot paths against a seeded data set. Listing is measured through the keyset-paged
+ * endpoint (the first page, and pages starting at random positions) rather than getAllInvoices, whose
+ * cost grows with the whole collection. The in-memory Mongo stand-in holds roughly 9 KB per seeded
+ * invoice, so 1M invoices are left out of the default run; run them alone with
+ * -Djmh.args="InvoiceService -p invoiceCount=1000000 -jvmArgsAppend -Xmx12g".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx3g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class InvoiceServiceBenchmark {
+
+    private static final int UPDATE_WORKING_SET = 1000;
+    private static final int PAGE_SIZE = 50;
+    private static final InvoiceSearchCriteria ALL = new InvoiceSearchCriteria();
+
+    @Param({"1000", "100000"})
+    public int invoiceCount;
+
+    private BenchmarkEnvironment environment;
+    private InvoiceService invoiceService;
+    private InvoiceDataGenerator generator;
+    private List<String> invoiceIds;
+    private List<InvoiceDto> updates;
+    private List<String> pageCursors;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        invoiceService = environment.bean(InvoiceService.class);
+        generator = new InvoiceDataGenerator(42);
+        invoiceIds = generator.seed(environment.bean(MongoTemplate.class), invoiceCount);
+
+        // Edits are replayed against a fixed sample so every update touches existing lines
+        updates = new ArrayList<>(UPDATE_WORKING_SET);
+        for (Invoice invoice : invoiceService.getInvoicesByIds(invoiceIds.subList(0, Math.min(UPDATE_WORKING_SET, invoiceCount)))) {
+            updates.add(toDto(invoice));
+        }
+
+        // Cursors as a client would hold them after paging to random positions in the listing
+        List<String> sample = new ArrayList<>(invoiceIds);
+        Collections.shuffle(sample, new Random(42));
+        pageCursors = new ArrayList<>(UPDATE_WORKING_SET);
+        for (Invoice invoice : invoiceService.getInvoicesByIds(sample.subList(0, Math.min(UPDATE_WORKING_SET, invoiceCount)))) {
+            pageCursors.add(new PageCursor(invoice.getInvoiceDate(), invoice.getId()).encode());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public Invoice createInvoice() {
+        return invoiceService.createInvoice(generator.newInvoiceDto());
+    }
+
+    @Benchmark
+    public InvoicePageDto getFirstInvoicePage() {
+        return invoiceService.getInvoicePage(ALL, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public InvoicePageDto getInvoicePageAtCursor() {
+        String cursor = pageCursors.get(ThreadLocalRandom.current().nextInt(pageCursors.size()));
+        return invoiceService.getInvoicePage(ALL, cursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Invoice updateInvoice() {
+        InvoiceDto dto = updates.get(ThreadLocalRandom.current().nextInt(updates.size()));
+        itemDto line = dto.getItems().get(0);
+        line.setQty(line.getQty().add(BigDecimal.ONE));
+        line.setAmount(line.getQty().multiply(line.getRate()));
+        return invoiceService.updateInvoice(dto.getId(), dto);
+    }
+
+    @Benchmark
+    public InvoiceDto getInvoiceWithAmounts() {
+        return invoiceService.getInvoiceWithAmounts(invoiceIds.get(ThreadLocalRandom.current().nextInt(invoiceIds.size())));
+    }
+
+    @Benchmark
+    public String generateInvoiceNumber() {
+        return invoiceService.generateInvoiceNumber();
+    }
+
+    private static InvoiceDto toDto(Invoice invoice) {
+        InvoiceDto dto = new InvoiceDto();
+        dto.setId(invoice.getId());
+        dto.setInvoiceNo(invoice.getInvoiceNo());
+        dto.setInvoiceDate(invoice.getInvoiceDate());
+        dto.setDueDate(invoice.getDueDate());
+        dto.setInvoiceTerms(invoice.getInvoiceTerms());
+        dto.setInvoiceCompanyName(invoice.getInvoiceCompanyName());
+        dto.setInvoiceCompanyAddress(invoice.getInvoiceCompanyAddress());
+        dto.setInvoiceCountry(invoice.getInvoiceCountry());
+        dto.setInvoicePinCode(invoice.getInvoicePinCode());
+        dto.setInvoiceEmail(invoice.getInvoiceEmail());
+        dto.setInvoiceMobileNo(invoice.getInvoiceMobileNo());
+        dto.setInvoiceConsultantName(invoice.getInvoiceConsultantName());
+        dto.setInvoiceCurrency(invoice.getInvoiceCurrency());
+        dto.setInvoiceStatus(invoice.getInvoiceStatus());
+        dto.setCompanyName(invoice.getCompanyName());
+        dto.setCompanyAddress(invoice.getCompanyAddress());
+        dto.setCompanyEmail(invoice.getCompanyEmail());
+        dto.setThanksNote(invoice.getThanksNote());
+        List<itemDto> lines = new ArrayList<>();
+        for (Item item : invoice.getItems()) {
+            itemDto line = new itemDto();
+            line.setId(item.getId());
+            line.setItemName(item.getItemName());
+            line.setDescription(item.getDescription());
+            line.setQty(item.getQty());
+            line.setRate(item.getRate());
+            line.setAmount(item.getAmount());
+            lines.add(line);
+        }
+        dto.setItems(lines);
+        return dto;
+    }
+}
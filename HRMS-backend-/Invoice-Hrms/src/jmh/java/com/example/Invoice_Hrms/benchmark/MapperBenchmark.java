@@ -0,0 +1,79 @@
+package com.example.Invoice_Hrms.benchmark;
+
+import com.example.Invoice_Hrms.dto.CompanyDto;
+import com.example.Invoice_Hrms.dto.InvoiceDto;
+import com.example.Invoice_Hrms.dto.paymentDto;
+import com.example.Invoice_Hrms.mapper.CompanyMapper;
+import com.example.Invoice_Hrms.mapper.InvoiceMapper;
+import com.example.Invoice_Hrms.mapper.paymentMapper;
+import com.example.Invoice_Hrms.model.Company;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.payment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapperBenchmark {
+
+    private final paymentMapper paymentMapper = new paymentMapper();
+    private Invoice invoice;
+    private Company company;
+    private CompanyDto companyDto;
+    private payment payment;
+    private paymentDto paymentDto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InvoiceDataGenerator generator = new InvoiceDataGenerator(42);
+        invoice = generator.invoice(1);
+        invoice.setTotalAmount(new BigDecimal("1250.00"));
+        invoice.setPaidAmount(BigDecimal.ZERO);
+        invoice.setPendingAmount(new BigDecimal("1250.00"));
+        company = generator.company(1);
+        companyDto = CompanyMapper.toDto(company);
+        payment = generator.payment(invoice, new BigDecimal("500.00"));
+        paymentDto = paymentMapper.toDto(payment);
+    }
+
+    @Benchmark
+    public InvoiceDto invoiceToDto() {
+        return InvoiceMapper.toDto(invoice);
+    }
+
+    @Benchmark
+    public CompanyDto companyToDto() {
+        return CompanyMapper.toDto(company);
+    }
+
+    @Benchmark
+    public Company companyToEntity() {
+        return CompanyMapper.toEntity(companyDto);
+    }
+
+    @Benchmark
+    public paymentDto paymentToDto() {
+        return paymentMapper.toDto(payment);
+    }
+
+    @Benchmark
+    public payment paymentToEntity() {
+        return paymentMapper.toEntity(paymentDto);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.Invoice_Hrms.benchmark;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.util.InvoiceBranding;
+import com.example.Invoice_Hrms.util.InvoiceFragments;
+import com.example.Invoice_Hrms.util.PdfGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PdfGeneratorBenchmark {
+
+    @Param({"1", "20", "200"})
+    public int itemCount;
+
+    private PdfGenerator pdfGenerator;
+    private Invoice invoice;
+    private InvoiceFragments fragments;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver("templates/"));
+        pdfGenerator = new PdfGenerator(templateEngine, new SimpleMeterRegistry());
+
+        InvoiceDataGenerator generator = new InvoiceDataGenerator(42);
+        invoice = generator.invoice(1);
+        List<Item> items = new ArrayList<>();
+        while (items.size() < itemCount) {
+            items.addAll(generator.items(invoice.getId()));
+        }
+        invoice.setItems(items.subList(0, itemCount));
+        fragments = pdfGenerator.renderFragments(InvoiceBranding.of(invoice));
+    }
+
+    private static ClassLoaderTemplateResolver resolver(String prefix) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix(prefix);
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        return resolver;
+    }
+
+    @Benchmark
+    public byte[] generateInvoicePdf() throws IOException {
+        return pdfGenerator.generateInvoicePdf(invoice);
+    }
+
+    // The production path: header, terms and footer come from InvoiceTemplateService's fragment cache
+    @Benchmark
+    public byte[] generateInvoicePdfWithCachedFragments() throws IOException {
+        return pdfGenerator.generateInvoicePdf(invoice, PdfGenerator.DEFAULT_TEMPLATE, fragments);
+    }
+}
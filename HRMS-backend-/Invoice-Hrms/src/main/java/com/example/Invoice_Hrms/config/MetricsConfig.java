@@ -0,0 +1,42 @@
+package com.example.Invoice_Hrms.config;
+
+import com.example.Invoice_Hrms.service.InvoicePdfService;
+import com.example.Invoice_Hrms.service.MailOutboxService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Application meters on top of what Actuator already records: Spring Data repository invocations
+ * (spring.data.repository.invocations), HTTP endpoints (http.server.requests) and Mongo commands
+ * (mongodb.driver.commands). Everything is scraped from /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowMongoCommandLogger(
+            @Value("${invoice.mongo.slow-command-threshold-ms:200}") long thresholdMillis,
+            MeterRegistry meterRegistry) {
+        SlowMongoCommandListener listener = new SlowMongoCommandListener(Duration.ofMillis(thresholdMillis), meterRegistry);
+        return builder -> builder.addCommandListener(listener);
+    }
+
+    @Bean
+    public MeterBinder invoiceQueueGauges(MailOutboxService mailOutboxService, InvoicePdfService invoicePdfService) {
+        return registry -> {
+            Gauge.builder("invoice.mail.outbox.pending", mailOutboxService, MailOutboxService::getPendingCount)
+                    .description("Invoice emails waiting in the outbox")
+                    .register(registry);
+            Gauge.builder("invoice.pdf.render.queue", invoicePdfService, InvoicePdfService::getQueueDepth)
+                    .description("Invoice PDFs waiting for a render thread")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.Invoice_Hrms.config;
+
+import com.example.Invoice_Hrms.model.Item;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Creates the indexes declared on @Document classes once the application is up.
+ * Runs off the startup thread so the app still starts when Mongo is slow or unreachable.
+ */
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    private final CompletableFuture<Void> indexesEnsured = new CompletableFuture<>();
+
+    /**
+     * Completes once every declared index has been attempted, whether or not each one could be created.
+     */
+    public CompletableFuture<Void> indexesEnsured() {
+        return indexesEnsured;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        CompletableFuture.runAsync(() -> {
+            MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+            for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+                if (!entity.isAnnotationPresent(Document.class)) {
+                    continue;
+                }
+                IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+                // One failing index (e.g. a unique index over legacy duplicates) must not block the others
+                for (IndexDefinition index : resolver.resolveIndexFor(entity.getType())) {
+                    try {
+                        indexOps.createIndex(index);
+                    } catch (Exception e) {
+                        logger.warn("Could not ensure index {} for {}: {}", index.getIndexOptions().get("name"),
+                                entity.getCollection(), e.getMessage());
+                    }
+                }
+            }
+            // Declared here rather than with @Indexed because Item is also embedded in invoices,
+            // where an items.invoiceId index would be useless
+            try {
+                mongoTemplate.indexOps(Item.class).createIndex(new Index("invoiceId", Sort.Direction.ASC));
+            } catch (Exception e) {
+                logger.warn("Could not ensure the items invoiceId index: {}", e.getMessage());
+            }
+        }).whenComplete((ignored, error) -> indexesEnsured.complete(null));
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.Invoice_Hrms.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Multi-document transactions, used to write an invoice and its items-collection lines together.
+ * Transactions need a replica set (a single-node one is enough), so this is opt-in; without it
+ * InvoiceService removes a half-written invoice instead.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.mongo.transactions.enabled", havingValue = "true")
+public class MongoTransactionConfig {
+
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.Invoice_Hrms.config;
+
+import com.example.Invoice_Hrms.controller.ReactiveInvoiceHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.List;
+
+/**
+ * Runs the reactive invoice endpoints on their own Netty port next to the Tomcat servlet stack, so
+ * both can be exercised against the same database. Enabled with the "reactive" profile.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveServerConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveServerConfig.class);
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer reactiveServer(ReactiveInvoiceHandler handler,
+                                           ObjectMapper objectMapper,
+                                           @Value("${invoice.reactive.port:8081}") int port) {
+        RouterFunction<ServerResponse> routes = RouterFunctions.route()
+                .GET("/api/invoices/stream", handler::streamInvoices)
+                .GET("/api/invoices/export", handler::exportInvoices)
+                .GET("/api/payment/stream", handler::streamPayments)
+                .build();
+
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOrigins(List.of("http://localhost:3000"));
+        cors.setAllowedMethods(List.of("GET"));
+        UrlBasedCorsConfigurationSource corsSource = new UrlBasedCorsConfigurationSource();
+        corsSource.registerCorsConfiguration("/api/**", cors);
+
+        // Share the servlet stack's ObjectMapper so LocalDate and BigDecimal serialize identically
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .webFilter(new CorsWebFilter(corsSource))
+                .build();
+
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(routes, strategies);
+        DisposableServer server = HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        logger.info("Reactive invoice endpoints listening on port {}", server.port());
+        return server;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.Invoice_Hrms.config;
+
+import com.example.Invoice_Hrms.service.CompanyService;
+import com.example.Invoice_Hrms.service.ItemMasterService;
+import com.example.Invoice_Hrms.service.TermMasterService;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+
+import java.util.function.Consumer;
+
+/**
+ * Evicts the reference-data caches when another replica changes companies, item masters or terms, passing
+ * on the changed document's id (null when the event has none, e.g. a dropped collection).
+ * Change streams need a replica set, so this is opt-in; without it caches converge within the TTL.
+ */
+@Configuration
+@ConditionalOnProperty(name = "invoice.cache.reference.change-streams", havingValue = "true")
+public class ReferenceDataChangeStreamConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataChangeStreamConfig.class);
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public MessageListenerContainer referenceDataListenerContainer(MongoTemplate mongoTemplate,
+                                                                   CompanyService companyService,
+                                                                   ItemMasterService itemMasterService,
+                                                                   TermMasterService termMasterService) {
+        MessageListenerContainer container = new DefaultMessageListenerContainer(mongoTemplate);
+        register(container, "company", companyService::evictCache);
+        register(container, "ItemMaster", itemMasterService::evictCache);
+        register(container, "terms", termMasterService::evictCache);
+        return container;
+    }
+
+    private void register(MessageListenerContainer container, String collection, Consumer<String> evict) {
+        ChangeStreamRequest<Document> request = ChangeStreamRequest.<Document>builder()
+                .collection(collection)
+                .publishTo(message -> {
+                    String id = documentId(message);
+                    logger.debug("{} {} changed, evicting cache", collection, id);
+                    evict.accept(id);
+                })
+                .build();
+        container.register(request, Document.class,
+                error -> logger.warn("Change stream on {} failed: {}", collection, error.getMessage()));
+    }
+
+    private static String documentId(Message<ChangeStreamDocument<Document>, ? extends Document> message) {
+        ChangeStreamDocument<Document> raw = message.getRaw();
+        BsonDocument key = raw != null ? raw.getDocumentKey() : null;
+        BsonValue id = key != null ? key.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : null;
+    }
+}
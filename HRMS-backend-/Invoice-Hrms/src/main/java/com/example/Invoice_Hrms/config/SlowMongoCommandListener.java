@@ -0,0 +1,67 @@
+package com.example.Invoice_Hrms.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs every Mongo command that takes longer than a threshold, together with the collection it ran on,
+ * and counts them per command name. The target has to be captured when the command starts because the
+ * driver only exposes the elapsed time once it has finished. The command document itself can't be
+ * kept for later: its buffer is released once commandStarted returns. Serializing every command just in
+ * case it turns out slow would cost more than the commands being watched.
+ */
+class SlowMongoCommandListener implements CommandListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowMongoCommandListener.class);
+
+    private final long thresholdNanos;
+    private final MeterRegistry meterRegistry;
+    // Request id -> collection (or other target) the command addresses
+    private final Map<Integer, String> running = new ConcurrentHashMap<>();
+
+    SlowMongoCommandListener(Duration threshold, MeterRegistry meterRegistry) {
+        this.thresholdNanos = threshold.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        // By convention the command name is the first key and its value the target collection
+        BsonValue target = event.getCommand().get(event.getCommandName());
+        running.put(event.getRequestId(), target != null && target.isString() ? target.asString().getValue() : "");
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        finished(event.getRequestId(), event.getCommandName(), event.getDatabaseName(),
+                event.getElapsedTime(TimeUnit.NANOSECONDS), null);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        finished(event.getRequestId(), event.getCommandName(), event.getDatabaseName(),
+                event.getElapsedTime(TimeUnit.NANOSECONDS), event.getThrowable());
+    }
+
+    private void finished(int requestId, String commandName, String database, long elapsedNanos, Throwable error) {
+        String target = running.remove(requestId);
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        meterRegistry.counter("invoice.mongo.slow.commands", "command", commandName).increment();
+        String namespace = target == null || target.isEmpty() ? database : database + "." + target;
+        logger.warn("Slow Mongo {} on {} took {} ms{}", commandName, namespace,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), error != null ? " and failed" : "");
+    }
+}
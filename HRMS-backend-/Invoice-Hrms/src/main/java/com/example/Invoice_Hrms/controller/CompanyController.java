@@ -2,6 +2,8 @@ package com.example.Invoice_Hrms.controller;
 
 import com.example.Invoice_Hrms.dto.CompanyDto;
 import com.example.Invoice_Hrms.service.CompanyService;
+import com.example.Invoice_Hrms.util.ReferenceDataCache;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,8 +27,13 @@ public class CompanyController {
     }
 
     @GetMapping
-    public ResponseEntity<List<CompanyDto>> getAllCompanies() {
-        return ResponseEntity.ok(service.getAllCompanies());
+    public ResponseEntity<List<CompanyDto>> getAllCompanies(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ReferenceDataCache.Snapshot<CompanyDto> snapshot = service.getCompanySnapshot();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(snapshot.etag()).body(snapshot.values());
     }
 
     @GetMapping("/{id}")
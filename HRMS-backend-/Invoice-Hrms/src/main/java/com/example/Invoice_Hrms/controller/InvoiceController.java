@@ -1,26 +1,62 @@
 package com.example.Invoice_Hrms.controller;
 
 import com.example.Invoice_Hrms.dto.InvoiceDto;
+import com.example.Invoice_Hrms.dto.InvoicePageDto;
+import com.example.Invoice_Hrms.dto.InvoiceSearchCriteria;
+import com.example.Invoice_Hrms.dto.OverdueScanResultDto;
 import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.service.ExportService;
+import com.example.Invoice_Hrms.service.IdempotencyService;
 import com.example.Invoice_Hrms.service.InvoiceService;
+import com.example.Invoice_Hrms.service.OverdueInvoiceScanner;
+import com.example.Invoice_Hrms.util.ExportFormat;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
-@CrossOrigin(origins = "http://localhost:3000")
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = IdempotencyService.REPLAYED_HEADER)
 @RequestMapping("/api/invoices")
 @RequiredArgsConstructor
 public class InvoiceController {
 
     private final InvoiceService invoiceService;
+    private final ExportService exportService;
+    private final IdempotencyService idempotencyService;
+    private final OverdueInvoiceScanner overdueInvoiceScanner;
 
+    /**
+     * Send an Idempotency-Key header to make retries safe: a repeated key returns the original response.
+     */
     @PostMapping
-    public ResponseEntity<Invoice> createInvoice(@RequestBody InvoiceDto data) {
-        return ResponseEntity.ok(invoiceService.createInvoice(data));
+    public ResponseEntity<?> createInvoice(@RequestBody InvoiceDto data,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return create(data);
+        }
+        try {
+            return idempotencyService.execute("invoice.create", idempotencyKey, data, () -> create(data));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> create(InvoiceDto data) {
+        try {
+            return ResponseEntity.ok(invoiceService.createInvoice(data));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping
@@ -28,6 +64,49 @@ public class InvoiceController {
         return invoiceService.getAllInvoices();
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<InvoicePageDto> getInvoicePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String invoiceStatus,
+            @RequestParam(required = false) String invoiceCompanyName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueDateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueDateTo,
+            @RequestParam(required = false) Boolean deleted) {
+        InvoiceSearchCriteria criteria = new InvoiceSearchCriteria();
+        criteria.setInvoiceStatus(invoiceStatus);
+        criteria.setInvoiceCompanyName(invoiceCompanyName);
+        criteria.setDueDateFrom(dueDateFrom);
+        criteria.setDueDateTo(dueDateTo);
+        criteria.setDeleted(deleted);
+        try {
+            return ResponseEntity.ok(invoiceService.getInvoicePage(criteria, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate invoiceDateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate invoiceDateTo,
+            @RequestParam(required = false) String invoiceStatus) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out ->
+                exportService.exportInvoices(invoiceDateFrom, invoiceDateTo, invoiceStatus, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("invoices." + exportFormat.getExtension()).build().toString())
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Invoice> getInvoice(@PathVariable String id) {
         Invoice invoice = invoiceService.getInvoiceById(id);
@@ -35,9 +114,15 @@ public class InvoiceController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Invoice> updateInvoice(@PathVariable String id, @RequestBody InvoiceDto data) {
-        Invoice updatedInvoice = invoiceService.updateInvoice(id, data);
-        return updatedInvoice != null ? ResponseEntity.ok(updatedInvoice) : ResponseEntity.notFound().build();
+    public ResponseEntity<?> updateInvoice(@PathVariable String id, @RequestBody InvoiceDto data) {
+        try {
+            Invoice updatedInvoice = invoiceService.updateInvoice(id, data);
+            return updatedInvoice != null ? ResponseEntity.ok(updatedInvoice) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}/with-amounts")
@@ -47,13 +132,20 @@ public class InvoiceController {
 
     @PutMapping("/{id}/status")
     public ResponseEntity<Invoice> updateInvoiceStatus(@PathVariable String id, @RequestParam String status) {
-        Invoice invoice = invoiceService.getInvoiceById(id);
-        if (invoice == null) {
-            return ResponseEntity.notFound().build();
-        }
+        Invoice invoice = invoiceService.updateStatus(id, status);
+        return invoice != null ? ResponseEntity.ok(invoice) : ResponseEntity.notFound().build();
+    }
 
-        invoice.setInvoiceStatus(status);
-        return ResponseEntity.ok(invoiceService.save(invoice));
+    /**
+     * Runs the overdue scan now instead of waiting for the schedule; asOf defaults to today.
+     */
+    @PostMapping("/overdue/scan")
+    public ResponseEntity<?> scanOverdue(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        OverdueScanResultDto result = overdueInvoiceScanner.scan(asOf != null ? asOf : LocalDate.now());
+        return result != null
+                ? ResponseEntity.ok(result)
+                : ResponseEntity.status(HttpStatus.CONFLICT).body("An overdue scan is already running");
     }
 
     @DeleteMapping("/{id}")
@@ -75,7 +167,7 @@ public class InvoiceController {
     @GetMapping("/preview-invoice-no")
     public ResponseEntity<?> getPreviewInvoiceNumber() {
         try {
-            String invoiceNumber = invoiceService.generateInvoiceNumber();
+            String invoiceNumber = invoiceService.previewInvoiceNumber();
             return ResponseEntity.ok(invoiceNumber);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -84,7 +176,9 @@ public class InvoiceController {
     }
     @PatchMapping("/{id}/is-delete")
     public ResponseEntity<Invoice> updateIsDelete(@PathVariable String id, @RequestParam String isDelete) {
-        Invoice updatedInvoice = invoiceService.updateIsDelete(id, isDelete);
+        // Older clients send "1"/"0"
+        boolean deleted = "1".equals(isDelete) || Boolean.parseBoolean(isDelete);
+        Invoice updatedInvoice = invoiceService.setDeleted(id, deleted);
         return updatedInvoice != null ? ResponseEntity.ok(updatedInvoice) : ResponseEntity.notFound().build();
     }
 }
\ No newline at end of file
@@ -1,7 +1,13 @@
 package com.example.Invoice_Hrms.controller;
 
 import com.example.Invoice_Hrms.dto.ItemMasterDto;
+import com.example.Invoice_Hrms.dto.RepriceResultDto;
+import com.example.Invoice_Hrms.service.InvoiceRepricingService;
 import com.example.Invoice_Hrms.service.ItemMasterService;
+import com.example.Invoice_Hrms.util.ReferenceDataCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -13,13 +19,20 @@ public class ItemMasterController {
 
 
     private final ItemMasterService service;
-    public ItemMasterController(ItemMasterService service) {
+    private final InvoiceRepricingService repricingService;
+    public ItemMasterController(ItemMasterService service, InvoiceRepricingService repricingService) {
         this.service = service;
+        this.repricingService = repricingService;
     }
 
     @GetMapping
-    public List<ItemMasterDto> getAllItems() {
-        return service.getAllItems();
+    public ResponseEntity<List<ItemMasterDto>> getAllItems(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ReferenceDataCache.Snapshot<ItemMasterDto> snapshot = service.getItemSnapshot();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(snapshot.etag()).body(snapshot.values());
     }
 
     @GetMapping("/{id}")
@@ -37,6 +50,16 @@ public class ItemMasterController {
         return service.updateItem(id, dto);
     }
 
+    @PostMapping("/{id}/reprice")
+    public ResponseEntity<RepriceResultDto> repriceInvoices(@PathVariable String id) {
+        try {
+            RepriceResultDto result = repricingService.reprice(id);
+            return result != null ? ResponseEntity.ok(result) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/{id}")
     public void deleteItem(@PathVariable String id) {
         service.deleteItem(id);
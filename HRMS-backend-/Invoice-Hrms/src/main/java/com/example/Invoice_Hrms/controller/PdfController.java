@@ -0,0 +1,64 @@
+package com.example.Invoice_Hrms.controller;
+
+import com.example.Invoice_Hrms.dto.PdfJobDto;
+import com.example.Invoice_Hrms.service.InvoicePdfService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/pdf")
+@RequiredArgsConstructor
+public class PdfController {
+
+    private final InvoicePdfService invoicePdfService;
+
+    @PostMapping("/jobs")
+    public ResponseEntity<List<PdfJobDto>> submit(@RequestBody List<String> invoiceIds) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(invoicePdfService.submit(invoiceIds));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<PdfJobDto> getJob(@PathVariable String jobId) {
+        PdfJobDto job = invoicePdfService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/jobs/{jobId}/download")
+    public ResponseEntity<?> download(@PathVariable String jobId) {
+        PdfJobDto job = invoicePdfService.getJob(jobId);
+        ResponseEntity<?> notReady = notReady(job);
+        if (notReady != null) {
+            return notReady;
+        }
+        byte[] pdf = invoicePdfService.download(jobId);
+        if (pdf == null) {
+            // The cached PDF was evicted and the job went back to the render pool
+            notReady = notReady(invoicePdfService.getJob(jobId));
+            return notReady != null ? notReady : ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"invoice-" + job.getInvoiceId() + ".pdf\"")
+                .body(pdf);
+    }
+
+    private static ResponseEntity<?> notReady(PdfJobDto job) {
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (InvoicePdfService.STATUS_PENDING.equals(job.getStatus())) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        }
+        if (InvoicePdfService.STATUS_FAILED.equals(job.getStatus())) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(job);
+        }
+        return null;
+    }
+}
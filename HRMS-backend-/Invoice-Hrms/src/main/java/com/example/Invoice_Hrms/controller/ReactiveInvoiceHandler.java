@@ -0,0 +1,61 @@
+package com.example.Invoice_Hrms.controller;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.payment;
+import com.example.Invoice_Hrms.service.ReactiveInvoiceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streaming endpoints of the reactive stack. Rows are written as newline-delimited JSON, or as
+ * Server-Sent Events when the client asks for text/event-stream.
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveInvoiceHandler {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<Invoice>> INVOICE_EVENT =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final ReactiveInvoiceService reactiveInvoiceService;
+
+    public Mono<ServerResponse> streamInvoices(ServerRequest request) {
+        Flux<Invoice> invoices = reactiveInvoiceService.streamInvoices(
+                request.queryParam("invoiceStatus").orElse(null));
+        if (request.headers().accept().contains(MediaType.TEXT_EVENT_STREAM)) {
+            Flux<ServerSentEvent<Invoice>> events = invoices
+                    .map(invoice -> ServerSentEvent.builder(invoice).id(invoice.getId()).event("invoice").build())
+                    .concatWith(Mono.just(ServerSentEvent.<Invoice>builder().event("complete").build()));
+            return ServerResponse.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(events, INVOICE_EVENT);
+        }
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(invoices, Invoice.class);
+    }
+
+    public Mono<ServerResponse> exportInvoices(ServerRequest request) {
+        Flux<Invoice> invoices = reactiveInvoiceService.streamInvoices(
+                request.queryParam("invoiceStatus").orElse(null));
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("invoices.ndjson").build().toString())
+                .body(invoices, Invoice.class);
+    }
+
+    public Mono<ServerResponse> streamPayments(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(reactiveInvoiceService.streamPayments(), payment.class);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.Invoice_Hrms.controller;
+
+import com.example.Invoice_Hrms.dto.ReceivablesDashboardDto;
+import com.example.Invoice_Hrms.service.ReceivablesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class ReportController {
+
+    private final ReceivablesService receivablesService;
+
+    @GetMapping("/receivables")
+    public ResponseEntity<ReceivablesDashboardDto> getReceivables() {
+        return ResponseEntity.ok(receivablesService.getDashboard());
+    }
+
+    @PostMapping("/receivables/refresh")
+    public ResponseEntity<Void> refreshReceivables() {
+        CompletableFuture.runAsync(receivablesService::scheduledRebuild);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.Invoice_Hrms.controller;
+
+import com.example.Invoice_Hrms.dto.SearchHitDto;
+import com.example.Invoice_Hrms.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+
+    /**
+     * Typeahead search, e.g. GET /api/search?q=acme%20jo&types=invoice,company&limit=10
+     */
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(required = false) List<String> types,
+                                    @RequestParam(defaultValue = "10") int limit) {
+        if (!searchService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Search index is still loading");
+        }
+        try {
+            List<SearchHitDto> hits = searchService.search(q, types, limit);
+            return ResponseEntity.ok(hits);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -2,6 +2,10 @@ package com.example.Invoice_Hrms.controller;
 
 import com.example.Invoice_Hrms.dto.TermMasterDto;
 import com.example.Invoice_Hrms.service.TermMasterService;
+import com.example.Invoice_Hrms.util.ReferenceDataCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,8 +20,13 @@ public class TermController {
     private TermMasterService termMasterService;
 
     @GetMapping
-    public List<TermMasterDto> getAllTerms() {
-        return termMasterService.getAllTerms();
+    public ResponseEntity<List<TermMasterDto>> getAllTerms(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ReferenceDataCache.Snapshot<TermMasterDto> snapshot = termMasterService.getTermSnapshot();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(snapshot.etag()).body(snapshot.values());
     }
     
     @PostMapping
@@ -1,6 +1,10 @@
 package com.example.Invoice_Hrms.controller;
 
+import com.example.Invoice_Hrms.dto.BulkMailRequestDto;
+import com.example.Invoice_Hrms.dto.BulkMailResponseDto;
+import com.example.Invoice_Hrms.model.MailOutboxMessage;
 import com.example.Invoice_Hrms.service.InvoiceEmailService;
+import com.example.Invoice_Hrms.service.MailOutboxService;
 
 
 import com.example.Invoice_Hrms.util.PdfGenerator;
@@ -20,6 +24,7 @@ public class mailController {
 
 
     private final InvoiceEmailService invoiceEmailService;
+    private final MailOutboxService mailOutboxService;
     @PostMapping("/send-email")
     public ResponseEntity<String> sendEmai1l(
             @RequestParam("invoiceNo") String invoiceNo,
@@ -61,7 +66,19 @@ public class mailController {
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<?> sendBulk(@RequestBody BulkMailRequestDto request) {
+        try {
+            BulkMailResponseDto response = mailOutboxService.enqueue(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 
-
+    @GetMapping("/outbox/{id}")
+    public ResponseEntity<MailOutboxMessage> getOutboxMessage(@PathVariable String id) {
+        MailOutboxMessage message = mailOutboxService.getMessage(id);
+        return message != null ? ResponseEntity.ok(message) : ResponseEntity.notFound().build();
+    }
 }
-
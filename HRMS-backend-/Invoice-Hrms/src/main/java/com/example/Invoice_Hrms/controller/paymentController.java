@@ -1,12 +1,24 @@
 package com.example.Invoice_Hrms.controller;
 
 
+import com.example.Invoice_Hrms.dto.BulkPaymentResultDto;
 import com.example.Invoice_Hrms.dto.paymentDto;
+import com.example.Invoice_Hrms.service.ExportService;
+import com.example.Invoice_Hrms.service.PaymentImportService;
 import com.example.Invoice_Hrms.service.paymentService;
+import com.example.Invoice_Hrms.util.ExportFormat;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -16,6 +28,8 @@ import java.util.List;
 public class paymentController {
 
     private  final paymentService paymentService;
+    private final ExportService exportService;
+    private final PaymentImportService paymentImportService;
 
 
     @PostMapping
@@ -24,11 +38,45 @@ public class paymentController {
     }
 
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"})
+    public ResponseEntity<?> importBulk(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                        InputStream body) {
+        try {
+            BulkPaymentResultDto result = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_JSON)
+                    ? paymentImportService.importJson(body)
+                    : paymentImportService.importCsv(body);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping
     public ResponseEntity<List<paymentDto>> getAll() {
         return ResponseEntity.ok(paymentService.getAllPayment());
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate paymentDateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate paymentDateTo,
+            @RequestParam(required = false) String paymentMethod) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out ->
+                exportService.exportPayments(paymentDateFrom, paymentDateTo, paymentMethod, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("payments." + exportFormat.getExtension()).build().toString())
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<paymentDto> getById(@PathVariable String id) {
         paymentDto dto = paymentService.getPaymentById(id);
@@ -0,0 +1,13 @@
+package com.example.Invoice_Hrms.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkMailRequestDto {
+
+    // Either an explicit list of invoice numbers or a filter over all invoices
+    private List<String> invoiceNos;
+    private InvoiceSearchCriteria filter;
+}
@@ -0,0 +1,18 @@
+package com.example.Invoice_Hrms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkMailResponseDto {
+
+    private int queued;
+    private List<String> messageIds;
+    // Invoice numbers that were not queued because the invoice or its email address is missing
+    private List<String> skipped;
+}
@@ -0,0 +1,21 @@
+package com.example.Invoice_Hrms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPaymentResultDto {
+
+    private long totalRows;
+    private long inserted;
+    private long failed;
+    private int invoicesUpdated;
+    private List<BulkPaymentRowErrorDto> errors;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,16 @@
+package com.example.Invoice_Hrms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPaymentRowErrorDto {
+
+    // 1-based position of the record in the upload, header row not counted
+    private long row;
+    private String invoiceNo;
+    private String message;
+}
@@ -17,6 +17,8 @@ public class CompanyDto {
     private  String companyEmail;
     private  String companyMobileNo;
     private  String LogoUrl;
+    private  String brandColor;
+    private  String invoiceTemplate;
 
 
 }
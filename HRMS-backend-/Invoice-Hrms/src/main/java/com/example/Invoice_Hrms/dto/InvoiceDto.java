@@ -40,7 +40,7 @@ import lombok.Data;
         private String companyMobileNo;
         private String companyEmail;
         private String ThanksNote;
-        private String is_delete;
+        private boolean deleted;
 
         private List<itemDto> items;
 
@@ -0,0 +1,18 @@
+package com.example.Invoice_Hrms.dto;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoicePageDto {
+
+    private List<Invoice> invoices;
+    private String nextCursor;
+    private boolean hasMore;
+}
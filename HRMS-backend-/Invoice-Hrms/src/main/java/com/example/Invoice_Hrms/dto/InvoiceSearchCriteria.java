@@ -0,0 +1,15 @@
+package com.example.Invoice_Hrms.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class InvoiceSearchCriteria {
+
+    private String invoiceStatus;
+    private String invoiceCompanyName;
+    private LocalDate dueDateFrom;
+    private LocalDate dueDateTo;
+    private Boolean deleted;
+}
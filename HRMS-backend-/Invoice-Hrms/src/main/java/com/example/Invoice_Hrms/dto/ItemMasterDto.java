@@ -3,6 +3,8 @@ package com.example.Invoice_Hrms.dto;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 
+import java.math.BigDecimal;
+
 @Data
 public class ItemMasterDto {
 
@@ -10,5 +12,6 @@ public class ItemMasterDto {
     private String id;
     private String itemName;
     private String description;
+    private BigDecimal rate;
 }
 
@@ -0,0 +1,18 @@
+package com.example.Invoice_Hrms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueScanResultDto {
+
+    private LocalDate asOf;
+    private long markedOverdue;
+    private int remindersQueued;
+    private long elapsedMillis;
+}
@@ -0,0 +1,16 @@
+package com.example.Invoice_Hrms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfJobDto {
+
+    private String jobId;
+    private String invoiceId;
+    private String status;
+    private String error;
+}
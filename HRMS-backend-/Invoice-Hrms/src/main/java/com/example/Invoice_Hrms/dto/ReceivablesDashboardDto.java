@@ -0,0 +1,21 @@
+package com.example.Invoice_Hrms.dto;
+
+import com.example.Invoice_Hrms.model.ReceivablesRollup;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceivablesDashboardDto {
+
+    private List<ReceivablesRollup> byStatus;
+    private List<ReceivablesRollup> byCompany;
+    private List<ReceivablesRollup> byCurrency;
+    private List<ReceivablesRollup> aging;
+    private Instant refreshedAt;
+}
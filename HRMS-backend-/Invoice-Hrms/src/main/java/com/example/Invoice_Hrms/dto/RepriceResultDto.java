@@ -0,0 +1,17 @@
+package com.example.Invoice_Hrms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepriceResultDto {
+
+    private String itemMasterId;
+    private long linesRepriced;
+    private long invoicesRepriced;
+    private long linesSkipped;
+    private long elapsedMillis;
+}
@@ -0,0 +1,18 @@
+package com.example.Invoice_Hrms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitDto {
+
+    // invoice, company or item
+    private String type;
+    private String id;
+    private String title;
+    private String subtitle;
+    private int score;
+}
@@ -15,7 +15,13 @@ public class itemDto {
     private String description;
     private BigDecimal qty;
     private BigDecimal rate;
+    private BigDecimal discountPercent;
+    private BigDecimal taxPercent;
+    // Computed by the server; values sent by the client are ignored
+    private BigDecimal discountAmount;
+    private BigDecimal taxAmount;
     private BigDecimal amount;
+    private String itemMasterId;
     private  String invoiceId;
 
 }
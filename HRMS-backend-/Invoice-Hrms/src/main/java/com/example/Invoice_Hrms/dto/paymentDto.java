@@ -4,6 +4,7 @@ package com.example.Invoice_Hrms.dto;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Data
@@ -12,7 +13,7 @@ public class paymentDto {
 
     private String id;
     private  String invoiceNo;
-    private  double paymentAmount;
+    private  BigDecimal paymentAmount;
     private LocalDate paymentDate;
     private  String paymentMethod;
     private  String referenceNo;
@@ -0,0 +1,8 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * Published when anything printed around an invoice's own details (company header, logo, terms)
+ * may have changed, so PDFs rendered before must not be served again.
+ */
+public record BrandingChangedEvent() {
+}
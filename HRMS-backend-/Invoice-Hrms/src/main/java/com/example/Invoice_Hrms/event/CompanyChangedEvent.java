@@ -0,0 +1,8 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * Published after a company is created, updated or deleted; companyId is null when the change came from
+ * another replica and which company changed is unknown.
+ */
+public record CompanyChangedEvent(String companyId) {
+}
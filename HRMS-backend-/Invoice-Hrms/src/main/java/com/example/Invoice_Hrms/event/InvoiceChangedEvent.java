@@ -0,0 +1,16 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * Published after any write that can change an invoice's header, lines or payments. Payment writes
+ * only know the invoice number, so exactly one of the two identifiers is set.
+ */
+public record InvoiceChangedEvent(String invoiceId, String invoiceNo) {
+
+    public static InvoiceChangedEvent ofId(String invoiceId) {
+        return new InvoiceChangedEvent(invoiceId, null);
+    }
+
+    public static InvoiceChangedEvent ofInvoiceNo(String invoiceNo) {
+        return new InvoiceChangedEvent(null, invoiceNo);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * An invoice document was inserted.
+ */
+public record InvoiceCreatedEvent(String invoiceId, String invoiceNo, String invoiceStatus)
+        implements InvoiceLifecycleEvent {
+}
@@ -0,0 +1,7 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * The invoice was soft deleted, or removed from the collection when permanent is true.
+ */
+public record InvoiceDeletedEvent(String invoiceId, boolean permanent) implements InvoiceLifecycleEvent {
+}
@@ -0,0 +1,18 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * Events derived from the invoices, items and payments change streams by InvoiceChangeStreamBus. They
+ * describe committed writes made by any replica or tool, not just this process. Events for one
+ * invoice arrive in commit order on a single thread; after a restart the bus resumes from its last
+ * checkpoint, so a listener may see the same event twice and should be idempotent.
+ */
+public sealed interface InvoiceLifecycleEvent
+        permits InvoiceCreatedEvent, LineChangedEvent, PaymentRecordedEvent, StatusChangedEvent,
+        InvoiceDeletedEvent, InvoiceRestoredEvent {
+
+    /**
+     * The invoice the event belongs to, or null when that can't be told: a line removed without a
+     * pre-image, or a payment against an unknown invoice number.
+     */
+    String invoiceId();
+}
@@ -0,0 +1,7 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * A soft-deleted invoice was brought back.
+ */
+public record InvoiceRestoredEvent(String invoiceId) implements InvoiceLifecycleEvent {
+}
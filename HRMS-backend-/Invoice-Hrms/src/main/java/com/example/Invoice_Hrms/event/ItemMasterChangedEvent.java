@@ -0,0 +1,8 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * Published after an item master is created, updated or deleted; itemId is null when the change came from
+ * another replica and which item master changed is unknown.
+ */
+public record ItemMasterChangedEvent(String itemId) {
+}
@@ -0,0 +1,12 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * A line was added, changed or removed. itemId is null when lines embedded in the invoice changed,
+ * since the change doesn't say which.
+ */
+public record LineChangedEvent(String invoiceId, String itemId, Change change) implements InvoiceLifecycleEvent {
+
+    public enum Change {
+        ADDED, UPDATED, REMOVED
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.Invoice_Hrms.event;
+
+import java.math.BigDecimal;
+
+/**
+ * A payment was inserted. invoiceId is looked up from invoiceNo and is null if no invoice has that number;
+ * amount is null when the stored amount is missing or not a number.
+ */
+public record PaymentRecordedEvent(String invoiceId, String invoiceNo, String paymentId, BigDecimal amount)
+        implements InvoiceLifecycleEvent {
+}
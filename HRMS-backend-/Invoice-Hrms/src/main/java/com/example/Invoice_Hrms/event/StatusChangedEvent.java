@@ -0,0 +1,8 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * invoiceStatus was written. When the whole document was replaced and no pre-image is available the
+ * old status is unknown, so the event may repeat the current status.
+ */
+public record StatusChangedEvent(String invoiceId, String invoiceStatus) implements InvoiceLifecycleEvent {
+}
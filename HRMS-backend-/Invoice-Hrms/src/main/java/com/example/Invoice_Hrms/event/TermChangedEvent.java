@@ -0,0 +1,8 @@
+package com.example.Invoice_Hrms.event;
+
+/**
+ * Published after payment terms are created or changed; termId is null when the change came from
+ * another replica and which term changed is unknown.
+ */
+public record TermChangedEvent(String termId) {
+}
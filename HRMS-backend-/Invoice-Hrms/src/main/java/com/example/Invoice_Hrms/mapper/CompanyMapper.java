@@ -15,6 +15,8 @@ public class CompanyMapper {
         company.setCompanyEmail(dto.getCompanyEmail());
         company.setCompanyMobileNo(dto.getCompanyMobileNo());
         company.setLogoUrl(dto.getLogoUrl());
+        company.setBrandColor(dto.getBrandColor());
+        company.setInvoiceTemplate(dto.getInvoiceTemplate());
         return company;
     }
 
@@ -29,6 +31,8 @@ public class CompanyMapper {
         dto.setCompanyEmail(company.getCompanyEmail());
         dto.setCompanyMobileNo(company.getCompanyMobileNo());
         dto.setLogoUrl(company.getLogoUrl());
+        dto.setBrandColor(company.getBrandColor());
+        dto.setInvoiceTemplate(company.getInvoiceTemplate());
         return dto;
     }
 }
\ No newline at end of file
@@ -27,11 +27,16 @@ public class InvoiceMapper {
         dto.setInvoiceCurrency(invoice.getInvoiceCurrency());
         dto.setInvoiceStatus(invoice.getInvoiceStatus());
 
+        dto.setTotalAmount(invoice.getTotalAmount());
+        dto.setPaidAmount(invoice.getPaidAmount());
+        dto.setPendingAmount(invoice.getPendingAmount());
+
         dto.setCompanyName(invoice.getCompanyName());
         dto.setCompanyAddress(invoice.getCompanyAddress());
         dto.setCompanyMobileNo(invoice.getCompanyMobileNo());
         dto.setCompanyEmail(invoice.getCompanyEmail());
         dto.setThanksNote(invoice.getThanksNote());
+        dto.setDeleted(invoice.isDeleted());
 
         return dto;
 }
@@ -0,0 +1,19 @@
+package com.example.Invoice_Hrms.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Document(collection = "change_stream_checkpoints")
+public class ChangeStreamCheckpoint {
+
+    @Id
+    private String id;
+    // Resume token of the last change whose events (and all before it) were delivered
+    private org.bson.Document resumeToken;
+    private long delivered;
+    private Instant updatedAt;
+}
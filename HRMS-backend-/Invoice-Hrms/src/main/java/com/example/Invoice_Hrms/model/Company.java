@@ -21,5 +21,8 @@ public class Company {
     private String companyEmail;
     private String companyMobileNo;
     private String logoUrl;
+    // Invoice branding: accent color (#rgb or #rrggbb) and the page template under templates/, both optional
+    private String brandColor;
+    private String invoiceTemplate;
 }
 
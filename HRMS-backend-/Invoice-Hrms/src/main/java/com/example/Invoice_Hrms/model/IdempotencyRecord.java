@@ -0,0 +1,37 @@
+package com.example.Invoice_Hrms.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a request sent with an Idempotency-Key, replayed when the same key is sent again.
+ * Mongo's TTL monitor removes the record once expiresAt has passed.
+ */
+@Data
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    // scope + ":" + client key, so the same key can be reused against different operations
+    @Id
+    private String id;
+    // SHA-256 of the request body; a reused key with a different body is rejected
+    private String requestHash;
+    private String status;
+    // While IN_PROGRESS, the time after which another request may take over a crashed attempt
+    private Instant lockedUntil;
+    // While IN_PROGRESS, the request holding the key; only it renews lockedUntil
+    private String leaseOwner;
+    private int responseStatus;
+    private String responseContentType;
+    private String responseBody;
+    private Instant createdAt;
+    @Indexed(name = "expiresAt_ttl", expireAfter = "0s")
+    private Instant expiresAt;
+}
@@ -2,16 +2,48 @@ package com.example.Invoice_Hrms.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 
 @Data
 @Document(collection = "invoices")
+// Listing indexes are partial on deleted = false, so soft-deleted invoices cost nothing in them; queries
+// must filter on deleted = false (not $ne: true) for the planner to pick them
+@CompoundIndexes({
+        @CompoundIndex(name = "live_invoiceDate_id", def = "{'invoiceDate': -1, '_id': -1}",
+                partialFilter = "{'deleted': false}"),
+        @CompoundIndex(name = "live_status_invoiceDate_id", def = "{'invoiceStatus': 1, 'invoiceDate': -1, '_id': -1}",
+                partialFilter = "{'deleted': false}"),
+        @CompoundIndex(name = "live_companyName_invoiceDate_id",
+                def = "{'invoiceCompanyName': 1, 'invoiceDate': -1, '_id': -1}", partialFilter = "{'deleted': false}"),
+        @CompoundIndex(name = "live_dueDate", def = "{'dueDate': 1}", partialFilter = "{'deleted': false}"),
+        // The overdue scanner's queue: open statuses, oldest due date first
+        @CompoundIndex(name = "live_status_dueDate_id", def = "{'invoiceStatus': 1, 'dueDate': 1, '_id': 1}",
+                partialFilter = "{'deleted': false}"),
+        // The trash: the archiver's queue, oldest deletion first
+        @CompoundIndex(name = "deleted_deletedAt_id", def = "{'deletedAt': 1, '_id': 1}",
+                partialFilter = "{'deleted': true}")
+})
 public class Invoice {
+
+    public static final String STATUS_NEW = "New";
+    public static final String STATUS_PAID = "Paid";
+    public static final String STATUS_PARTIALLY_PAID = "Partially Paid";
+    public static final String STATUS_OVERDUE = "Overdue";
+
     @Id
     private String id;
+    // Sparse so legacy documents without a number don't collide; prefix lookups range-scan this index
+    @Indexed(name = "invoiceNo", unique = true, sparse = true)
     private String invoiceNo;
     private LocalDate invoiceDate;
     private String invoiceTerms;
@@ -30,6 +62,24 @@ public class Invoice {
     private String companyMobileNo;
     private String companyEmail;
     private String thanksNote;
+    // Running totals kept in step with items and payments via $inc; null until first computed
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalAmount;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal paidAmount;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal pendingAmount;
+    // Bumped by every write to the totals; replaceTotals compares it so an overwrite can't swallow an $inc
+    private Long totalsVersion;
     private List<Item> items;
-    private String is_delete;
+    // True once items above are the source of truth; otherwise lines live in the items collection
+    private Boolean itemsEmbedded;
+    // Soft delete; written on every save so the deleted = false filter also matches new invoices
+    private boolean deleted;
+    // When the invoice was soft-deleted; InvoiceArchiver moves it out once this passes the retention window
+    private Instant deletedAt;
+    // When the overdue scanner marked the invoice Overdue
+    private Instant overdueAt;
+    // Token of the scan that marked it; identifies the run that owns its reminder
+    private String overdueRun;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.Invoice_Hrms.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@Document(collection = "invoice_sequences")
+public class InvoiceSequence {
+
+    // yyyyMM prefix the counter belongs to
+    @Id
+    private String id;
+    // Highest sequence number handed out to any node for this prefix
+    private long seq;
+}
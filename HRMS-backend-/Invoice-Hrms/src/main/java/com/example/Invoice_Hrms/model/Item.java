@@ -5,7 +5,10 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 @Data
 @AllArgsConstructor
@@ -18,9 +21,24 @@ public class Item {
     private  String id;
     private String itemName;
     private  String description;
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal qty;
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal rate;
+    // Percentages set by the client; the amounts below are computed by LinePricing, never taken from the client
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal discountPercent;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal taxPercent;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal discountAmount;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal taxAmount;
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal amount;
+    // Catalogue entry the line was priced from, used to re-price open invoices when its rate changes
+    @Indexed(sparse = true)
+    private String itemMasterId;
 
     private  String invoiceId;
 }
@@ -5,6 +5,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
 
 @Data
 @NoArgsConstructor
@@ -20,5 +24,8 @@ public class ItemMaster {
 
     private String itemName;
     private String description;
+    // Current unit price; changing it does not touch existing invoices until they are re-priced
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal rate;
 
 }
@@ -0,0 +1,44 @@
+package com.example.Invoice_Hrms.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Document(collection = "mail_outbox")
+@CompoundIndex(name = "status_nextAttemptAt", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class MailOutboxMessage {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_FAILED = "FAILED";
+
+    public static final String TYPE_INVOICE = "INVOICE";
+    public static final String TYPE_OVERDUE_DIGEST = "OVERDUE_DIGEST";
+
+    @Id
+    private String id;
+    // Null on messages queued before digests existed, which are all invoice emails
+    private String type;
+    private String invoiceId;
+    private String invoiceNo;
+    // The invoices listed in an overdue digest; invoiceId and invoiceNo are unset on digests
+    private List<String> invoiceIds;
+    private String recipientEmail;
+    private String status;
+    private int attempts;
+    // Earliest time the dispatcher may pick the message up; also the lease expiry while SENDING
+    private Instant nextAttemptAt;
+    private String lastError;
+    private Instant createdAt;
+    private Instant sentAt;
+
+    public boolean isOverdueDigest() {
+        return TYPE_OVERDUE_DIGEST.equals(type);
+    }
+}
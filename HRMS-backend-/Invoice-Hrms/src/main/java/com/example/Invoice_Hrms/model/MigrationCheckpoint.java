@@ -0,0 +1,20 @@
+package com.example.Invoice_Hrms.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Document(collection = "migration_checkpoints")
+public class MigrationCheckpoint {
+
+    @Id
+    private String id;
+    // Last document _id fully processed; the next run resumes after it
+    private String lastId;
+    private long processed;
+    private boolean completed;
+    private Instant updatedAt;
+}
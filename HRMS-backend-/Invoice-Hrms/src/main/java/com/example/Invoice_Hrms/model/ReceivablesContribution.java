@@ -0,0 +1,32 @@
+package com.example.Invoice_Hrms.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+
+/**
+ * What one invoice currently adds to the receivables rollups, keyed by invoice id. Incremental
+ * refreshes subtract the stored contribution and add the new one.
+ */
+@Data
+@Document(collection = "receivables_contributions")
+public class ReceivablesContribution {
+
+    @Id
+    private String id;
+    private String invoiceStatus;
+    private String invoiceCompanyName;
+    private String invoiceCurrency;
+    // Null when nothing is outstanding
+    private String agingBucket;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalAmount;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal paidAmount;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal pendingAmount;
+}
@@ -0,0 +1,39 @@
+package com.example.Invoice_Hrms.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Document(collection = "receivables_rollups")
+public class ReceivablesRollup {
+
+    public static final String DIMENSION_STATUS = "status";
+    public static final String DIMENSION_COMPANY = "company";
+    public static final String DIMENSION_CURRENCY = "currency";
+    public static final String DIMENSION_AGING = "aging";
+
+    // dimension|key|currency; amounts in different currencies are never summed together
+    @Id
+    private String id;
+    private String dimension;
+    private String key;
+    private String currency;
+    private long invoiceCount;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalAmount;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal paidAmount;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal pendingAmount;
+    private Instant updatedAt;
+
+    public static String idOf(String dimension, String key, String currency) {
+        return dimension + "|" + key + "|" + currency;
+    }
+}
@@ -2,12 +2,18 @@ package com.example.Invoice_Hrms.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Data
 @Document(collection = "payments")
+@CompoundIndex(name = "paymentDate_id", def = "{'paymentDate': 1, '_id': 1}")
 public class payment {
 
 
@@ -15,8 +21,11 @@ public class payment {
 
     @Id
     private String id;
+    @Indexed
     private  String invoiceNo;
-    private  double paymentAmount;
+    // Decimal128 so sums are exact; older documents hold a double until PaymentAmountMigrator converts them
+    @Field(targetType = FieldType.DECIMAL128)
+    private  BigDecimal paymentAmount;
     private LocalDate paymentDate;
     private  String paymentMethod;
     private  String referanceNo;
@@ -0,0 +1,7 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String>, IdempotencyRecordRepositoryCustom {
+}
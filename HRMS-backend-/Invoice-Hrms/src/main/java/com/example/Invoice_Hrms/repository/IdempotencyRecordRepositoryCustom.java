@@ -0,0 +1,26 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.IdempotencyRecord;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordRepositoryCustom {
+
+    /**
+     * Takes over an IN_PROGRESS record whose lock has run out (its request died mid-way) by moving the
+     * lock to lockedUntil under the new leaseOwner. Returns null when the record is completed or still
+     * locked by a live request.
+     */
+    IdempotencyRecord claimExpired(String id, Instant now, Instant lockedUntil, String leaseOwner);
+
+    /**
+     * Moves the lock of a record that is still IN_PROGRESS under leaseOwner to lockedUntil. Returns false
+     * when the record was completed, released or taken over.
+     */
+    boolean renewLease(String id, String leaseOwner, Instant lockedUntil);
+
+    /**
+     * Stores the response and marks the record COMPLETED.
+     */
+    void complete(String id, int responseStatus, String responseContentType, String responseBody);
+}
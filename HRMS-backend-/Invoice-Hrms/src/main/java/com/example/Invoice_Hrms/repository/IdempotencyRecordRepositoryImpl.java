@@ -0,0 +1,50 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.IdempotencyRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+@RequiredArgsConstructor
+public class IdempotencyRecordRepositoryImpl implements IdempotencyRecordRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public IdempotencyRecord claimExpired(String id, Instant now, Instant lockedUntil, String leaseOwner) {
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("id").is(id),
+                Criteria.where("status").is(IdempotencyRecord.STATUS_IN_PROGRESS),
+                Criteria.where("lockedUntil").lte(now)));
+        return mongoTemplate.findAndModify(query,
+                new Update().set("lockedUntil", lockedUntil).set("leaseOwner", leaseOwner),
+                FindAndModifyOptions.options().returnNew(true), IdempotencyRecord.class);
+    }
+
+    @Override
+    public boolean renewLease(String id, String leaseOwner, Instant lockedUntil) {
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("id").is(id),
+                Criteria.where("status").is(IdempotencyRecord.STATUS_IN_PROGRESS),
+                Criteria.where("leaseOwner").is(leaseOwner)));
+        return mongoTemplate.updateFirst(query, new Update().set("lockedUntil", lockedUntil), IdempotencyRecord.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public void complete(String id, int responseStatus, String responseContentType, String responseBody) {
+        Update update = new Update()
+                .set("status", IdempotencyRecord.STATUS_COMPLETED)
+                .set("responseStatus", responseStatus)
+                .set("responseContentType", responseContentType)
+                .set("responseBody", responseBody)
+                .unset("lockedUntil")
+                .unset("leaseOwner");
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(id)), update, IdempotencyRecord.class);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.dto.InvoiceSearchCriteria;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.util.StringRange;
+import org.bson.Document;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface InvoiceRepositoryCustom {
+
+    /**
+     * New pricing for some embedded lines of one invoice, written only if the invoice's totalAmount still
+     * equals expectedTotal, i.e. it wasn't edited since it was read.
+     */
+    record EmbeddedRepricing(String invoiceId, BigDecimal expectedTotal, BigDecimal totalDelta, List<Item> lines) {
+    }
+
+    /**
+     * Lookups that skip soft-deleted invoices; by-id reads still see them so the trash can be viewed and
+     * restored. All go through {@link LiveInvoiceFilter}.
+     */
+    List<Invoice> findLive();
+
+    Invoice findLiveByInvoiceNo(String invoiceNo);
+
+    List<Invoice> findLiveByInvoiceNoIn(Collection<String> invoiceNos);
+
+    /**
+     * Keyset page ordered by invoiceDate desc, _id desc. Pass a null afterId for the first page,
+     * otherwise the invoiceDate/id of the last row of the previous page.
+     */
+    List<Invoice> findPage(InvoiceSearchCriteria criteria, LocalDate afterInvoiceDate, String afterId, int limit);
+
+    /**
+     * $sets only the given header fields and, in the same write, shifts the stored totals by totalDelta.
+     * Callers pass a zero delta for invoices whose totals were never materialized. Applies only while
+     * totalsVersion is still expectedVersion, since the delta was computed against that read; returns
+     * false when the totals or lines changed in between.
+     */
+    boolean updateHeader(String invoiceId, Long expectedVersion, Map<String, Object> changes, BigDecimal totalDelta);
+
+    /**
+     * Atomically shifts the stored totals. Invoices whose totals were never materialized are left alone.
+     */
+    void incrementTotals(String invoiceId, BigDecimal totalDelta, BigDecimal paidDelta);
+
+    void incrementTotalsByInvoiceNo(String invoiceNo, BigDecimal totalDelta, BigDecimal paidDelta);
+
+    /**
+     * Overwrites the stored totals only if their totalsVersion is still the one the caller read, so a
+     * concurrent increment is never lost. Returns false when the totals changed in between.
+     */
+    boolean replaceTotals(String invoiceId, Long expectedVersion, BigDecimal totalAmount, BigDecimal paidAmount);
+
+    /**
+     * Removes an embedded line from whichever invoice holds it and returns the removed line,
+     * or null when no invoice embeds that item id.
+     */
+    Item pullEmbeddedItem(String itemId);
+
+    /**
+     * Invoices still using the items collection, in _id order after the given id (null for the start).
+     */
+    List<Invoice> findNotEmbeddedAfter(String afterId, int limit);
+
+    /**
+     * Copies the given lines into their invoices and flags them embedded, in one bulk write.
+     * Invoices that were embedded concurrently are left untouched.
+     */
+    void embedItems(Map<String, List<Item>> itemsByInvoiceId);
+
+    /**
+     * Sets invoiceStatus alone, so concurrent writes to lines or totals aren't overwritten.
+     * Returns the updated invoice, or null if there is none with that id.
+     */
+    Invoice setStatus(String id, String invoiceStatus);
+
+    /**
+     * Soft-deletes (stamping deletedAt) or restores an invoice, touching nothing else.
+     * Returns the updated invoice, or null if there is none with that id.
+     */
+    Invoice setDeleted(String id, boolean deleted, Instant deletedAt);
+
+    /**
+     * Open (New, Partially Paid or no status), not deleted invoices due before today, in (dueDate, id)
+     * order after the given position; pass a null afterId for the first page. Read from the
+     * status_dueDate_id index, so the cost follows the number of open past-due invoices. Only the
+     * fields a reminder needs are loaded.
+     */
+    List<Invoice> findNewlyOverdue(LocalDate today, LocalDate afterDueDate, String afterId, int limit);
+
+    /**
+     * Sets the invoices that are still open and past due to Overdue, stamping overdueAt with markedAt and
+     * overdueRun with the caller's unique runId, in one update. Returns the ids this call marked; the
+     * others were paid or marked concurrently.
+     */
+    List<String> markOverdue(Collection<String> invoiceIds, LocalDate today, Instant markedAt, String runId);
+
+    /**
+     * Unpaid, not deleted invoices embedding at least one line of the catalogue item, read through a
+     * cursor with only id, currency, totals and lines. The caller must close the stream.
+     */
+    Stream<Invoice> streamRepriceableEmbedded(String itemMasterId, int batchSize);
+
+    /**
+     * Headers (id, currency, totals; no lines) of the given invoices that are unpaid, not deleted and
+     * still keep their lines in the items collection.
+     */
+    List<Invoice> findRepriceableHeaders(Collection<String> invoiceIds);
+
+    /**
+     * Writes the rate and computed amounts of re-priced embedded lines and shifts the totals, one update
+     * per invoice in a single bulk write. Returns how many invoices were updated; the others changed
+     * since they were read and are left alone.
+     */
+    int applyEmbeddedRepricing(List<EmbeddedRepricing> repricings);
+
+    /**
+     * Shifts totalAmount and pendingAmount of many invoices in one bulk write. Invoices whose totals were
+     * never materialized are left alone.
+     */
+    void incrementTotals(Map<String, BigDecimal> totalDeltaByInvoiceId);
+
+    /**
+     * Opens a cursor over non-deleted invoices ordered by invoiceDate, _id, fetching batchSize documents
+     * per round-trip. Line items are not loaded. The caller must close the stream.
+     */
+    Stream<Invoice> streamForExport(LocalDate invoiceDateFrom, LocalDate invoiceDateTo, String invoiceStatus,
+                                    int batchSize);
+
+    /**
+     * Adds each paid delta to the invoice with that number and, in the same pipeline update, sets
+     * invoiceStatus to Paid or Partially Paid from the new balance (an Overdue invoice stays Overdue
+     * until it is paid in full). Runs as one unordered bulk write;
+     * invoices whose totals were never materialized are left alone.
+     */
+    void applyPayments(Map<String, BigDecimal> paidDeltaByInvoiceNo);
+
+    /**
+     * Number of invoices whose invoiceNo starts with prefix (case-sensitive), counted on the invoiceNo index.
+     */
+    long countByInvoiceNoPrefix(String prefix);
+
+    /**
+     * Invoice numbers inside the range in ascending order, read from the invoiceNo index without touching
+     * the documents. A limit of 0 or less returns all of them.
+     */
+    List<String> findInvoiceNos(StringRange range, int limit);
+
+    /**
+     * Invoices (without line items) whose invoiceNo falls inside the range, ordered by invoiceNo.
+     * A limit of 0 or less returns all of them.
+     */
+    List<Invoice> findByInvoiceNoRange(StringRange range, int limit);
+
+    /**
+     * Opens a cursor over non-deleted invoices holding only the fields the search index needs
+     * (invoiceNo, invoiceCompanyName, invoiceConsultantName, invoiceEmail). The caller must close the stream.
+     */
+    Stream<Invoice> streamSearchFields(int batchSize);
+
+    /**
+     * The same projection plus the deleted flag for the given ids, so callers can drop deleted invoices.
+     */
+    List<Invoice> findSearchFieldsByIds(Collection<String> ids);
+
+    /**
+     * Converts the legacy is_delete string ("1" meant deleted) into the deleted flag, stamping
+     * deletedAt on deleted invoices so their retention starts now, and drops is_delete. Invoices
+     * already carrying the flag are left alone, so rerunning it is harmless. Returns the number converted.
+     */
+    long migrateLegacyDeleteFlags(Instant deletedAt);
+
+    /**
+     * Raw documents of invoices soft-deleted before the cutoff, oldest deletion first.
+     */
+    List<Document> findArchivable(Instant deletedBefore, int limit);
+
+    /**
+     * Copies the invoices, their items-collection lines and their payments into the archive
+     * collections, then removes the copied documents from the live ones. Invoices restored in the meantime,
+     * or given a line or payment after the copy, stay live with all their lines and payments and are
+     * archived by a later run. Returns the number of invoices archived.
+     */
+    int archive(List<Document> invoices, Instant deletedBefore);
+}
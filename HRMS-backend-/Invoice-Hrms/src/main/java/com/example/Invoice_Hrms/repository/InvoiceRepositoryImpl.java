@@ -0,0 +1,611 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.dto.InvoiceSearchCriteria;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.model.payment;
+import com.example.Invoice_Hrms.util.StringRange;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class InvoiceRepositoryImpl implements InvoiceRepositoryCustom {
+
+    // Where InvoiceArchiver moves invoices past the soft-delete retention window, with their lines and payments
+    static final String INVOICES_ARCHIVE = "invoices_archive";
+    static final String ITEMS_ARCHIVE = "items_archive";
+    static final String PAYMENTS_ARCHIVE = "payments_archive";
+
+    private final MongoTemplate mongoTemplate;
+    private final LiveInvoiceFilter liveFilter;
+
+    @Override
+    public List<Invoice> findLive() {
+        return mongoTemplate.find(new Query(liveFilter.criteria()), Invoice.class);
+    }
+
+    @Override
+    public Invoice findLiveByInvoiceNo(String invoiceNo) {
+        return mongoTemplate.findOne(new Query(new Criteria().andOperator(
+                Criteria.where("invoiceNo").is(invoiceNo), liveFilter.criteria())), Invoice.class);
+    }
+
+    @Override
+    public List<Invoice> findLiveByInvoiceNoIn(Collection<String> invoiceNos) {
+        return mongoTemplate.find(new Query(new Criteria().andOperator(
+                Criteria.where("invoiceNo").in(invoiceNos), liveFilter.criteria())), Invoice.class);
+    }
+
+    @Override
+    public List<Invoice> findPage(InvoiceSearchCriteria criteria, LocalDate afterInvoiceDate, String afterId, int limit) {
+        List<Criteria> filters = new ArrayList<>();
+
+        if (criteria.getInvoiceStatus() != null && !criteria.getInvoiceStatus().isBlank()) {
+            filters.add(Criteria.where("invoiceStatus").is(criteria.getInvoiceStatus()));
+        }
+        if (criteria.getInvoiceCompanyName() != null && !criteria.getInvoiceCompanyName().isBlank()) {
+            filters.add(Criteria.where("invoiceCompanyName").is(criteria.getInvoiceCompanyName()));
+        }
+        if (criteria.getDueDateFrom() != null || criteria.getDueDateTo() != null) {
+            Criteria dueDate = Criteria.where("dueDate");
+            if (criteria.getDueDateFrom() != null) {
+                dueDate.gte(criteria.getDueDateFrom());
+            }
+            if (criteria.getDueDateTo() != null) {
+                dueDate.lte(criteria.getDueDateTo());
+            }
+            filters.add(dueDate);
+        }
+        filters.add(Boolean.TRUE.equals(criteria.getDeleted())
+                ? Criteria.where("deleted").is(true)
+                : liveFilter.criteria());
+
+        if (afterId != null) {
+            // Mongo sorts null dates below every real date, so in descending order they form the tail of the listing
+            if (afterInvoiceDate == null) {
+                filters.add(new Criteria().andOperator(
+                        Criteria.where("invoiceDate").is(null),
+                        Criteria.where("id").lt(afterId)));
+            } else {
+                filters.add(new Criteria().orOperator(
+                        Criteria.where("invoiceDate").lt(afterInvoiceDate),
+                        Criteria.where("invoiceDate").is(null),
+                        new Criteria().andOperator(
+                                Criteria.where("invoiceDate").is(afterInvoiceDate),
+                                Criteria.where("id").lt(afterId))));
+            }
+        }
+
+        Query query = new Query();
+        if (!filters.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(filters));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "invoiceDate", "id"));
+        query.limit(limit);
+
+        return mongoTemplate.find(query, Invoice.class);
+    }
+
+    @Override
+    public boolean updateHeader(String invoiceId, Long expectedVersion, Map<String, Object> changes,
+                                BigDecimal totalDelta) {
+        if (changes.isEmpty() && totalDelta.signum() == 0) {
+            return true;
+        }
+        Update update = new Update();
+        changes.forEach(update::set);
+        if (totalDelta.signum() != 0) {
+            update.inc("totalAmount", new Decimal128(totalDelta))
+                    .inc("pendingAmount", new Decimal128(totalDelta));
+        }
+        // Embedded lines are what the totals derive from, so rewriting them moves the version as well
+        if (totalDelta.signum() != 0 || changes.containsKey("items")) {
+            update.inc("totalsVersion", 1L);
+        }
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("id").is(invoiceId),
+                Criteria.where("totalsVersion").is(expectedVersion)));
+        return mongoTemplate.updateFirst(query, update, Invoice.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public void incrementTotals(String invoiceId, BigDecimal totalDelta, BigDecimal paidDelta) {
+        incrementTotals(Criteria.where("id").is(invoiceId), totalDelta, paidDelta);
+    }
+
+    @Override
+    public void incrementTotalsByInvoiceNo(String invoiceNo, BigDecimal totalDelta, BigDecimal paidDelta) {
+        incrementTotals(Criteria.where("invoiceNo").is(invoiceNo), totalDelta, paidDelta);
+    }
+
+    private void incrementTotals(Criteria target, BigDecimal totalDelta, BigDecimal paidDelta) {
+        if (totalDelta.signum() == 0 && paidDelta.signum() == 0) {
+            return;
+        }
+        Query query = new Query(new Criteria().andOperator(target, Criteria.where("totalAmount").exists(true)));
+        Update update = new Update()
+                .inc("totalAmount", new Decimal128(totalDelta))
+                .inc("paidAmount", new Decimal128(paidDelta))
+                .inc("pendingAmount", new Decimal128(totalDelta.subtract(paidDelta)))
+                .inc("totalsVersion", 1L);
+        mongoTemplate.updateFirst(query, update, Invoice.class);
+    }
+
+    @Override
+    public boolean replaceTotals(String invoiceId, Long expectedVersion, BigDecimal totalAmount,
+                                 BigDecimal paidAmount) {
+        // A null version also matches invoices written before the field existed
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("id").is(invoiceId),
+                Criteria.where("totalsVersion").is(expectedVersion)));
+        Update update = new Update()
+                .set("totalAmount", new Decimal128(totalAmount))
+                .set("paidAmount", new Decimal128(paidAmount))
+                .set("pendingAmount", new Decimal128(totalAmount.subtract(paidAmount)))
+                .inc("totalsVersion", 1L);
+        return mongoTemplate.updateFirst(query, update, Invoice.class).getMatchedCount() > 0;
+    }
+
+    private static Decimal128 toDecimal128(BigDecimal value) {
+        return value != null ? new Decimal128(value) : null;
+    }
+
+    @Override
+    public Item pullEmbeddedItem(String itemId) {
+        Object storedId = ObjectId.isValid(itemId) ? new ObjectId(itemId) : itemId;
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("itemsEmbedded").is(true),
+                Criteria.where("items._id").is(storedId)));
+        Update update = new Update().pull("items", new Document("_id", storedId));
+        Invoice before = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(false),
+                Invoice.class);
+        if (before == null || before.getItems() == null) {
+            return null;
+        }
+        return before.getItems().stream()
+                .filter(item -> itemId.equals(item.getId()))
+                .peek(item -> item.setInvoiceId(before.getId()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public List<Invoice> findNotEmbeddedAfter(String afterId, int limit) {
+        Criteria criteria = Criteria.where("itemsEmbedded").ne(true);
+        if (afterId != null) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("id").gt(afterId));
+        }
+        Query query = new Query(criteria).with(Sort.by("id")).limit(limit);
+        query.fields().include("id");
+        return mongoTemplate.find(query, Invoice.class);
+    }
+
+    @Override
+    public void embedItems(Map<String, List<Item>> itemsByInvoiceId) {
+        if (itemsByInvoiceId.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Invoice.class);
+        itemsByInvoiceId.forEach((invoiceId, items) -> bulk.updateOne(
+                new Query(new Criteria().andOperator(
+                        Criteria.where("id").is(invoiceId),
+                        Criteria.where("itemsEmbedded").ne(true))),
+                new Update().set("items", items).set("itemsEmbedded", true)));
+        bulk.execute();
+    }
+
+    @Override
+    public Invoice setStatus(String id, String invoiceStatus) {
+        return mongoTemplate.findAndModify(new Query(Criteria.where("id").is(id)),
+                new Update().set("invoiceStatus", invoiceStatus), FindAndModifyOptions.options().returnNew(true),
+                Invoice.class);
+    }
+
+    @Override
+    public Invoice setDeleted(String id, boolean deleted, Instant deletedAt) {
+        Update update = new Update().set("deleted", deleted);
+        if (deleted) {
+            update.set("deletedAt", deletedAt);
+        } else {
+            update.unset("deletedAt");
+        }
+        return mongoTemplate.findAndModify(new Query(Criteria.where("id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), Invoice.class);
+    }
+
+    @Override
+    public List<Invoice> findNewlyOverdue(LocalDate today, LocalDate afterDueDate, String afterId, int limit) {
+        List<Criteria> filters = new ArrayList<>();
+        filters.add(overdueCandidates(today));
+        filters.add(liveFilter.criteria());
+        if (afterId != null) {
+            filters.add(new Criteria().orOperator(
+                    Criteria.where("dueDate").gt(afterDueDate),
+                    new Criteria().andOperator(
+                            Criteria.where("dueDate").is(afterDueDate),
+                            Criteria.where("id").gt(afterId))));
+        }
+        Query query = new Query(new Criteria().andOperator(filters))
+                .with(Sort.by("dueDate", "id"))
+                .limit(limit);
+        query.fields().include("id", "invoiceNo", "invoiceEmail", "invoiceCompanyName", "dueDate",
+                "invoiceCurrency", "totalAmount", "pendingAmount");
+        return mongoTemplate.find(query, Invoice.class);
+    }
+
+    @Override
+    public List<String> markOverdue(Collection<String> invoiceIds, LocalDate today, Instant markedAt,
+                                    String runId) {
+        if (invoiceIds.isEmpty()) {
+            return List.of();
+        }
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("id").in(invoiceIds),
+                overdueCandidates(today)));
+        long modified = mongoTemplate.updateMulti(query,
+                new Update().set("invoiceStatus", Invoice.STATUS_OVERDUE).set("overdueAt", markedAt)
+                        .set("overdueRun", runId),
+                Invoice.class).getModifiedCount();
+        if (modified == invoiceIds.size()) {
+            return List.copyOf(invoiceIds);
+        }
+        // Some changed under us; the run token tells which ones this call marked
+        Query marked = new Query(new Criteria().andOperator(
+                Criteria.where("id").in(invoiceIds),
+                Criteria.where("overdueRun").is(runId)));
+        marked.fields().include("id");
+        return mongoTemplate.find(marked, Invoice.class).stream().map(Invoice::getId).toList();
+    }
+
+    private static Criteria overdueCandidates(LocalDate today) {
+        return new Criteria().andOperator(
+                Criteria.where("invoiceStatus").in(Invoice.STATUS_NEW, Invoice.STATUS_PARTIALLY_PAID, null),
+                Criteria.where("dueDate").lt(today));
+    }
+
+    @Override
+    public Stream<Invoice> streamRepriceableEmbedded(String itemMasterId, int batchSize) {
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("items.itemMasterId").is(itemMasterId),
+                Criteria.where("itemsEmbedded").is(true),
+                repriceable()));
+        query.fields().include("id", "invoiceCurrency", "totalAmount", "items");
+        query.cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, Invoice.class);
+    }
+
+    @Override
+    public List<Invoice> findRepriceableHeaders(Collection<String> invoiceIds) {
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("id").in(invoiceIds),
+                Criteria.where("itemsEmbedded").ne(true),
+                repriceable()));
+        query.fields().include("id", "invoiceCurrency", "totalAmount");
+        return mongoTemplate.find(query, Invoice.class);
+    }
+
+    // Invoices that nothing has been paid against yet
+    private Criteria repriceable() {
+        return new Criteria().andOperator(
+                Criteria.where("invoiceStatus").in(Invoice.STATUS_NEW, null),
+                liveFilter.criteria());
+    }
+
+    @Override
+    public int applyEmbeddedRepricing(List<EmbeddedRepricing> repricings) {
+        if (repricings.isEmpty()) {
+            return 0;
+        }
+        // Addressed by collection name: the $[] paths can't go through field mapping, so values are stored types
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                mongoTemplate.getCollectionName(Invoice.class));
+        for (EmbeddedRepricing repricing : repricings) {
+            Update update = new Update();
+            for (int i = 0; i < repricing.lines().size(); i++) {
+                Item line = repricing.lines().get(i);
+                String element = "items.$[l" + i + "].";
+                update.set(element + "rate", toDecimal128(line.getRate()))
+                        .set(element + "discountAmount", toDecimal128(line.getDiscountAmount()))
+                        .set(element + "taxAmount", toDecimal128(line.getTaxAmount()))
+                        .set(element + "amount", toDecimal128(line.getAmount()))
+                        .filterArray(Criteria.where("l" + i + "._id").is(storedId(line.getId())));
+            }
+            if (repricing.expectedTotal() != null) {
+                Decimal128 delta = new Decimal128(repricing.totalDelta());
+                update.inc("totalAmount", delta).inc("pendingAmount", delta).inc("totalsVersion", 1L);
+            }
+            bulk.updateOne(new Query(new Criteria().andOperator(
+                            Criteria.where("_id").is(storedId(repricing.invoiceId())),
+                            Criteria.where("totalAmount").is(toDecimal128(repricing.expectedTotal())))),
+                    update);
+        }
+        return bulk.execute().getMatchedCount();
+    }
+
+    @Override
+    public void incrementTotals(Map<String, BigDecimal> totalDeltaByInvoiceId) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Invoice.class);
+        int queued = 0;
+        for (Map.Entry<String, BigDecimal> entry : totalDeltaByInvoiceId.entrySet()) {
+            if (entry.getValue().signum() == 0) {
+                continue;
+            }
+            Decimal128 delta = new Decimal128(entry.getValue());
+            bulk.updateOne(new Query(new Criteria().andOperator(
+                            Criteria.where("id").is(entry.getKey()),
+                            Criteria.where("totalAmount").exists(true))),
+                    new Update().inc("totalAmount", delta).inc("pendingAmount", delta).inc("totalsVersion", 1L));
+            queued++;
+        }
+        if (queued > 0) {
+            bulk.execute();
+        }
+    }
+
+    private static Object storedId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    @Override
+    public Stream<Invoice> streamForExport(LocalDate invoiceDateFrom, LocalDate invoiceDateTo, String invoiceStatus,
+                                           int batchSize) {
+        List<Criteria> filters = new ArrayList<>();
+        filters.add(liveFilter.criteria());
+        if (invoiceStatus != null && !invoiceStatus.isBlank()) {
+            filters.add(Criteria.where("invoiceStatus").is(invoiceStatus));
+        }
+        if (invoiceDateFrom != null || invoiceDateTo != null) {
+            Criteria invoiceDate = Criteria.where("invoiceDate");
+            if (invoiceDateFrom != null) {
+                invoiceDate.gte(invoiceDateFrom);
+            }
+            if (invoiceDateTo != null) {
+                invoiceDate.lte(invoiceDateTo);
+            }
+            filters.add(invoiceDate);
+        }
+
+        Query query = new Query(new Criteria().andOperator(filters))
+                .with(Sort.by("invoiceDate", "id"))
+                .cursorBatchSize(batchSize);
+        query.fields().exclude("items");
+        return mongoTemplate.stream(query, Invoice.class);
+    }
+
+    @Override
+    public void applyPayments(Map<String, BigDecimal> paidDeltaByInvoiceNo) {
+        if (paidDeltaByInvoiceNo.isEmpty()) {
+            return;
+        }
+        Document settle = new Document("$set", new Document("invoiceStatus", new Document("$switch", new Document()
+                .append("branches", List.of(
+                        new Document("case", new Document("$lte", List.of("$pendingAmount", 0)))
+                                .append("then", Invoice.STATUS_PAID),
+                        // A part payment doesn't make an overdue invoice current again
+                        new Document("case", new Document("$eq", List.of("$invoiceStatus", Invoice.STATUS_OVERDUE)))
+                                .append("then", Invoice.STATUS_OVERDUE),
+                        new Document("case", new Document("$gt", List.of("$paidAmount", 0)))
+                                .append("then", Invoice.STATUS_PARTIALLY_PAID)))
+                .append("default", "$invoiceStatus"))));
+
+        // Addressed by collection name so the raw pipeline stages are not run through field mapping
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                mongoTemplate.getCollectionName(Invoice.class));
+        paidDeltaByInvoiceNo.forEach((invoiceNo, paidDelta) -> {
+            Decimal128 delta = new Decimal128(paidDelta);
+            Document shift = new Document("$set", new Document()
+                    .append("paidAmount", new Document("$add", List.of("$paidAmount", delta)))
+                    .append("pendingAmount", new Document("$subtract", List.of("$pendingAmount", delta)))
+                    .append("totalsVersion", new Document("$add",
+                            List.of(new Document("$ifNull", List.of("$totalsVersion", 0L)), 1L))));
+            bulk.updateOne(
+                    new Query(new Criteria().andOperator(
+                            Criteria.where("invoiceNo").is(invoiceNo),
+                            Criteria.where("totalAmount").exists(true))),
+                    AggregationUpdate.from(List.of(Aggregation.stage(shift), Aggregation.stage(settle))));
+        });
+        bulk.execute();
+    }
+
+    @Override
+    public long countByInvoiceNoPrefix(String prefix) {
+        return mongoTemplate.count(new Query(StringRange.prefix(prefix).toCriteria("invoiceNo")), Invoice.class);
+    }
+
+    @Override
+    public List<String> findInvoiceNos(StringRange range, int limit) {
+        Query query = invoiceNoRangeQuery(range, limit);
+        // Only the indexed field and no _id, so the query is covered by the invoiceNo index
+        query.fields().include("invoiceNo").exclude("_id");
+        List<String> invoiceNos = new ArrayList<>();
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Invoice.class))) {
+            invoiceNos.add(document.getString("invoiceNo"));
+        }
+        return invoiceNos;
+    }
+
+    @Override
+    public List<Invoice> findByInvoiceNoRange(StringRange range, int limit) {
+        Query query = invoiceNoRangeQuery(range, limit);
+        query.fields().exclude("items");
+        return mongoTemplate.find(query, Invoice.class);
+    }
+
+    private static Query invoiceNoRangeQuery(StringRange range, int limit) {
+        Query query = new Query(range.toCriteria("invoiceNo")).with(Sort.by("invoiceNo"));
+        if (limit > 0) {
+            query.limit(limit);
+        }
+        return query;
+    }
+
+    @Override
+    public Stream<Invoice> streamSearchFields(int batchSize) {
+        Query query = new Query(liveFilter.criteria()).cursorBatchSize(batchSize);
+        includeSearchFields(query);
+        return mongoTemplate.stream(query, Invoice.class);
+    }
+
+    @Override
+    public List<Invoice> findSearchFieldsByIds(Collection<String> ids) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        includeSearchFields(query);
+        query.fields().include("deleted");
+        return mongoTemplate.find(query, Invoice.class);
+    }
+
+    private static void includeSearchFields(Query query) {
+        query.fields().include("invoiceNo", "invoiceCompanyName", "invoiceConsultantName", "invoiceEmail");
+    }
+
+    @Override
+    public long migrateLegacyDeleteFlags(Instant deletedAt) {
+        String invoices = mongoTemplate.getCollectionName(Invoice.class);
+        long converted = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("deleted").exists(false).and("is_delete").is("1")),
+                new Update().set("deleted", true).set("deletedAt", deletedAt).unset("is_delete"),
+                invoices).getModifiedCount();
+        converted += mongoTemplate.updateMulti(
+                Query.query(Criteria.where("deleted").exists(false)),
+                new Update().set("deleted", false).unset("is_delete"),
+                invoices).getModifiedCount();
+        // Written by nodes still on the old field after the flag was set
+        mongoTemplate.updateMulti(Query.query(Criteria.where("is_delete").exists(true)),
+                new Update().unset("is_delete"), invoices);
+        return converted;
+    }
+
+    @Override
+    public List<Document> findArchivable(Instant deletedBefore, int limit) {
+        Query query = new Query(archivable(deletedBefore))
+                .with(Sort.by("deletedAt", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Invoice.class));
+    }
+
+    @Override
+    public int archive(List<Document> invoices, Instant deletedBefore) {
+        if (invoices.isEmpty()) {
+            return 0;
+        }
+        List<Object> ids = invoices.stream().map(invoice -> invoice.get("_id")).toList();
+        List<Document> lines = mongoTemplate.find(lineQuery(ids), Document.class,
+                mongoTemplate.getCollectionName(Item.class));
+        List<Document> payments = mongoTemplate.find(paymentQuery(invoices), Document.class,
+                mongoTemplate.getCollectionName(payment.class));
+
+        // Copies are upserts, so a batch that failed halfway is simply archived again by the next run
+        copy(invoices, INVOICES_ARCHIVE);
+        copy(lines, ITEMS_ARCHIVE);
+        copy(payments, PAYMENTS_ARCHIVE);
+
+        // Children go first: if the run dies here, the invoice is still in the trash and gets picked up again.
+        // Only the rows copied above are removed, so one written since is never lost
+        removeCopied(lines, mongoTemplate.getCollectionName(Item.class));
+        removeCopied(payments, mongoTemplate.getCollectionName(payment.class));
+        long removed = mongoTemplate.remove(new Query(new Criteria().andOperator(
+                        Criteria.where("_id").in(withoutLiveChildren(invoices)), archivable(deletedBefore))),
+                mongoTemplate.getCollectionName(Invoice.class)).getDeletedCount();
+        if (removed < ids.size()) {
+            putBackRestored(ids);
+        }
+        return (int) removed;
+    }
+
+    // Ids of the invoices no line or payment was written for after the copy; the others stay in the trash
+    private List<Object> withoutLiveChildren(List<Document> invoices) {
+        Query lines = lineQuery(invoices.stream().map(invoice -> invoice.get("_id")).toList());
+        lines.fields().include("invoiceId");
+        Set<String> heldIds = mongoTemplate.find(lines, Document.class, mongoTemplate.getCollectionName(Item.class))
+                .stream().map(line -> line.getString("invoiceId")).collect(Collectors.toSet());
+        Query payments = paymentQuery(invoices);
+        payments.fields().include("invoiceNo");
+        Set<String> heldNos = mongoTemplate.find(payments, Document.class,
+                        mongoTemplate.getCollectionName(payment.class))
+                .stream().map(row -> row.getString("invoiceNo")).collect(Collectors.toSet());
+        return invoices.stream()
+                .filter(invoice -> !heldIds.contains(invoice.get("_id").toString())
+                        && !heldNos.contains(invoice.getString("invoiceNo")))
+                .map(invoice -> invoice.get("_id"))
+                .toList();
+    }
+
+    // Invoices restored, or held back by a late line or payment, while their batch was being archived get
+    // their lines and payments back
+    private void putBackRestored(List<Object> ids) {
+        Query live = Query.query(Criteria.where("_id").in(ids));
+        List<Document> restored = mongoTemplate.find(live, Document.class, mongoTemplate.getCollectionName(Invoice.class));
+        if (restored.isEmpty()) {
+            return;
+        }
+        List<Object> restoredIds = restored.stream().map(invoice -> invoice.get("_id")).toList();
+        Query lines = lineQuery(restoredIds);
+        Query payments = paymentQuery(restored);
+        copy(mongoTemplate.find(lines, Document.class, ITEMS_ARCHIVE), mongoTemplate.getCollectionName(Item.class));
+        copy(mongoTemplate.find(payments, Document.class, PAYMENTS_ARCHIVE),
+                mongoTemplate.getCollectionName(payment.class));
+        mongoTemplate.remove(lines, ITEMS_ARCHIVE);
+        mongoTemplate.remove(payments, PAYMENTS_ARCHIVE);
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(restoredIds)), INVOICES_ARCHIVE);
+    }
+
+    private static Criteria archivable(Instant deletedBefore) {
+        return Criteria.where("deleted").is(true).and("deletedAt").lt(deletedBefore);
+    }
+
+    // Lines in the items collection carry the invoice id as a string
+    private static Query lineQuery(List<Object> invoiceIds) {
+        return Query.query(Criteria.where("invoiceId").in(invoiceIds.stream().map(Object::toString).toList()));
+    }
+
+    private static Query paymentQuery(List<Document> invoices) {
+        return Query.query(Criteria.where("invoiceNo").in(invoices.stream()
+                .map(invoice -> invoice.getString("invoiceNo"))
+                .filter(Objects::nonNull)
+                .toList()));
+    }
+
+    private void removeCopied(List<Document> documents, String collection) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<Object> ids = documents.stream().map(document -> document.get("_id")).toList();
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), collection);
+    }
+
+    private void copy(List<Document> documents, String collection) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        for (Document document : documents) {
+            bulk.replaceOne(Query.query(Criteria.where("_id").is(document.get("_id"))), document,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        bulk.execute();
+    }
+}
@@ -3,12 +3,17 @@ package com.example.Invoice_Hrms.repository;
 import com.example.Invoice_Hrms.model.Item;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface ItemRepository  extends MongoRepository<Item, String> {
+public interface ItemRepository  extends MongoRepository<Item, String>, ItemRepositoryCustom {
 
 
          List<Item> findByInvoiceId(String invoiceId);
 
+         List<Item> findByInvoiceIdIn(Collection<String> invoiceIds);
+
+         void deleteByInvoiceId(String invoiceId);
+
 
 }
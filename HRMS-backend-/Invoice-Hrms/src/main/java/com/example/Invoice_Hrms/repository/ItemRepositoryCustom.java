@@ -0,0 +1,34 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface ItemRepositoryCustom {
+
+    /**
+     * A line's pricing before and after re-pricing; before supplies the values the write is conditioned on.
+     */
+    record Repricing(Item before, Item after) {
+    }
+
+    /**
+     * Applies inserts, per-line field updates (item id to changed field values) and deletes
+     * as one unordered bulk write. Inserted items must already carry their ids.
+     */
+    void bulkApply(List<Item> inserts, Map<String, Map<String, Object>> updates, Collection<String> deleteIds);
+
+    /**
+     * Lines of the catalogue item, read through a cursor. The caller must close the stream.
+     */
+    Stream<Item> streamByItemMasterId(String itemMasterId, int batchSize);
+
+    /**
+     * Writes the rate and computed amounts of re-priced lines in one bulk write, skipping any line whose
+     * qty, rate or amount changed since it was read. Returns how many lines were updated.
+     */
+    int applyRepricing(List<Repricing> repricings);
+}
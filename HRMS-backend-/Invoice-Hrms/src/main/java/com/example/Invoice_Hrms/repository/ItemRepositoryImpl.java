@@ -0,0 +1,70 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.util.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void bulkApply(List<Item> inserts, Map<String, Map<String, Object>> updates, Collection<String> deleteIds) {
+        if (inserts.isEmpty() && updates.isEmpty() && deleteIds.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Item.class);
+        if (!inserts.isEmpty()) {
+            bulk.insert(inserts);
+        }
+        updates.forEach((id, fields) -> {
+            Update update = new Update();
+            fields.forEach(update::set);
+            bulk.updateOne(new Query(Criteria.where("id").is(id)), update);
+        });
+        if (!deleteIds.isEmpty()) {
+            bulk.remove(new Query(Criteria.where("id").in(deleteIds)));
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public Stream<Item> streamByItemMasterId(String itemMasterId, int batchSize) {
+        Query query = new Query(Criteria.where("itemMasterId").is(itemMasterId));
+        query.cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, Item.class);
+    }
+
+    @Override
+    public int applyRepricing(List<Repricing> repricings) {
+        if (repricings.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Item.class);
+        for (Repricing repricing : repricings) {
+            Item before = repricing.before();
+            Item after = repricing.after();
+            bulk.updateOne(new Query(Criteria.where("id").is(before.getId())
+                            .and("qty").is(Money.toDecimal128(before.getQty()))
+                            .and("rate").is(Money.toDecimal128(before.getRate()))
+                            .and("amount").is(Money.toDecimal128(before.getAmount()))),
+                    new Update()
+                            .set("rate", Money.toDecimal128(after.getRate()))
+                            .set("discountAmount", Money.toDecimal128(after.getDiscountAmount()))
+                            .set("taxAmount", Money.toDecimal128(after.getTaxAmount()))
+                            .set("amount", Money.toDecimal128(after.getAmount())));
+        }
+        return bulk.execute().getMatchedCount();
+    }
+}
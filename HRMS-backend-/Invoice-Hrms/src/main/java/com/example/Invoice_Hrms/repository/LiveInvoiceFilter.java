@@ -0,0 +1,27 @@
+package com.example.Invoice_Hrms.repository;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Selects the invoices that are not soft-deleted. Until SoftDeleteMigrator has given every invoice the
+ * deleted flag, an invoice without one counts as live ({@code deleted: {$ne: true}}); once it has, the
+ * filter becomes {@code deleted: false}, which the live_* partial indexes on Invoice can answer.
+ */
+@Component
+public class LiveInvoiceFilter {
+
+    private volatile boolean flagsMigrated;
+
+    public Criteria criteria() {
+        return flagsMigrated ? Criteria.where("deleted").is(false) : Criteria.where("deleted").ne(true);
+    }
+
+    public boolean isFlagsMigrated() {
+        return flagsMigrated;
+    }
+
+    public void markFlagsMigrated() {
+        flagsMigrated = true;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.MailOutboxMessage;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface MailOutboxRepository extends MongoRepository<MailOutboxMessage, String>, MailOutboxRepositoryCustom {
+
+    long countByStatus(String status);
+}
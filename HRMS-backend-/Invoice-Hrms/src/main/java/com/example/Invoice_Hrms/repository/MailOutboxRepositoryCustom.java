@@ -0,0 +1,24 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.MailOutboxMessage;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public interface MailOutboxRepositoryCustom {
+
+    /**
+     * Atomically moves one due message to SENDING under a lease, so a crashed dispatcher's
+     * messages become due again once the lease runs out. Returns null when nothing is due.
+     */
+    MailOutboxMessage claimNext(Duration lease);
+
+    /**
+     * Records the outcome of a claimed message: status and lastError, plus sentAt or nextAttemptAt when
+     * given. Applies only while the message is still SENDING under the claim that set attempts, so a
+     * dispatcher whose lease ran out can't overwrite the state of the one that re-claimed it. Returns
+     * false when the claim was lost.
+     */
+    boolean completeClaim(String id, int attempts, String status, String lastError, Instant sentAt,
+                          Instant nextAttemptAt);
+}
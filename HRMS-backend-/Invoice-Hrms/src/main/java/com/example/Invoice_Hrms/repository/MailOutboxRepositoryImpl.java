@@ -0,0 +1,53 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.MailOutboxMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@RequiredArgsConstructor
+public class MailOutboxRepositoryImpl implements MailOutboxRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public MailOutboxMessage claimNext(Duration lease) {
+        Instant now = Instant.now();
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("status").in(MailOutboxMessage.STATUS_PENDING, MailOutboxMessage.STATUS_SENDING),
+                Criteria.where("nextAttemptAt").lte(now)))
+                .with(Sort.by("nextAttemptAt"));
+        Update update = new Update()
+                .set("status", MailOutboxMessage.STATUS_SENDING)
+                .set("nextAttemptAt", now.plus(lease))
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                MailOutboxMessage.class);
+    }
+
+    @Override
+    public boolean completeClaim(String id, int attempts, String status, String lastError, Instant sentAt,
+                                 Instant nextAttemptAt) {
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("id").is(id),
+                Criteria.where("status").is(MailOutboxMessage.STATUS_SENDING),
+                Criteria.where("attempts").is(attempts)));
+        Update update = new Update()
+                .set("status", status)
+                .set("lastError", lastError);
+        if (sentAt != null) {
+            update.set("sentAt", sentAt);
+        }
+        if (nextAttemptAt != null) {
+            update.set("nextAttemptAt", nextAttemptAt);
+        }
+        return mongoTemplate.updateFirst(query, update, MailOutboxMessage.class).getMatchedCount() > 0;
+    }
+}
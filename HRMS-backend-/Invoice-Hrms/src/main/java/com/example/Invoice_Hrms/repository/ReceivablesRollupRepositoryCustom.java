@@ -0,0 +1,20 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.ReceivablesRollup;
+
+import java.util.Collection;
+
+public interface ReceivablesRollupRepositoryCustom {
+
+    /**
+     * Rebuilds receivables_contributions from invoices, items and payments, then regroups them into
+     * receivables_rollups. Both collections are replaced atomically by $out.
+     */
+    void rebuild();
+
+    /**
+     * $incs each rollup by the count and amounts carried in the given rows, creating rollups as needed,
+     * and drops rollups that no longer cover any invoice.
+     */
+    void applyDeltas(Collection<ReceivablesRollup> deltas);
+}
@@ -0,0 +1,127 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.ReceivablesContribution;
+import com.example.Invoice_Hrms.model.ReceivablesRollup;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class ReceivablesRollupRepositoryImpl implements ReceivablesRollupRepositoryCustom {
+
+    private static final AggregationOptions DISK_USE = AggregationOptions.builder().allowDiskUse(true).build();
+
+    // Lines come from the embedded array or the items collection; stored totals win when present.
+    // Item amounts may be strings or decimals depending on when they were written, hence $convert.
+    // The aging buckets mirror ReceivablesService.agingBucket.
+    private static final String[] CONTRIBUTION_STAGES = {
+            "{ $match: { deleted: { $ne: true } } }",
+            "{ $addFields: { invoiceIdString: { $toString: '$_id' } } }",
+            "{ $lookup: { from: 'items', localField: 'invoiceIdString', foreignField: 'invoiceId', as: 'lineRows' } }",
+            "{ $lookup: { from: 'payments', localField: 'invoiceNo', foreignField: 'invoiceNo', as: 'paymentRows' } }",
+            """
+            { $project: {
+                invoiceStatus: { $ifNull: ['$invoiceStatus', ''] },
+                invoiceCompanyName: { $ifNull: ['$invoiceCompanyName', ''] },
+                invoiceCurrency: { $ifNull: ['$invoiceCurrency', ''] },
+                dueDate: 1,
+                totalAmount: { $ifNull: ['$totalAmount', { $sum: { $map: {
+                    input: { $cond: [{ $eq: ['$itemsEmbedded', true] }, { $ifNull: ['$items', []] }, '$lineRows'] },
+                    in: { $convert: { input: '$$this.amount', to: 'decimal', onError: 0, onNull: 0 } } } } }] },
+                paidAmount: { $ifNull: ['$paidAmount', { $sum: { $map: {
+                    input: '$paymentRows',
+                    in: { $convert: { input: '$$this.paymentAmount', to: 'decimal', onError: 0, onNull: 0 } } } } }] }
+            } }""",
+            "{ $addFields: { pendingAmount: { $subtract: ['$totalAmount', '$paidAmount'] } } }",
+            """
+            { $addFields: { agingBucket: { $cond: [{ $lte: ['$pendingAmount', 0] }, null, { $let: {
+                vars: { days: { $cond: [{ $eq: [{ $type: '$dueDate' }, 'date'] },
+                    { $dateDiff: { startDate: '$dueDate', endDate: '$$NOW', unit: 'day' } }, 0] } },
+                in: { $switch: { branches: [
+                    { case: { $lte: ['$$days', 0] }, then: 'CURRENT' },
+                    { case: { $lte: ['$$days', 30] }, then: '1-30' },
+                    { case: { $lte: ['$$days', 60] }, then: '31-60' },
+                    { case: { $lte: ['$$days', 90] }, then: '61-90' }
+                ], default: '90+' } } } }] } } }""",
+            "{ $project: { dueDate: 0 } }",
+            "{ $out: 'receivables_contributions' }"
+    };
+
+    private static final String[] ROLLUP_STAGES = {
+            """
+            { $facet: {
+                status: [%s, { $addFields: { dimension: 'status' } }],
+                company: [%s, { $addFields: { dimension: 'company' } }],
+                currency: [%s, { $addFields: { dimension: 'currency' } }],
+                aging: [{ $match: { agingBucket: { $ne: null } } }, %s, { $addFields: { dimension: 'aging' } }]
+            } }""".formatted(group("$invoiceStatus"), group("$invoiceCompanyName"), group("$invoiceCurrency"),
+                    group("$agingBucket")),
+            "{ $project: { rows: { $concatArrays: ['$status', '$company', '$currency', '$aging'] } } }",
+            "{ $unwind: '$rows' }",
+            "{ $replaceRoot: { newRoot: '$rows' } }",
+            """
+            { $project: {
+                _id: { $concat: ['$dimension', '|', '$_id.key', '|', '$_id.currency'] },
+                dimension: 1, key: '$_id.key', currency: '$_id.currency',
+                invoiceCount: 1, totalAmount: 1, paidAmount: 1, pendingAmount: 1, updatedAt: '$$NOW'
+            } }""",
+            "{ $out: 'receivables_rollups' }"
+    };
+
+    private final MongoTemplate mongoTemplate;
+
+    private static String group(String keyField) {
+        return ("{ $group: { _id: { key: '%s', currency: '$invoiceCurrency' }, invoiceCount: { $sum: 1 }, "
+                + "totalAmount: { $sum: '$totalAmount' }, paidAmount: { $sum: '$paidAmount' }, "
+                + "pendingAmount: { $sum: '$pendingAmount' } } }").formatted(keyField);
+    }
+
+    @Override
+    public void rebuild() {
+        run(CONTRIBUTION_STAGES, Invoice.class);
+        run(ROLLUP_STAGES, ReceivablesContribution.class);
+    }
+
+    private void run(String[] stages, Class<?> input) {
+        // Run against the collection name so the raw stages are passed through without field mapping
+        Aggregation aggregation = Aggregation.newAggregation(Arrays.stream(stages)
+                        .map(Aggregation::stage)
+                        .toList())
+                .withOptions(DISK_USE);
+        mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(input), Document.class);
+    }
+
+    @Override
+    public void applyDeltas(Collection<ReceivablesRollup> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReceivablesRollup.class);
+        for (ReceivablesRollup delta : deltas) {
+            bulk.upsert(new Query(Criteria.where("id").is(delta.getId())), new Update()
+                    .setOnInsert("dimension", delta.getDimension())
+                    .setOnInsert("key", delta.getKey())
+                    .setOnInsert("currency", delta.getCurrency())
+                    .inc("invoiceCount", delta.getInvoiceCount())
+                    .inc("totalAmount", new Decimal128(delta.getTotalAmount()))
+                    .inc("paidAmount", new Decimal128(delta.getPaidAmount()))
+                    .inc("pendingAmount", new Decimal128(delta.getPendingAmount()))
+                    .set("updatedAt", now));
+        }
+        bulk.execute();
+        mongoTemplate.remove(new Query(Criteria.where("invoiceCount").lte(0)), ReceivablesRollup.class);
+    }
+}
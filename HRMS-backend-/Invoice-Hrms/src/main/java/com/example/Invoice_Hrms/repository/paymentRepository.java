@@ -3,11 +3,14 @@ package com.example.Invoice_Hrms.repository;
 import com.example.Invoice_Hrms.model.payment;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface paymentRepository  extends MongoRepository<payment,String> {
+public interface paymentRepository  extends MongoRepository<payment,String>, paymentRepositoryCustom {
 
 
     List<payment> findByInvoiceNo(String invoiceNo);
 
+    List<payment> findByInvoiceNoIn(Collection<String> invoiceNos);
+
 }
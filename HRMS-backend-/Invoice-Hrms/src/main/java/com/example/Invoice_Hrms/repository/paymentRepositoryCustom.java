@@ -0,0 +1,44 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.payment;
+import org.bson.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface paymentRepositoryCustom {
+
+    /**
+     * Opens a cursor over payments ordered by paymentDate, _id, fetching batchSize documents per
+     * round-trip. The caller must close the stream.
+     */
+    Stream<payment> streamForExport(LocalDate paymentDateFrom, LocalDate paymentDateTo, String paymentMethod,
+                                    int batchSize);
+
+    /**
+     * Inserts all payments in one unordered bulk write. Returns the error message for each payment
+     * that was rejected, keyed by its position in the list; all others were stored.
+     */
+    Map<Integer, String> insertUnordered(List<payment> payments);
+
+    /**
+     * Paid total per invoice number, summed from the raw documents without mapping them to payments.
+     * Invoice numbers without payments are absent from the result.
+     */
+    Map<String, BigDecimal> sumAmountsByInvoiceNo(Collection<String> invoiceNos);
+
+    /**
+     * Payments whose amount is still stored as something other than Decimal128, in _id order after
+     * lastId (null for the first batch).
+     */
+    List<Document> findLegacyAmountsAfter(String lastId, int limit);
+
+    /**
+     * Rewrites each payment's amount as Decimal128, unless it was changed since it was read.
+     */
+    int convertAmounts(List<Document> payments);
+}
@@ -0,0 +1,132 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.payment;
+import com.example.Invoice_Hrms.util.Money;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class paymentRepositoryImpl implements paymentRepositoryCustom {
+
+    private static final Logger logger = LoggerFactory.getLogger(paymentRepositoryImpl.class);
+
+    // BSON type number of Decimal128
+    private static final int DECIMAL128_TYPE = 19;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Stream<payment> streamForExport(LocalDate paymentDateFrom, LocalDate paymentDateTo, String paymentMethod,
+                                           int batchSize) {
+        Query query = new Query();
+        if (paymentMethod != null && !paymentMethod.isBlank()) {
+            query.addCriteria(Criteria.where("paymentMethod").is(paymentMethod));
+        }
+        if (paymentDateFrom != null || paymentDateTo != null) {
+            Criteria paymentDate = Criteria.where("paymentDate");
+            if (paymentDateFrom != null) {
+                paymentDate.gte(paymentDateFrom);
+            }
+            if (paymentDateTo != null) {
+                paymentDate.lte(paymentDateTo);
+            }
+            query.addCriteria(paymentDate);
+        }
+        query.with(Sort.by("paymentDate", "id")).cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, payment.class);
+    }
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<payment> payments) {
+        if (payments.isEmpty()) {
+            return Map.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, payment.class);
+        bulk.insert(payments);
+        try {
+            bulk.execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, String> failures = new HashMap<>();
+            e.getErrors().forEach(error -> failures.put(error.getIndex(), error.getMessage()));
+            return failures;
+        }
+    }
+
+    @Override
+    public Map<String, BigDecimal> sumAmountsByInvoiceNo(Collection<String> invoiceNos) {
+        if (invoiceNos.isEmpty()) {
+            return Map.of();
+        }
+        Query query = Query.query(Criteria.where("invoiceNo").in(invoiceNos));
+        query.fields().include("invoiceNo", "paymentAmount");
+        Map<String, Money.Sum> sums = new HashMap<>();
+        mongoTemplate.executeQuery(query, mongoTemplate.getCollectionName(payment.class), document -> {
+            Money.Sum sum = sums.computeIfAbsent(document.getString("invoiceNo"), invoiceNo -> Money.sum());
+            Object stored = document.get("paymentAmount");
+            try {
+                sum.addStored(stored);
+            } catch (IllegalArgumentException e) {
+                // A legacy string PaymentAmountMigrator couldn't convert either; count it as nothing paid
+                logger.warn("Skipping payment {} in the totals, its amount {} is not a number", document.get("_id"), stored);
+            }
+        });
+        Map<String, BigDecimal> totals = new HashMap<>();
+        sums.forEach((invoiceNo, sum) -> totals.put(invoiceNo, sum.toBigDecimal()));
+        return totals;
+    }
+
+    @Override
+    public List<Document> findLegacyAmountsAfter(String lastId, int limit) {
+        Query query = Query.query(Criteria.where("paymentAmount").ne(null).not().type(DECIMAL128_TYPE));
+        if (lastId != null) {
+            query.addCriteria(Criteria.where("_id").gt(ObjectId.isValid(lastId) ? new ObjectId(lastId) : lastId));
+        }
+        query.fields().include("paymentAmount");
+        query.with(Sort.by("_id")).limit(limit);
+        List<Document> documents = new ArrayList<>();
+        mongoTemplate.executeQuery(query, mongoTemplate.getCollectionName(payment.class), documents::add);
+        return documents;
+    }
+
+    @Override
+    public int convertAmounts(List<Document> payments) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                mongoTemplate.getCollectionName(payment.class));
+        int queued = 0;
+        for (Document document : payments) {
+            Object stored = document.get("paymentAmount");
+            BigDecimal amount;
+            try {
+                amount = Money.fromStored(stored);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Leaving payment {} unconverted, its amount {} is not a number", document.get("_id"), stored);
+                continue;
+            }
+            // Matching on the old value skips payments edited since they were read
+            bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id")).and("paymentAmount").is(stored)),
+                    new Update().set("paymentAmount", Money.toDecimal128(amount)));
+            queued++;
+        }
+        return queued > 0 ? bulk.execute().getModifiedCount() : 0;
+    }
+}
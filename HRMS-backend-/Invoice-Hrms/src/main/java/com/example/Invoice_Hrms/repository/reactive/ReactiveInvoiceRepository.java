@@ -0,0 +1,8 @@
+package com.example.Invoice_Hrms.repository.reactive;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveInvoiceRepository extends ReactiveMongoRepository<Invoice, String>,
+        ReactiveInvoiceRepositoryCustom {
+}
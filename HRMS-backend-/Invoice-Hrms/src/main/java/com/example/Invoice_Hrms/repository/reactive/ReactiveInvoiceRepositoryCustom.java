@@ -0,0 +1,13 @@
+package com.example.Invoice_Hrms.repository.reactive;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveInvoiceRepositoryCustom {
+
+    /**
+     * Invoices that are not soft-deleted, optionally with the given status (null or blank for all).
+     */
+    Flux<Invoice> findLive(String invoiceStatus, Sort sort);
+}
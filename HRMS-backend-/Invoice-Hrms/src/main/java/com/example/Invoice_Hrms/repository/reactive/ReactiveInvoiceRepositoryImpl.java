@@ -0,0 +1,26 @@
+package com.example.Invoice_Hrms.repository.reactive;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.repository.LiveInvoiceFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+@RequiredArgsConstructor
+public class ReactiveInvoiceRepositoryImpl implements ReactiveInvoiceRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final LiveInvoiceFilter liveFilter;
+
+    @Override
+    public Flux<Invoice> findLive(String invoiceStatus, Sort sort) {
+        Criteria criteria = liveFilter.criteria();
+        if (invoiceStatus != null && !invoiceStatus.isBlank()) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("invoiceStatus").is(invoiceStatus));
+        }
+        return mongoTemplate.find(new Query(criteria).with(sort), Invoice.class);
+    }
+}
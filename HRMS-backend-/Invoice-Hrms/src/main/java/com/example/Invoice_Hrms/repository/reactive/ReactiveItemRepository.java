@@ -0,0 +1,14 @@
+package com.example.Invoice_Hrms.repository.reactive;
+
+import com.example.Invoice_Hrms.model.Item;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface ReactiveItemRepository extends ReactiveMongoRepository<Item, String> {
+
+    Flux<Item> findByInvoiceId(String invoiceId);
+
+    Flux<Item> findByInvoiceIdIn(Collection<String> invoiceIds);
+}
@@ -0,0 +1,10 @@
+package com.example.Invoice_Hrms.repository.reactive;
+
+import com.example.Invoice_Hrms.model.payment;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactivePaymentRepository extends ReactiveMongoRepository<payment, String> {
+
+    Flux<payment> findByInvoiceNo(String invoiceNo);
+}
@@ -1,38 +1,57 @@
 package com.example.Invoice_Hrms.service;
 
 import com.example.Invoice_Hrms.dto.CompanyDto;
+import com.example.Invoice_Hrms.event.CompanyChangedEvent;
 import com.example.Invoice_Hrms.mapper.CompanyMapper;
 import com.example.Invoice_Hrms.model.Company;
 import com.example.Invoice_Hrms.repository.CompanyRepository;
+import com.example.Invoice_Hrms.util.ReferenceDataCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class CompanyService {
     private final CompanyRepository repository;
+    private final ReferenceDataCache<CompanyDto> cache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CompanyService(CompanyRepository repository) {
+    public CompanyService(CompanyRepository repository,
+                          ObjectMapper objectMapper,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${invoice.cache.reference.ttl-seconds:300}") long ttlSeconds,
+                          @Value("${invoice.cache.reference.max-entries:10000}") int maxEntries) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.cache = new ReferenceDataCache<>("companies",
+                () -> repository.findAll().stream().map(CompanyMapper::toDto).toList(),
+                id -> repository.findById(id).map(CompanyMapper::toDto),
+                CompanyDto::getId, Duration.ofSeconds(ttlSeconds), maxEntries, objectMapper);
     }
 
     public CompanyDto createCompany(CompanyDto dto) {
         Company company = CompanyMapper.toEntity(dto);
         Company saved = repository.save(company);
+        cache.invalidate();
+        eventPublisher.publishEvent(new CompanyChangedEvent(saved.getId()));
         return CompanyMapper.toDto(saved);
     }
 
     public List<CompanyDto> getAllCompanies() {
-        return repository.findAll().stream()
-                .map(CompanyMapper::toDto)
-                .collect(Collectors.toList());
+        return cache.get().values();
+    }
+
+    public ReferenceDataCache.Snapshot<CompanyDto> getCompanySnapshot() {
+        return cache.get();
     }
 
     public CompanyDto getCompanyById(String id) {
-        Company company = repository.findById(id)
+        return cache.find(id)
                 .orElseThrow(() -> new RuntimeException("Company not found with id: " + id));
-        return CompanyMapper.toDto(company);
     }
 
     public CompanyDto updateCompany(String id, CompanyDto dto) {
@@ -41,6 +60,8 @@ public class CompanyService {
         Company updated = CompanyMapper.toEntity(dto);
         updated.setId(existing.getId());
         Company saved = repository.save(updated);
+        cache.invalidate();
+        eventPublisher.publishEvent(new CompanyChangedEvent(saved.getId()));
         return CompanyMapper.toDto(saved);
     }
 
@@ -49,5 +70,15 @@ public class CompanyService {
             throw new RuntimeException("Company not found with id: " + id);
         }
         repository.deleteById(id);
+        cache.invalidate();
+        eventPublisher.publishEvent(new CompanyChangedEvent(id));
+    }
+
+    /**
+     * Called when another replica changed a company; companyId is null when which one is unknown.
+     */
+    public void evictCache(String companyId) {
+        cache.invalidate();
+        eventPublisher.publishEvent(new CompanyChangedEvent(companyId));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.payment;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.paymentRepository;
+import com.example.Invoice_Hrms.util.ExportFormat;
+import com.example.Invoice_Hrms.util.ExportWriter;
+import com.example.Invoice_Hrms.util.InvoiceTotals;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes the invoice and payment ledgers straight from a Mongo cursor to the response stream.
+ * Only one cursor batch is held in memory at a time, whatever the size of the export.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+
+    private static final List<String> INVOICE_HEADERS = List.of("Invoice No", "Invoice Date", "Due Date",
+            "Customer", "Consultant", "Currency", "Status", "Total Amount", "Paid Amount", "Pending Amount");
+    private static final List<String> PAYMENT_HEADERS = List.of("Payment Id", "Invoice No", "Payment Date",
+            "Payment Amount", "Payment Method", "Reference No");
+
+    private final InvoiceRepository invoiceRepository;
+    private final paymentRepository paymentRepository;
+    private final InvoiceService invoiceService;
+
+    public void exportInvoices(LocalDate invoiceDateFrom, LocalDate invoiceDateTo, String invoiceStatus,
+                               ExportFormat format, OutputStream out) throws IOException {
+        long rows = 0;
+        try (Stream<Invoice> invoices = invoiceRepository.streamForExport(invoiceDateFrom, invoiceDateTo,
+                invoiceStatus, CURSOR_BATCH_SIZE);
+             ExportWriter writer = format.open(out, "Invoices", INVOICE_HEADERS)) {
+            List<Invoice> batch = new ArrayList<>(CURSOR_BATCH_SIZE);
+            Iterator<Invoice> iterator = invoices.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == CURSOR_BATCH_SIZE || !iterator.hasNext()) {
+                    invoiceService.fillMissingTotals(batch);
+                    for (Invoice invoice : batch) {
+                        writer.writeRow(Arrays.asList(invoice.getInvoiceNo(), invoice.getInvoiceDate(),
+                                invoice.getDueDate(), invoice.getInvoiceCompanyName(),
+                                invoice.getInvoiceConsultantName(), invoice.getInvoiceCurrency(),
+                                invoice.getInvoiceStatus(), invoice.getTotalAmount(), invoice.getPaidAmount(),
+                                invoice.getPendingAmount()));
+                    }
+                    rows += batch.size();
+                    batch.clear();
+                    writer.flush();
+                }
+            }
+        }
+        logger.info("Exported {} invoices as {}", rows, format);
+    }
+
+    public void exportPayments(LocalDate paymentDateFrom, LocalDate paymentDateTo, String paymentMethod,
+                               ExportFormat format, OutputStream out) throws IOException {
+        long rows = 0;
+        try (Stream<payment> payments = paymentRepository.streamForExport(paymentDateFrom, paymentDateTo,
+                paymentMethod, CURSOR_BATCH_SIZE);
+             ExportWriter writer = format.open(out, "Payments", PAYMENT_HEADERS)) {
+            Iterator<payment> iterator = payments.iterator();
+            while (iterator.hasNext()) {
+                payment payment = iterator.next();
+                writer.writeRow(Arrays.asList(payment.getId(), payment.getInvoiceNo(), payment.getPaymentDate(),
+                        InvoiceTotals.amountOf(payment), payment.getPaymentMethod(), payment.getReferanceNo()));
+                if (++rows % CURSOR_BATCH_SIZE == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        logger.info("Exported {} payments as {}", rows, format);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.model.IdempotencyRecord;
+import com.example.Invoice_Hrms.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Makes POST endpoints safe to retry. The first request with a given Idempotency-Key claims the key
+ * with an insert into idempotency_keys (the unique _id settles races between concurrent retries), runs,
+ * and stores its response; later requests with the same key get that response back instead of
+ * running again. Keys expire after a TTL. While a request runs, its lease on the key is renewed, so only
+ * a request that died loses the key to a retry.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lease;
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "idempotency-lease-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${invoice.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${invoice.idempotency.lease-seconds:60}") long leaseSeconds) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    /**
+     * Runs action at most once per scope and key and returns its response, or the stored response of the
+     * earlier run. Answers 409 while the earlier run is still going and 422 when the key is reused with a
+     * different request body. If the action throws or answers 5xx nothing is stored, so the client can
+     * retry with the same key.
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = scope + ":" + key;
+        String requestHash = hash(request);
+        Instant now = Instant.now();
+        String owner = UUID.randomUUID().toString();
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setRequestHash(requestHash);
+        record.setStatus(IdempotencyRecord.STATUS_IN_PROGRESS);
+        record.setLockedUntil(now.plus(lease));
+        record.setLeaseOwner(owner);
+        record.setCreatedAt(now);
+        record.setExpiresAt(now.plus(ttl));
+        try {
+            repository.insert(record);
+        } catch (DuplicateKeyException e) {
+            ResponseEntity<?> earlier = earlierOutcome(id, requestHash, now, owner);
+            if (earlier != null) {
+                return earlier;
+            }
+            logger.warn("Taking over idempotency key {} from a request that did not finish", id);
+        }
+
+        ResponseEntity<?> response;
+        ScheduledFuture<?> renewal = renewWhileRunning(id, owner);
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            repository.deleteById(id);
+            throw e;
+        } finally {
+            renewal.cancel(false);
+        }
+        store(id, response);
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewer.shutdownNow();
+    }
+
+    // Pushes lockedUntil forward a few times per lease, until the action returns or the key is lost
+    private ScheduledFuture<?> renewWhileRunning(String id, String owner) {
+        long periodMillis = Math.max(1000, lease.toMillis() / 3);
+        return leaseRenewer.scheduleAtFixedRate(() -> {
+            try {
+                if (!repository.renewLease(id, owner, Instant.now().plus(lease))) {
+                    logger.warn("Lost the lease on idempotency key {} while the request was still running", id);
+                }
+            } catch (Exception e) {
+                // Keep the schedule alive; the next renewal may well get through
+                logger.warn("Could not renew the lease on idempotency key {}: {}", id, e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The response for a key that is already taken, or null when its earlier request died and this one
+     * has taken the key over.
+     */
+    private ResponseEntity<?> earlierOutcome(String id, String requestHash, Instant now, String owner) {
+        IdempotencyRecord existing = repository.findById(id).orElse(null);
+        if (existing == null) {
+            // Expired or released between the insert and this lookup
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Request with this " + HEADER + " is being retried, try again");
+        }
+        if (!requestHash.equals(existing.getRequestHash())) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(HEADER + " was already used for a different request");
+        }
+        if (IdempotencyRecord.STATUS_COMPLETED.equals(existing.getStatus())) {
+            ResponseEntity.BodyBuilder replay = ResponseEntity.status(existing.getResponseStatus())
+                    .header(REPLAYED_HEADER, "true");
+            if (existing.getResponseContentType() == null) {
+                return replay.build();
+            }
+            return replay.contentType(MediaType.parseMediaType(existing.getResponseContentType()))
+                    .body(existing.getResponseBody());
+        }
+        if (repository.claimExpired(id, now, now.plus(lease), owner) == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Request with this " + HEADER + " is still being processed");
+        }
+        return null;
+    }
+
+    private void store(String id, ResponseEntity<?> response) {
+        if (response.getStatusCode().is5xxServerError()) {
+            repository.deleteById(id);
+            return;
+        }
+        Object body = response.getBody();
+        try {
+            if (body == null) {
+                repository.complete(id, response.getStatusCode().value(), null, null);
+            } else if (body instanceof String text) {
+                repository.complete(id, response.getStatusCode().value(), MediaType.TEXT_PLAIN_VALUE, text);
+            } else {
+                repository.complete(id, response.getStatusCode().value(), MediaType.APPLICATION_JSON_VALUE,
+                        objectMapper.writeValueAsString(body));
+            }
+        } catch (JsonProcessingException e) {
+            // Can't be replayed; let a retry run the request again instead
+            logger.warn("Could not store the response for idempotency key {}: {}", id, e.getMessage());
+            repository.deleteById(id);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request body could not be serialized", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves invoices that have sat in the trash longer than the retention window, together with their
+ * lines and payments, into the *_archive collections, so the live collections and their indexes only
+ * hold what the application still reads. Works in batches off the trash index, pausing between them
+ * on its own thread so the shared scheduler is never held up.
+ */
+@Service
+public class InvoiceArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceArchiver.class);
+
+    private final InvoiceRepository invoiceRepository;
+    private final Duration retention;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "invoice-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InvoiceArchiver(InvoiceRepository invoiceRepository,
+                           @Value("${invoice.archive.retention-days:90}") long retentionDays,
+                           @Value("${invoice.archive.batch-size:200}") int batchSize,
+                           @Value("${invoice.archive.pause-ms:100}") long pauseMillis) {
+        this.invoiceRepository = invoiceRepository;
+        this.retention = Duration.ofDays(Math.max(0, retentionDays));
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = pauseMillis;
+    }
+
+    @Scheduled(cron = "${invoice.archive.cron:0 0 3 * * *}")
+    public void scheduledArchive() {
+        if (running.get()) {
+            logger.debug("Previous archive run still in progress, skipping");
+            return;
+        }
+        try {
+            worker.execute(() -> {
+                try {
+                    archiveExpired();
+                } catch (Exception e) {
+                    logger.error("Invoice archiving failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Archiver is shutting down, skipping this run");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Archives on the calling thread. Returns the number of invoices archived, or -1 when a run is
+     * already in progress in this instance.
+     */
+    public int archiveExpired() {
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            Instant cutoff = Instant.now().minus(retention);
+            int archived = 0;
+            List<Document> batch;
+            while (!(batch = invoiceRepository.findArchivable(cutoff, batchSize)).isEmpty()) {
+                // Invoices restored meanwhile are no longer in the trash, so the next read moves on
+                archived += invoiceRepository.archive(batch, cutoff);
+                if (pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+            logger.info("Archived {} invoices deleted before {}", archived, cutoff);
+            return archived;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            running.set(false);
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.event.InvoiceCreatedEvent;
+import com.example.Invoice_Hrms.event.InvoiceDeletedEvent;
+import com.example.Invoice_Hrms.event.InvoiceLifecycleEvent;
+import com.example.Invoice_Hrms.event.InvoiceRestoredEvent;
+import com.example.Invoice_Hrms.event.LineChangedEvent;
+import com.example.Invoice_Hrms.event.PaymentRecordedEvent;
+import com.example.Invoice_Hrms.event.StatusChangedEvent;
+import com.example.Invoice_Hrms.model.ChangeStreamCheckpoint;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.repository.ChangeStreamCheckpointRepository;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.util.Money;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns the change streams of invoices, items and payments into {@link InvoiceLifecycleEvent}s published
+ * through the application event publisher, so listeners see writes made by any replica or tool.
+ * <p>
+ * One database-level stream covers the three collections, so changes arrive in commit order across
+ * them. Each change is handed to one of a fixed set of lanes picked by its invoice id; a lane is a
+ * single thread, so events for one invoice are delivered in order while different invoices proceed in
+ * parallel. The resume token is checkpointed periodically, only up to the oldest change still being
+ * delivered, so a restart resumes without losing events (but may repeat a few). Listeners run in this
+ * process, so every instance keeps its own checkpoint, keyed by application name and instance id.
+ * <p>
+ * Change streams need a replica set, so this is opt-in.
+ */
+@Service
+@ConditionalOnProperty(name = "invoice.events.change-streams.enabled", havingValue = "true")
+public class InvoiceChangeStreamBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceChangeStreamBus.class);
+
+    // Shared by all instances before checkpoints were per instance; read once as a starting point
+    static final String LEGACY_CHECKPOINT_ID = "invoice-lifecycle";
+
+    private static final List<String> COLLECTIONS = List.of("invoices", "items", "payments");
+    // ChangeStreamHistoryLost and ChangeStreamFatalError: the token can't be resumed from
+    private static final Set<Integer> UNRESUMABLE = Set.of(286, 280);
+    private static final int INVOICE_ID_CACHE_SIZE = 10_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final InvoiceRepository invoiceRepository;
+    private final ChangeStreamCheckpointRepository checkpointRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String checkpointId;
+    private final Lane[] lanes;
+    private final long checkpointIntervalMs;
+    private final long retryDelayMs;
+    private final boolean preImages;
+    private final Counter deliveredCounter;
+    private final Counter failedCounter;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong delivered = new AtomicLong();
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private volatile Thread reader;
+
+    // Touched by the reader thread only
+    private final NavigableMap<Long, BsonDocument> tokens = new TreeMap<>();
+    private final Map<String, String> invoiceIdsByNo = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > INVOICE_ID_CACHE_SIZE;
+        }
+    };
+    private long sequence;
+    private BsonDocument savedToken;
+    private long lastCheckpointAt;
+
+    public InvoiceChangeStreamBus(MongoTemplate mongoTemplate,
+                                  InvoiceRepository invoiceRepository,
+                                  ChangeStreamCheckpointRepository checkpointRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${spring.application.name:invoice}") String applicationName,
+                                  @Value("${invoice.events.instance-id:${HOSTNAME:local}}") String instanceId,
+                                  @Value("${invoice.events.lanes:4}") int lanes,
+                                  @Value("${invoice.events.lane-capacity:1000}") int laneCapacity,
+                                  @Value("${invoice.events.checkpoint-interval-ms:1000}") long checkpointIntervalMs,
+                                  @Value("${invoice.events.retry-delay-ms:5000}") long retryDelayMs,
+                                  @Value("${invoice.events.pre-images:true}") boolean preImages) {
+        this.mongoTemplate = mongoTemplate;
+        this.invoiceRepository = invoiceRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.eventPublisher = eventPublisher;
+        this.checkpointId = LEGACY_CHECKPOINT_ID + ":" + applicationName + ":" + instanceId;
+        this.lanes = new Lane[Math.max(1, lanes)];
+        for (int i = 0; i < this.lanes.length; i++) {
+            this.lanes[i] = new Lane(i, laneCapacity);
+        }
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        this.retryDelayMs = retryDelayMs;
+        this.preImages = preImages;
+        this.deliveredCounter = Counter.builder("invoice.events.delivered")
+                .description("Invoice lifecycle events delivered to listeners")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("invoice.events.failed")
+                .description("Invoice lifecycle events whose listener threw")
+                .register(meterRegistry);
+        Gauge.builder("invoice.events.in-flight", inFlight, Set::size)
+                .description("Changes read from the stream and not yet delivered")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        if (preImages) {
+            enablePreImages();
+        }
+        for (Lane lane : lanes) {
+            lane.start();
+        }
+        Thread thread = new Thread(this::readLoop, "invoice-change-stream");
+        thread.setDaemon(true);
+        reader = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (running.compareAndSet(true, false) && reader != null) {
+            reader.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    // Lets removed lines be tied to their invoice and replaced invoices be diffed (MongoDB 6.0+)
+    private void enablePreImages() {
+        for (String collection : List.of("invoices", "items")) {
+            try {
+                mongoTemplate.executeCommand(new Document("collMod", collection)
+                        .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+            } catch (RuntimeException e) {
+                logger.warn("Could not enable change stream pre-images on {}: {}", collection, e.getMessage());
+            }
+        }
+    }
+
+    private void readLoop() {
+        BsonDocument resumeAfter = checkpointRepository.findById(checkpointId)
+                .or(() -> checkpointRepository.findById(LEGACY_CHECKPOINT_ID))
+                .map(ChangeStreamCheckpoint::getResumeToken)
+                .map(Document::toBsonDocument)
+                .orElse(null);
+        savedToken = resumeAfter;
+        logger.info("Invoice change stream {} starting {}", checkpointId,
+                resumeAfter != null ? "from checkpoint" : "from now");
+
+        while (running.get()) {
+            ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                    .watch(List.of(Aggregates.match(Filters.in("ns.coll", COLLECTIONS))))
+                    .fullDocument(FullDocument.UPDATE_LOOKUP)
+                    .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (preImages) {
+                stream = stream.fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+            }
+            if (resumeAfter != null) {
+                stream = stream.startAfter(resumeAfter);
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                while (running.get()) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        dispatch(change);
+                    }
+                    // Everything up to the cursor's position has been dispatched; a reconnect continues from it
+                    if (cursor.getResumeToken() != null) {
+                        resumeAfter = cursor.getResumeToken();
+                    }
+                    if (System.currentTimeMillis() - lastCheckpointAt >= checkpointIntervalMs) {
+                        checkpoint(cursor.getResumeToken());
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (UNRESUMABLE.contains(e.getErrorCode())) {
+                    // Events between the checkpoint and now are gone; listeners must rescan if they care
+                    logger.error("Invoice change stream can't resume from its checkpoint, restarting from now", e);
+                    resumeAfter = null;
+                    tokens.clear();
+                } else {
+                    logger.warn("Invoice change stream failed, retrying in {} ms: {}", retryDelayMs, e.getMessage());
+                }
+                pause();
+            } catch (MongoException e) {
+                logger.warn("Invoice change stream failed, retrying in {} ms: {}", retryDelayMs, e.getMessage());
+                pause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        for (Lane lane : lanes) {
+            lane.drain();
+        }
+        checkpoint(null);
+        logger.info("Invoice change stream stopped after delivering {} events", delivered.get());
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running.set(false);
+        }
+    }
+
+    private void dispatch(ChangeStreamDocument<Document> change) throws InterruptedException {
+        long seq = ++sequence;
+        tokens.put(seq, change.getResumeToken());
+        List<InvoiceLifecycleEvent> events;
+        try {
+            events = toEvents(change);
+        } catch (RuntimeException e) {
+            logger.warn("Skipping unreadable {} change on {}: {}", change.getOperationType(),
+                    change.getNamespace(), e.getMessage());
+            return;
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        // A change touches one document, so all its events share the invoice and go to one lane
+        String key = events.get(0).invoiceId() != null ? events.get(0).invoiceId() : documentId(change);
+        inFlight.add(seq);
+        lanes[Math.floorMod(Objects.hashCode(key), lanes.length)].queue.put(new Delivery(seq, events));
+    }
+
+    /**
+     * Saves the newest token whose change and every change before it have been delivered. With nothing
+     * in flight that is the cursor's own token, which keeps moving even while the collections are idle.
+     */
+    private void checkpoint(BsonDocument cursorToken) {
+        lastCheckpointAt = System.currentTimeMillis();
+        Long oldest = inFlight.ceiling(Long.MIN_VALUE);
+        BsonDocument safe;
+        if (oldest == null) {
+            safe = cursorToken != null ? cursorToken : (tokens.isEmpty() ? null : tokens.lastEntry().getValue());
+            tokens.clear();
+        } else {
+            Map.Entry<Long, BsonDocument> below = tokens.lowerEntry(oldest);
+            safe = below != null ? below.getValue() : null;
+            tokens.headMap(oldest).clear();
+        }
+        if (safe == null || safe.equals(savedToken)) {
+            return;
+        }
+        try {
+            ChangeStreamCheckpoint checkpoint = new ChangeStreamCheckpoint();
+            checkpoint.setId(checkpointId);
+            checkpoint.setResumeToken(Document.parse(safe.toJson()));
+            checkpoint.setDelivered(delivered.get());
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointRepository.save(checkpoint);
+            savedToken = safe;
+        } catch (RuntimeException e) {
+            logger.warn("Could not save invoice change stream checkpoint: {}", e.getMessage());
+        }
+    }
+
+    private List<InvoiceLifecycleEvent> toEvents(ChangeStreamDocument<Document> change) {
+        if (change.getNamespace() == null || change.getDocumentKey() == null) {
+            return List.of();
+        }
+        String id = documentId(change);
+        return switch (change.getNamespace().getCollectionName()) {
+            case "invoices" -> invoiceEvents(change, id);
+            case "items" -> lineEvents(change, id);
+            case "payments" -> paymentEvents(change, id);
+            default -> List.of();
+        };
+    }
+
+    private List<InvoiceLifecycleEvent> invoiceEvents(ChangeStreamDocument<Document> change, String id) {
+        Document after = change.getFullDocument();
+        Document before = change.getFullDocumentBeforeChange();
+        List<InvoiceLifecycleEvent> events = new ArrayList<>();
+        switch (change.getOperationType()) {
+            case INSERT -> {
+                if (after != null) {
+                    rememberInvoiceNo(after.getString("invoiceNo"), id);
+                    events.add(new InvoiceCreatedEvent(id, after.getString("invoiceNo"), after.getString("invoiceStatus")));
+                }
+            }
+            case UPDATE -> {
+                Set<String> fields = changedFields(change.getUpdateDescription());
+                if (fields.contains("invoiceStatus")) {
+                    events.add(new StatusChangedEvent(id, updatedString(change.getUpdateDescription(), "invoiceStatus")));
+                }
+                // The one-off conversion from is_delete also removes it; that is not a delete or restore
+                if (fields.contains("deleted") && !fields.contains("is_delete")) {
+                    events.add(deletion(id, updatedBoolean(change.getUpdateDescription(), "deleted")));
+                }
+                if (fields.stream().anyMatch(field -> field.equals("items") || field.startsWith("items."))) {
+                    events.add(new LineChangedEvent(id, null, LineChangedEvent.Change.UPDATED));
+                }
+            }
+            case REPLACE -> {
+                if (after == null) {
+                    break;
+                }
+                // Without a pre-image nothing says what changed, so the status is reported again
+                if (before == null || !Objects.equals(before.get("invoiceStatus"), after.get("invoiceStatus"))) {
+                    events.add(new StatusChangedEvent(id, after.getString("invoiceStatus")));
+                }
+                if (before != null && before.containsKey("deleted")
+                        && !Objects.equals(before.get("deleted"), after.get("deleted"))) {
+                    events.add(deletion(id, Boolean.TRUE.equals(after.getBoolean("deleted"))));
+                }
+                if (Boolean.TRUE.equals(after.getBoolean("itemsEmbedded"))
+                        && (before == null || !Objects.equals(before.get("items"), after.get("items")))) {
+                    events.add(new LineChangedEvent(id, null, LineChangedEvent.Change.UPDATED));
+                }
+            }
+            case DELETE -> events.add(new InvoiceDeletedEvent(id, true));
+            default -> {
+            }
+        }
+        return events;
+    }
+
+    private static InvoiceLifecycleEvent deletion(String id, boolean deleted) {
+        return deleted ? new InvoiceDeletedEvent(id, false) : new InvoiceRestoredEvent(id);
+    }
+
+    private List<InvoiceLifecycleEvent> lineEvents(ChangeStreamDocument<Document> change, String id) {
+        Document after = change.getFullDocument();
+        Document before = change.getFullDocumentBeforeChange();
+        String invoiceId = after != null ? after.getString("invoiceId")
+                : before != null ? before.getString("invoiceId") : null;
+        LineChangedEvent.Change kind = switch (change.getOperationType()) {
+            case INSERT -> LineChangedEvent.Change.ADDED;
+            case UPDATE, REPLACE -> LineChangedEvent.Change.UPDATED;
+            case DELETE -> LineChangedEvent.Change.REMOVED;
+            default -> null;
+        };
+        return kind != null ? List.of(new LineChangedEvent(invoiceId, id, kind)) : List.of();
+    }
+
+    // Payments are only ever inserted by the application; updates come from migrations and aren't news
+    private List<InvoiceLifecycleEvent> paymentEvents(ChangeStreamDocument<Document> change, String id) {
+        Document payment = change.getFullDocument();
+        if (change.getOperationType() != OperationType.INSERT || payment == null) {
+            return List.of();
+        }
+        String invoiceNo = payment.getString("invoiceNo");
+        BigDecimal amount;
+        try {
+            amount = Money.fromStored(payment.get("paymentAmount"));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Payment {} has an amount that is not a number: {}", id, payment.get("paymentAmount"));
+            amount = null;
+        }
+        return List.of(new PaymentRecordedEvent(invoiceIdOf(invoiceNo), invoiceNo, id, amount));
+    }
+
+    private String invoiceIdOf(String invoiceNo) {
+        if (invoiceNo == null) {
+            return null;
+        }
+        String cached = invoiceIdsByNo.get(invoiceNo);
+        if (cached != null) {
+            return cached;
+        }
+        Invoice invoice = invoiceRepository.findLiveByInvoiceNo(invoiceNo);
+        if (invoice == null) {
+            return null;
+        }
+        rememberInvoiceNo(invoiceNo, invoice.getId());
+        return invoice.getId();
+    }
+
+    private void rememberInvoiceNo(String invoiceNo, String invoiceId) {
+        if (invoiceNo != null) {
+            invoiceIdsByNo.put(invoiceNo, invoiceId);
+        }
+    }
+
+    private static Set<String> changedFields(UpdateDescription description) {
+        Set<String> fields = new HashSet<>();
+        if (description == null) {
+            return fields;
+        }
+        if (description.getUpdatedFields() != null) {
+            fields.addAll(description.getUpdatedFields().keySet());
+        }
+        if (description.getRemovedFields() != null) {
+            fields.addAll(description.getRemovedFields());
+        }
+        if (description.getTruncatedArrays() != null) {
+            description.getTruncatedArrays().forEach(array -> fields.add(array.getField()));
+        }
+        return fields;
+    }
+
+    private static String updatedString(UpdateDescription description, String field) {
+        BsonValue value = description.getUpdatedFields() != null ? description.getUpdatedFields().get(field) : null;
+        return value != null && value.isString() ? value.asString().getValue() : null;
+    }
+
+    private static boolean updatedBoolean(UpdateDescription description, String field) {
+        BsonValue value = description.getUpdatedFields() != null ? description.getUpdatedFields().get(field) : null;
+        return value != null && value.isBoolean() && value.asBoolean().getValue();
+    }
+
+    private static String documentId(ChangeStreamDocument<Document> change) {
+        BsonValue id = change.getDocumentKey() != null ? change.getDocumentKey().get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private record Delivery(long sequence, List<InvoiceLifecycleEvent> events) {
+    }
+
+    private final class Lane implements Runnable {
+        private final int index;
+        private final BlockingQueue<Delivery> queue;
+        private Thread thread;
+
+        private Lane(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        private void start() {
+            thread = new Thread(this, "invoice-events-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        // Keeps delivering what was already read after the stream stops, then exits
+        @Override
+        public void run() {
+            while (running.get() || !queue.isEmpty()) {
+                Delivery delivery;
+                try {
+                    delivery = queue.poll(200, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (delivery == null) {
+                    continue;
+                }
+                for (InvoiceLifecycleEvent event : delivery.events()) {
+                    try {
+                        eventPublisher.publishEvent(event);
+                        deliveredCounter.increment();
+                    } catch (RuntimeException e) {
+                        failedCounter.increment();
+                        logger.warn("Listener failed for {}", event, e);
+                    }
+                    delivered.incrementAndGet();
+                }
+                inFlight.remove(delivery.sequence());
+            }
+        }
+
+        private void drain() {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
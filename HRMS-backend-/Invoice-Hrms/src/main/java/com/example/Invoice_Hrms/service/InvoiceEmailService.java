@@ -4,16 +4,24 @@ package com.example.Invoice_Hrms.service;
 
 import com.example.Invoice_Hrms.model.Invoice;
 import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RequiredArgsConstructor
@@ -23,10 +31,11 @@ public class InvoiceEmailService {
     private static final Logger logger = LoggerFactory.getLogger(InvoiceEmailService.class);
     private final JavaMailSender mailSender;
     private  final InvoiceRepository invoiceRepository;
+    private final MeterRegistry meterRegistry;
 
     public String getEmailByInvoiceNo(String invoiceNo) {
         // Example with JPA repository
-        Optional<Invoice> invoiceOpt = Optional.ofNullable(invoiceRepository.findByInvoiceNo(invoiceNo));
+        Optional<Invoice> invoiceOpt = Optional.ofNullable(invoiceRepository.findLiveByInvoiceNo(invoiceNo));
         return invoiceOpt.map(Invoice::getInvoiceEmail).orElse(null);
     }
 
@@ -35,6 +44,20 @@ public class InvoiceEmailService {
     public void sendInvoiceWithAttachment(String invoiceNo, byte[] pdfData, String recipientEmail) throws MessagingException {
         logger.info("Sending invoice email for invoiceNo: {}", invoiceNo);
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean sent = false;
+        try {
+            mailSender.send(buildInvoiceMessage(invoiceNo, pdfData, recipientEmail));
+            sent = true;
+        } finally {
+            sample.stop(sendTimer("single", sent));
+            countMessages(sent, 1);
+        }
+
+        logger.info("Invoice email sent successfully for invoiceNo: {}", invoiceNo);
+    }
+
+    public MimeMessage buildInvoiceMessage(String invoiceNo, byte[] pdfData, String recipientEmail) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true);
 
@@ -44,10 +67,74 @@ public class InvoiceEmailService {
 
 
         helper.addAttachment("invoice-" + invoiceNo + ".pdf", new ByteArrayResource(pdfData));
+        return message;
+    }
 
-        mailSender.send(message);
+    /**
+     * One reminder listing every overdue invoice of a customer, instead of a message per invoice.
+     */
+    public MimeMessage buildOverdueDigest(String recipientEmail, List<Invoice> invoices) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false);
 
-        logger.info("Invoice email sent successfully for invoiceNo: {}", invoiceNo);
+        helper.setTo(recipientEmail);
+        helper.setSubject(invoices.size() == 1
+                ? "Invoice " + invoices.get(0).getInvoiceNo() + " is overdue"
+                : invoices.size() + " invoices are overdue");
+        StringBuilder body = new StringBuilder("The following invoices are past their due date:\n\n");
+        for (Invoice invoice : invoices) {
+            BigDecimal outstanding = invoice.getPendingAmount() != null ? invoice.getPendingAmount() : invoice.getTotalAmount();
+            body.append(invoice.getInvoiceNo())
+                    .append("  due ").append(invoice.getDueDate());
+            if (outstanding != null) {
+                body.append("  outstanding ")
+                        .append(invoice.getInvoiceCurrency() != null ? invoice.getInvoiceCurrency() + " " : "")
+                        .append(outstanding.toPlainString());
+            }
+            body.append('\n');
+        }
+        body.append("\nPlease arrange payment at your earliest convenience.");
+        helper.setText(body.toString(), false);
+        return message;
+    }
+
+    /**
+     * Sends all messages over a single SMTP connection and returns the ones that failed.
+     */
+    public Map<MimeMessage, Exception> sendAll(List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failures = new HashMap<>();
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((message, error) -> failures.put((MimeMessage) message, error));
+            if (failures.isEmpty()) {
+                messages.forEach(message -> failures.put(message, e));
+            }
+        } catch (MailException e) {
+            messages.forEach(message -> failures.put(message, e));
+        }
+        sample.stop(sendTimer("batch", failures.isEmpty()));
+        countMessages(true, messages.size() - failures.size());
+        countMessages(false, failures.size());
+        return failures;
+    }
+
+    private Timer sendTimer(String mode, boolean success) {
+        return Timer.builder("invoice.mail.send")
+                .description("Time spent handing invoice emails to the SMTP server")
+                .tag("mode", mode)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry);
+    }
+
+    private void countMessages(boolean sent, int count) {
+        if (count > 0) {
+            meterRegistry.counter("invoice.mail.messages", "outcome", sent ? "sent" : "failed").increment(count);
+        }
     }
 
 }
@@ -0,0 +1,196 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.model.InvoiceSequence;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.util.StringRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Hands out invoice sequence numbers per yyyyMM prefix.
+ * Each node reserves a block of numbers with one atomic $inc on the invoice_sequences counter
+ * and serves allocations from memory until the block runs out, so numbers never collide across
+ * threads or replicas. Numbers left in a block when the node stops are skipped. Invoices created
+ * with a number of their own push the counter past it through {@link #advancePast(String)}.
+ */
+@Service
+public class InvoiceNumberAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceNumberAllocator.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final InvoiceRepository invoiceRepository;
+    private final int blockSize;
+
+    private final Map<String, PrefixState> states = new ConcurrentHashMap<>();
+
+    // yyyyMM followed by the sequence, zero-padded to two digits
+    private static final Pattern PREFIX = Pattern.compile("\\d{6}");
+
+    public InvoiceNumberAllocator(MongoTemplate mongoTemplate,
+                                  InvoiceRepository invoiceRepository,
+                                  @Value("${invoice.number.block-size:10}") int blockSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.invoiceRepository = invoiceRepository;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public long next(String prefix) {
+        PrefixState state = stateFor(prefix);
+        while (true) {
+            Block block = state.block.get();
+            if (block != null) {
+                long n = block.next.getAndIncrement();
+                if (n <= block.last) {
+                    return n;
+                }
+            }
+            state.refillLock.lock();
+            try {
+                // Only the first thread to find the block exhausted reserves a new one
+                if (state.block.get() == block) {
+                    state.block.set(reserveBlock(prefix, state));
+                }
+            } finally {
+                state.refillLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Best guess of the number the next allocation will return. Does not reserve anything.
+     */
+    public long peek(String prefix) {
+        PrefixState state = states.get(prefix);
+        if (state != null) {
+            Block block = state.block.get();
+            if (block != null && block.next.get() <= block.last) {
+                return block.next.get();
+            }
+        }
+        InvoiceSequence sequence = mongoTemplate.findById(prefix, InvoiceSequence.class);
+        return (sequence != null ? sequence.getSeq() : highestExistingSequence(prefix)) + 1;
+    }
+
+    /**
+     * Moves the prefix's counter past an invoice number chosen by the client, so the allocator never
+     * hands the same number out later. Numbers that don't follow the yyyyMM + sequence format are ignored.
+     */
+    public void advancePast(String invoiceNo) {
+        if (invoiceNo == null || invoiceNo.length() <= 6 || !PREFIX.matcher(invoiceNo.substring(0, 6)).matches()) {
+            return;
+        }
+        String prefix = invoiceNo.substring(0, 6);
+        long sequence = sequenceOf(prefix, invoiceNo);
+        if (sequence < 0) {
+            return;
+        }
+        seedCounter(prefix);
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(prefix)),
+                new Update().max("seq", sequence), InvoiceSequence.class);
+
+        // Drop this node's block if it still holds the number; the next allocation reserves above it
+        PrefixState state = states.get(prefix);
+        if (state != null) {
+            Block block = state.block.get();
+            if (block != null && sequence >= block.next.get() && sequence <= block.last) {
+                state.block.compareAndSet(block, null);
+            }
+        }
+    }
+
+    public static String format(String prefix, long sequence) {
+        return prefix + String.format("%02d", sequence);
+    }
+
+    /**
+     * The sequence part of an invoice number under the prefix, or -1 when it has none.
+     */
+    static long sequenceOf(String prefix, String invoiceNo) {
+        if (invoiceNo == null || !invoiceNo.startsWith(prefix)) {
+            return -1;
+        }
+        String suffix = invoiceNo.substring(prefix.length());
+        if (suffix.isEmpty() || suffix.length() >= 19 || !suffix.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return -1;
+        }
+        return Long.parseLong(suffix);
+    }
+
+    private PrefixState stateFor(String prefix) {
+        PrefixState state = states.get(prefix);
+        if (state != null) {
+            return state;
+        }
+        // A new month started; blocks reserved for earlier prefixes will never be used again.
+        // Evicted outside computeIfAbsent, which must not modify the map it is computing into.
+        states.keySet().removeIf(existing -> !existing.equals(prefix));
+        return states.computeIfAbsent(prefix, key -> new PrefixState());
+    }
+
+    private Block reserveBlock(String prefix, PrefixState state) {
+        if (!state.seeded) {
+            seedCounter(prefix);
+            state.seeded = true;
+        }
+        Query query = new Query(Criteria.where("_id").is(prefix));
+        Update update = new Update().inc("seq", blockSize);
+        InvoiceSequence sequence = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true).upsert(true), InvoiceSequence.class);
+        long last = sequence.getSeq();
+        logger.info("Reserved invoice numbers {} to {} for prefix {}", last - blockSize + 1, last, prefix);
+        return new Block(last - blockSize + 1, last);
+    }
+
+    /**
+     * Starts a prefix's counter above any invoice numbers that were created before the counter existed.
+     * $max makes this safe to run concurrently from several nodes.
+     */
+    private void seedCounter(String prefix) {
+        if (mongoTemplate.exists(new Query(Criteria.where("_id").is(prefix)), InvoiceSequence.class)) {
+            return;
+        }
+        long highest = highestExistingSequence(prefix);
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(prefix)),
+                new Update().max("seq", highest), InvoiceSequence.class);
+    }
+
+    private long highestExistingSequence(String prefix) {
+        long highest = 0;
+        for (String invoiceNo : invoiceRepository.findInvoiceNos(StringRange.prefix(prefix), 0)) {
+            highest = Math.max(highest, sequenceOf(prefix, invoiceNo));
+        }
+        return highest;
+    }
+
+    private static final class PrefixState {
+        private final AtomicReference<Block> block = new AtomicReference<>();
+        // Refills do Mongo I/O; a lock instead of synchronized keeps virtual threads unpinned
+        private final ReentrantLock refillLock = new ReentrantLock();
+        private volatile boolean seeded;
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long last;
+
+        private Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.dto.PdfJobDto;
+import com.example.Invoice_Hrms.event.BrandingChangedEvent;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders invoice PDFs on a bounded worker pool instead of the caller's thread.
+ * Rendered documents are cached by a SHA-256 of the invoice (header, totals and items), so an
+ * unchanged invoice is rendered once no matter how often it is downloaded or mailed.
+ */
+@Service
+public class InvoicePdfService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoicePdfService.class);
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final Duration JOB_TTL = Duration.ofHours(1);
+
+    private final InvoiceTemplateService invoiceTemplateService;
+    private final InvoiceService invoiceService;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor renderPool;
+    private final RenderedPdfCache cache;
+
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, RenderJob> jobs = new ConcurrentHashMap<>();
+
+    public InvoicePdfService(InvoiceTemplateService invoiceTemplateService,
+                             InvoiceService invoiceService,
+                             ObjectMapper objectMapper,
+                             @Value("${invoice.pdf.render-threads:0}") int renderThreads,
+                             @Value("${invoice.pdf.queue-capacity:10000}") int queueCapacity,
+                             @Value("${invoice.pdf.cache-max-mb:256}") long cacheMaxMb) {
+        this.invoiceTemplateService = invoiceTemplateService;
+        this.invoiceService = invoiceService;
+        this.objectMapper = objectMapper;
+        int threads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        // Core threads never time out: each keeps its ThreadLocal ITextRenderer (see PdfGenerator) for reuse
+        this.renderPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "pdf-render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.cache = new RenderedPdfCache(cacheMaxMb * 1024 * 1024);
+    }
+
+    /**
+     * Renders (or fetches from cache) and waits for the result. Meant for background callers;
+     * request handlers should prefer {@link #submit(List)}.
+     */
+    public byte[] render(Invoice invoice) throws IOException {
+        try {
+            return renderAsync(invoice).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering invoice " + invoice.getInvoiceNo(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Failed to render invoice " + invoice.getInvoiceNo(), cause);
+        }
+    }
+
+    public CompletableFuture<byte[]> renderAsync(Invoice invoice) {
+        String key = contentKey(invoice);
+        byte[] cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        // Concurrent requests for the same content share one render
+        CompletableFuture<byte[]> future = inFlight.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(() -> {
+            try {
+                byte[] pdf = invoiceTemplateService.render(invoice);
+                cache.put(k, pdf);
+                return pdf;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, renderPool));
+        // Registered outside computeIfAbsent: on an already finished future the callback runs at once,
+        // and removing from the map inside its own mapping function is not allowed
+        future.whenComplete((pdf, error) -> inFlight.remove(key, future));
+        return future;
+    }
+
+    /**
+     * Cached PDFs are keyed by invoice content only, so a change to the issuing company's branding
+     * must drop them.
+     */
+    @EventListener
+    public void onBrandingChanged(BrandingChangedEvent event) {
+        cache.clear();
+    }
+
+    public List<PdfJobDto> submit(List<String> invoiceIds) {
+        Map<String, Invoice> invoices = new LinkedHashMap<>();
+        for (Invoice invoice : invoiceService.getInvoicesByIds(invoiceIds)) {
+            invoices.put(invoice.getId(), invoice);
+        }
+
+        List<PdfJobDto> submitted = new ArrayList<>();
+        for (String invoiceId : invoiceIds) {
+            RenderJob job = new RenderJob(UUID.randomUUID().toString(), invoiceId);
+            jobs.put(job.jobId, job);
+            Invoice invoice = invoices.get(invoiceId);
+            if (invoice == null) {
+                job.fail("Invoice not found: " + invoiceId);
+            } else {
+                start(job, invoice);
+            }
+            submitted.add(job.toDto());
+        }
+        return submitted;
+    }
+
+    private void start(RenderJob job, Invoice invoice) {
+        try {
+            job.cacheKey = contentKey(invoice);
+            renderAsync(invoice).whenComplete((pdf, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    logger.error("PDF render failed for invoice {}", invoice.getInvoiceNo(), cause);
+                    job.fail(cause.getMessage());
+                } else {
+                    job.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            job.fail("Render queue is full, retry later");
+        }
+    }
+
+    public PdfJobDto getJob(String jobId) {
+        RenderJob job = jobs.get(jobId);
+        return job != null ? job.toDto() : null;
+    }
+
+    /**
+     * Returns the finished PDF for a job. Returns null when the job is unknown or not finished, and
+     * also when the cache has evicted the PDF since: the job is then queued on the render pool again
+     * and reports PENDING (or FAILED) until the new render is done.
+     */
+    public byte[] download(String jobId) {
+        RenderJob job = jobs.get(jobId);
+        if (job == null || !STATUS_DONE.equals(job.status)) {
+            return null;
+        }
+        byte[] pdf = cache.get(job.cacheKey);
+        if (pdf != null) {
+            return pdf;
+        }
+        Invoice invoice = invoiceService.getInvoiceById(job.invoiceId);
+        if (invoice == null) {
+            job.fail("Invoice not found: " + job.invoiceId);
+            return null;
+        }
+        job.restart();
+        start(job, invoice);
+        return null;
+    }
+
+    public int getQueueDepth() {
+        return renderPool.getQueue().size();
+    }
+
+    @Scheduled(fixedDelay = 600_000)
+    public void expireJobs() {
+        Instant cutoff = Instant.now().minus(JOB_TTL);
+        jobs.values().removeIf(job -> !STATUS_PENDING.equals(job.status) && job.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    private String contentKey(Invoice invoice) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(invoice));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize invoice " + invoice.getId(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class RenderJob {
+        private final String jobId;
+        private final String invoiceId;
+        private volatile String cacheKey;
+        private volatile String status = STATUS_PENDING;
+        private volatile String error;
+        private volatile Instant finishedAt;
+
+        private RenderJob(String jobId, String invoiceId) {
+            this.jobId = jobId;
+            this.invoiceId = invoiceId;
+        }
+
+        private void restart() {
+            error = null;
+            status = STATUS_PENDING;
+        }
+
+        private void complete() {
+            finishedAt = Instant.now();
+            status = STATUS_DONE;
+        }
+
+        private void fail(String message) {
+            error = message;
+            finishedAt = Instant.now();
+            status = STATUS_FAILED;
+        }
+
+        private PdfJobDto toDto() {
+            return new PdfJobDto(jobId, invoiceId, status, error);
+        }
+    }
+
+    /**
+     * LRU cache bounded by the total size of the stored PDFs.
+     */
+    private static final class RenderedPdfCache {
+        private final long maxBytes;
+        private long currentBytes;
+        private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private RenderedPdfCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized byte[] get(String key) {
+            return entries.get(key);
+        }
+
+        private synchronized void clear() {
+            entries.clear();
+            currentBytes = 0;
+        }
+
+        private synchronized void put(String key, byte[] pdf) {
+            if (pdf.length > maxBytes) {
+                return;
+            }
+            byte[] previous = entries.put(key, pdf);
+            currentBytes += pdf.length - (previous != null ? previous.length : 0);
+            var it = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && it.hasNext()) {
+                currentBytes -= it.next().getValue().length;
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.dto.ItemMasterDto;
+import com.example.Invoice_Hrms.dto.RepriceResultDto;
+import com.example.Invoice_Hrms.event.InvoiceChangedEvent;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.InvoiceRepositoryCustom.EmbeddedRepricing;
+import com.example.Invoice_Hrms.repository.ItemRepository;
+import com.example.Invoice_Hrms.repository.ItemRepositoryCustom.Repricing;
+import com.example.Invoice_Hrms.util.LinePricing;
+import com.example.Invoice_Hrms.util.Money;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Re-prices the lines of every unpaid invoice that references an item master after its rate changed.
+ * Invoices with payments against them keep the price they were billed at.
+ * <p>
+ * Lines are read through a cursor in chunks; each chunk is priced on a worker of a fixed pool and
+ * written back with one bulk update for the lines and one for the invoice totals, while the reader
+ * fetches the next chunk. A bounded number of chunks is in flight, so memory stays flat however many
+ * lines there are. Every write is conditioned on the values it was computed from: a line or invoice
+ * edited in the meantime is skipped rather than overwritten, and counted in the result.
+ */
+@Service
+public class InvoiceRepricingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceRepricingService.class);
+
+    private final ItemMasterService itemMasterService;
+    private final ItemRepository itemRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService workers;
+    private final int threads;
+    private final int chunkSize;
+
+    public InvoiceRepricingService(ItemMasterService itemMasterService,
+                                   ItemRepository itemRepository,
+                                   InvoiceRepository invoiceRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${invoice.repricing.threads:0}") int threads,
+                                   @Value("${invoice.repricing.chunk-size:1000}") int chunkSize) {
+        this.itemMasterService = itemMasterService;
+        this.itemRepository = itemRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.eventPublisher = eventPublisher;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = Math.max(1, chunkSize);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.threads, r -> {
+            Thread thread = new Thread(r, "invoice-reprice-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Applies the item master's current rate to all open lines referencing it. Returns null if the item
+     * master doesn't exist; throws IllegalArgumentException if it has no rate.
+     */
+    public RepriceResultDto reprice(String itemMasterId) {
+        ItemMasterDto itemMaster = itemMasterService.getItemById(itemMasterId);
+        if (itemMaster == null) {
+            return null;
+        }
+        BigDecimal rate = itemMaster.getRate();
+        if (rate == null || rate.signum() < 0) {
+            throw new IllegalArgumentException("Item master " + itemMasterId + " has no valid rate");
+        }
+
+        long start = System.currentTimeMillis();
+        Run run = new Run(rate);
+        try (Stream<Item> lines = itemRepository.streamByItemMasterId(itemMasterId, chunkSize)) {
+            inChunks(lines, run::repriceLines);
+        }
+        try (Stream<Invoice> invoices = invoiceRepository.streamRepriceableEmbedded(itemMasterId, chunkSize)) {
+            inChunks(invoices, chunk -> run.repriceEmbedded(chunk, itemMasterId));
+        }
+        run.repricedInvoiceIds.forEach(id -> eventPublisher.publishEvent(InvoiceChangedEvent.ofId(id)));
+
+        RepriceResultDto result = new RepriceResultDto(itemMasterId, run.linesRepriced.get(),
+                run.repricedInvoiceIds.size(), run.linesSkipped.get(), System.currentTimeMillis() - start);
+        if (result.getLinesSkipped() > 0) {
+            logger.warn("Re-pricing item master {} skipped {} lines edited concurrently", itemMasterId,
+                    result.getLinesSkipped());
+        }
+        logger.info("Re-priced {} lines on {} invoices for item master {} in {} ms", result.getLinesRepriced(),
+                result.getInvoicesRepriced(), itemMasterId, result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * Hands the stream to the workers chunk by chunk, with at most two chunks per worker queued or
+     * running, and waits for all of them. The first failure is rethrown once the rest have finished.
+     */
+    private <T> void inChunks(Stream<T> source, Consumer<List<T>> task) {
+        Semaphore inFlight = new Semaphore(threads * 2);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        Iterator<T> iterator = source.iterator();
+        try {
+            while (iterator.hasNext()) {
+                List<T> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize && iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                }
+                inFlight.acquire();
+                futures.add(CompletableFuture.runAsync(() -> task.accept(chunk), workers)
+                        .whenComplete((ignored, error) -> inFlight.release()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while re-pricing", e);
+        } finally {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private final class Run {
+        private final BigDecimal rate;
+        private final AtomicLong linesRepriced = new AtomicLong();
+        private final AtomicLong linesSkipped = new AtomicLong();
+        private final Set<String> repricedInvoiceIds = ConcurrentHashMap.newKeySet();
+
+        private Run(BigDecimal rate) {
+            this.rate = rate;
+        }
+
+        /**
+         * Lines kept in the items collection. Their invoices' headers are fetched in one query to learn
+         * the currency and whether they are still open; totals move by the sum of the line deltas.
+         */
+        private void repriceLines(List<Item> chunk) {
+            Set<String> invoiceIds = chunk.stream().map(Item::getInvoiceId).filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Map<String, Invoice> open = invoiceRepository.findRepriceableHeaders(invoiceIds).stream()
+                    .collect(Collectors.toMap(Invoice::getId, Function.identity()));
+
+            List<Repricing> repricings = new ArrayList<>(chunk.size());
+            for (Item line : chunk) {
+                Invoice invoice = open.get(line.getInvoiceId());
+                if (invoice == null) {
+                    continue;
+                }
+                Item after = repriced(line, Money.scaleOf(invoice.getInvoiceCurrency()));
+                if (after != null) {
+                    repricings.add(new Repricing(line, after));
+                }
+            }
+            if (repricings.isEmpty()) {
+                return;
+            }
+
+            int matched = itemRepository.applyRepricing(repricings);
+            List<Repricing> applied = repricings;
+            if (matched < repricings.size()) {
+                // Some lines changed under us; only those now holding our values count towards the totals
+                Map<String, Item> current = itemRepository.findAllById(
+                                repricings.stream().map(r -> r.before().getId()).toList()).stream()
+                        .collect(Collectors.toMap(Item::getId, Function.identity()));
+                applied = repricings.stream()
+                        .filter(r -> holds(current.get(r.after().getId()), r.after()))
+                        .toList();
+                linesSkipped.addAndGet(repricings.size() - applied.size());
+            }
+
+            Map<String, BigDecimal> deltas = new HashMap<>();
+            for (Repricing repricing : applied) {
+                deltas.merge(repricing.after().getInvoiceId(), amountDelta(repricing.before(), repricing.after()),
+                        BigDecimal::add);
+            }
+            invoiceRepository.incrementTotals(deltas);
+            linesRepriced.addAndGet(applied.size());
+            repricedInvoiceIds.addAll(deltas.keySet());
+        }
+
+        /**
+         * Invoices embedding their lines: one conditional update per invoice sets the lines and shifts
+         * the totals together, so nothing can drift between them.
+         */
+        private void repriceEmbedded(List<Invoice> chunk, String itemMasterId) {
+            List<EmbeddedRepricing> repricings = new ArrayList<>(chunk.size());
+            for (Invoice invoice : chunk) {
+                int scale = Money.scaleOf(invoice.getInvoiceCurrency());
+                List<Item> changed = new ArrayList<>();
+                BigDecimal delta = BigDecimal.ZERO;
+                for (Item line : invoice.getItems()) {
+                    if (!itemMasterId.equals(line.getItemMasterId())) {
+                        continue;
+                    }
+                    Item after = repriced(line, scale);
+                    if (after != null) {
+                        changed.add(after);
+                        delta = delta.add(amountDelta(line, after));
+                    }
+                }
+                if (!changed.isEmpty()) {
+                    repricings.add(new EmbeddedRepricing(invoice.getId(), invoice.getTotalAmount(), delta, changed));
+                }
+            }
+            if (repricings.isEmpty()) {
+                return;
+            }
+
+            int matched = invoiceRepository.applyEmbeddedRepricing(repricings);
+            List<EmbeddedRepricing> applied = repricings;
+            if (matched < repricings.size()) {
+                // Some invoices changed under us; keep those whose lines now hold our values
+                Map<String, Invoice> current = invoiceRepository.findAllById(
+                                repricings.stream().map(EmbeddedRepricing::invoiceId).toList()).stream()
+                        .collect(Collectors.toMap(Invoice::getId, Function.identity()));
+                applied = new ArrayList<>(matched);
+                for (EmbeddedRepricing repricing : repricings) {
+                    if (holdsAll(current.get(repricing.invoiceId()), repricing.lines())) {
+                        applied.add(repricing);
+                    } else {
+                        linesSkipped.addAndGet(repricing.lines().size());
+                    }
+                }
+            }
+            for (EmbeddedRepricing repricing : applied) {
+                linesRepriced.addAndGet(repricing.lines().size());
+                repricedInvoiceIds.add(repricing.invoiceId());
+            }
+        }
+
+        /**
+         * A copy of the line at the new rate with its amounts recomputed, or null if nothing would change.
+         */
+        private Item repriced(Item line, int scale) {
+            if (line.getQty() == null || (line.getRate() != null && line.getRate().compareTo(rate) == 0)) {
+                return null;
+            }
+            Item after = new Item();
+            after.setId(line.getId());
+            after.setItemName(line.getItemName());
+            after.setInvoiceId(line.getInvoiceId());
+            after.setQty(line.getQty());
+            after.setRate(rate);
+            after.setDiscountPercent(line.getDiscountPercent());
+            after.setTaxPercent(line.getTaxPercent());
+            try {
+                LinePricing.price(after, scale);
+            } catch (IllegalArgumentException e) {
+                linesSkipped.incrementAndGet();
+                return null;
+            }
+            return after;
+        }
+    }
+
+    private static BigDecimal amountDelta(Item before, Item after) {
+        return before.getAmount() != null ? after.getAmount().subtract(before.getAmount()) : after.getAmount();
+    }
+
+    private static boolean holdsAll(Invoice current, List<Item> expected) {
+        if (current == null || current.getItems() == null) {
+            return false;
+        }
+        Map<String, Item> lines = current.getItems().stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity(), (a, b) -> a));
+        return expected.stream().allMatch(line -> holds(lines.get(line.getId()), line));
+    }
+
+    private static boolean holds(Item current, Item expected) {
+        return current != null
+                && current.getRate() != null && current.getRate().compareTo(expected.getRate()) == 0
+                && current.getAmount() != null && current.getAmount().compareTo(expected.getAmount()) == 0;
+    }
+}
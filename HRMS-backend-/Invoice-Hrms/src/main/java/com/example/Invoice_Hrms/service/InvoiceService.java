@@ -1,17 +1,29 @@
 package com.example.Invoice_Hrms.service;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.Set;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Objects;
 
 import com.example.Invoice_Hrms.dto.InvoiceDto;
+import com.example.Invoice_Hrms.dto.InvoicePageDto;
+import com.example.Invoice_Hrms.dto.InvoiceSearchCriteria;
+import com.example.Invoice_Hrms.dto.ItemMasterDto;
+import com.example.Invoice_Hrms.dto.itemDto;
 import com.example.Invoice_Hrms.dto.paymentDto;
+import com.example.Invoice_Hrms.event.InvoiceChangedEvent;
 import com.example.Invoice_Hrms.mapper.InvoiceMapper;
 import com.example.Invoice_Hrms.mapper.paymentMapper;
 import com.example.Invoice_Hrms.model.Invoice;
@@ -20,10 +32,21 @@ import com.example.Invoice_Hrms.model.payment;
 import com.example.Invoice_Hrms.repository.InvoiceRepository;
 import com.example.Invoice_Hrms.repository.ItemRepository;
 import com.example.Invoice_Hrms.repository.paymentRepository;
+import com.example.Invoice_Hrms.util.InvoiceTotals;
+import com.example.Invoice_Hrms.util.LinePricing;
+import com.example.Invoice_Hrms.util.Money;
+import com.example.Invoice_Hrms.util.PageCursor;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
@@ -31,66 +54,169 @@ public class InvoiceService {
 
     private static final Logger logger = LoggerFactory.getLogger(InvoiceService.class);
 
+    // Upper bound on invoice ids sent in a single $in lookup against the items collection
+    private static final int ITEM_LOOKUP_BATCH_SIZE = 1000;
+    // Attempts at an edit whose invoice keeps changing between the read and the write
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final InvoiceRepository invoiceRepository;
     private final ItemRepository itemRepository;
     private final paymentMapper paymentMapper;
     private final paymentRepository paymentRepository;
+    private final InvoiceNumberAllocator invoiceNumberAllocator;
+    private final ItemMasterService itemMasterService;
+    private final ApplicationEventPublisher eventPublisher;
+    // Present only when invoice.mongo.transactions.enabled=true
+    private final ObjectProvider<TransactionTemplate> transactionTemplate;
+
+    // When on (the default), line items are written inside the invoice document instead of the items collection
+    @Value("${invoice.items.embedded-writes:true}")
+    private boolean embeddedItemWrites;
 
     public Invoice save(Invoice invoice) {
-        return invoiceRepository.save(invoice);
+        Invoice saved = invoiceRepository.save(invoice);
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofId(saved.getId()));
+        return saved;
     }
 
     public Invoice createInvoice(InvoiceDto dto) {
         // Generate invoice number if not provided
-        if (dto.getInvoiceNo() == null || dto.getInvoiceNo().trim().isEmpty()) {
+        boolean explicitNumber = dto.getInvoiceNo() != null && !dto.getInvoiceNo().trim().isEmpty();
+        if (!explicitNumber) {
             dto.setInvoiceNo(generateInvoiceNumber());
         }
 
-        // Check for duplicate invoice number
-        if (invoiceRepository.existsByInvoiceNo(dto.getInvoiceNo())) {
-            throw new IllegalArgumentException("Invoice number already exists: " + dto.getInvoiceNo());
+        // No existence check here: the unique invoiceNo index rejects a number that is already taken
+        if (explicitNumber) {
+            invoiceNumberAllocator.advancePast(dto.getInvoiceNo());
         }
 
         Invoice invoice = toEntity(dto);
         if (dto.getInvoiceStatus() == null || dto.getInvoiceStatus().trim().isEmpty()) {
-            invoice.setInvoiceStatus("New");
+            invoice.setInvoiceStatus(Invoice.STATUS_NEW);
         }
 
-        Invoice savedInvoice = invoiceRepository.save(invoice);
+        if (invoice.getId() == null) {
+            invoice.setId(new ObjectId().toHexString());
+        }
+
+        List<Item> items = new ArrayList<>();
+        if (dto.getItems() != null) {
+            int scale = Money.scaleOf(invoice.getInvoiceCurrency());
+            Map<String, String> itemMasterIds = itemMasterIdsByName();
+            for (var i : dto.getItems()) {
+                Item item = toLine(i, invoice.getId(), scale, itemMasterIds);
+                item.setId(new ObjectId().toHexString());
+                items.add(item);
+            }
+        }
 
-        if (dto.getItems() != null && !dto.getItems().isEmpty()) {
-            List<Item> items = dto.getItems().stream()
-                    .map(i -> {
-                        Item item = new Item();
-                        item.setItemName(i.getItemName());
-                        item.setDescription(i.getDescription());
-                        item.setQty(i.getQty());
-                        item.setRate(i.getRate());
-                        item.setAmount(i.getAmount());
-                        item.setInvoiceId(savedInvoice.getId());
-                        return item;
-                    }).toList();
+        BigDecimal totalAmount = InvoiceTotals.itemTotal(items);
+        invoice.setTotalAmount(totalAmount);
+        invoice.setPaidAmount(BigDecimal.ZERO);
+        invoice.setPendingAmount(totalAmount);
 
-            itemRepository.saveAll(items);
+        if (embeddedItemWrites) {
+            invoice.setItems(items);
+            invoice.setItemsEmbedded(true);
         }
 
-        return buildInvoiceItemData(savedInvoice);
+        Invoice savedInvoice;
+        try {
+            savedInvoice = insertNew(invoice, items);
+        } catch (DuplicateKeyException e) {
+            if (explicitNumber || !isInvoiceNoConflict(e)) {
+                throw duplicateOf(invoice, e);
+            }
+            // Another node's block may still cover a number a client chose explicitly; take the next one once
+            logger.info("Invoice number {} is already taken, allocating another", invoice.getInvoiceNo());
+            invoice.setInvoiceNo(generateInvoiceNumber());
+            try {
+                savedInvoice = insertNew(invoice, items);
+            } catch (DuplicateKeyException retryFailure) {
+                throw duplicateOf(invoice, retryFailure);
+            }
+        }
+        if (!embeddedItemWrites) {
+            savedInvoice.setItems(items);
+        }
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofId(savedInvoice.getId()));
+        return savedInvoice;
+    }
+
+    private Invoice insertNew(Invoice invoice, List<Item> items) {
+        return embeddedItemWrites ? insertInvoice(invoice) : insertWithItems(invoice, items);
+    }
+
+    private static boolean isInvoiceNoConflict(DuplicateKeyException e) {
+        // The server names the violated index in the message, e.g. "index: invoiceNo dup key: ..."
+        return e.getMessage() != null && e.getMessage().contains("invoiceNo");
+    }
+
+    private static IllegalArgumentException duplicateOf(Invoice invoice, DuplicateKeyException e) {
+        if (isInvoiceNoConflict(e)) {
+            return new IllegalArgumentException("Invoice number already exists: " + invoice.getInvoiceNo());
+        }
+        return new IllegalArgumentException("Invoice already exists: " + invoice.getId());
+    }
+
+    /**
+     * Writes the invoice and its items-collection lines as one unit when embedded writes are off: in a
+     * transaction when Mongo transactions are enabled, otherwise by removing the invoice again if its lines
+     * could not be written. Without a transaction, a crash between the two writes can still leave a header
+     * without lines, which is why embedded writes are the default.
+     */
+    private Invoice insertWithItems(Invoice invoice, List<Item> items) {
+        TransactionTemplate transaction = transactionTemplate.getIfAvailable();
+        if (transaction != null) {
+            return transaction.execute(status -> {
+                Invoice saved = insertInvoice(invoice);
+                if (!items.isEmpty()) {
+                    itemRepository.insert(items);
+                }
+                return saved;
+            });
+        }
+        Invoice saved = insertInvoice(invoice);
+        try {
+            if (!items.isEmpty()) {
+                itemRepository.insert(items);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Writing lines of invoice {} failed, removing it: {}", invoice.getInvoiceNo(), e.getMessage());
+            itemRepository.deleteByInvoiceId(saved.getId());
+            invoiceRepository.deleteById(saved.getId());
+            throw e;
+        }
+        return saved;
+    }
+
+    private Invoice insertInvoice(Invoice invoice) {
+        // insert rather than save: a retried create must never overwrite an invoice with the same id
+        return invoiceRepository.insert(invoice);
     }
 
     public String generateInvoiceNumber() {
         logger.info("Generating invoice number");
-        LocalDate currentDate = LocalDate.now();
-        String yearMonth = currentDate.format(DateTimeFormatter.ofPattern("yyyyMM"));
+        String yearMonth = currentInvoicePrefix();
         logger.info("Prefix for invoice number: {}", yearMonth);
-        Long invoiceCount = invoiceRepository.countByInvoiceNoStartingWith(yearMonth);
-        long count = (invoiceCount != null) ? invoiceCount : 0;
-        logger.info("Invoice count for prefix {}: {}", yearMonth, count);
-        String countStr = String.format("%02d", count + 1);
-        String invoiceNumber = yearMonth + countStr;
+        String invoiceNumber = InvoiceNumberAllocator.format(yearMonth, invoiceNumberAllocator.next(yearMonth));
         logger.info("Generated invoice number: {}", invoiceNumber);
         return invoiceNumber;
     }
 
+    public String previewInvoiceNumber() {
+        String yearMonth = currentInvoicePrefix();
+        return InvoiceNumberAllocator.format(yearMonth, invoiceNumberAllocator.peek(yearMonth));
+    }
+
+    private String currentInvoicePrefix() {
+        return LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+
     private Invoice toEntity(InvoiceDto dto) {
         Invoice invoice = new Invoice();
         invoice.setId(dto.getId());
@@ -117,9 +243,31 @@ public class InvoiceService {
     }
 
     public List<Invoice> getAllInvoices() {
-        return invoiceRepository.findAll().stream()
-                .map(this::buildInvoiceItemData)
-                .collect(Collectors.toList());
+        return buildInvoiceItemData(invoiceRepository.findLive());
+    }
+
+    public InvoicePageDto getInvoicePage(InvoiceSearchCriteria criteria, String cursor, Integer limit) {
+        int pageSize = (limit == null || limit <= 0) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+
+        LocalDate afterInvoiceDate = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            PageCursor after = PageCursor.decode(cursor);
+            afterInvoiceDate = after.invoiceDate();
+            afterId = after.id();
+        }
+
+        // Fetch one extra row to know whether another page follows without a count query
+        List<Invoice> rows = invoiceRepository.findPage(criteria, afterInvoiceDate, afterId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<Invoice> invoices = buildInvoiceItemData(hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows);
+
+        String nextCursor = null;
+        if (hasMore) {
+            Invoice last = invoices.get(invoices.size() - 1);
+            nextCursor = new PageCursor(last.getInvoiceDate(), last.getId()).encode();
+        }
+        return new InvoicePageDto(invoices, nextCursor, hasMore);
     }
 
     public Invoice getInvoiceById(String id) {
@@ -128,85 +276,256 @@ public class InvoiceService {
                 .orElse(null);
     }
 
+    public List<Invoice> getInvoicesByIds(Collection<String> ids) {
+        return buildInvoiceItemData(invoiceRepository.findAllById(ids));
+    }
+
     private Invoice buildInvoiceItemData(Invoice invoice) {
-        List<Item> items = itemRepository.findByInvoiceId(invoice.getId());
-        invoice.setItems(items);
-        return invoice;
+        return buildInvoiceItemData(List.of(invoice)).get(0);
+    }
+
+    /**
+     * Attaches line items to each invoice. Invoices already using the embedded layout keep their own
+     * items; the rest are served by one batched lookup against the items collection.
+     */
+    public List<Invoice> buildInvoiceItemData(List<Invoice> invoices) {
+        List<String> invoiceIds = invoices.stream()
+                .filter(invoice -> !isItemsEmbedded(invoice))
+                .map(Invoice::getId)
+                .toList();
+        Map<String, List<Item>> itemsByInvoiceId = loadItemsByInvoiceIds(invoiceIds);
+        for (Invoice invoice : invoices) {
+            if (isItemsEmbedded(invoice)) {
+                if (invoice.getItems() == null) {
+                    invoice.setItems(new ArrayList<>());
+                }
+                // Older embedded lines may predate the invoiceId being copied into them
+                invoice.getItems().forEach(item -> item.setInvoiceId(invoice.getId()));
+            } else {
+                invoice.setItems(itemsByInvoiceId.getOrDefault(invoice.getId(), new ArrayList<>()));
+            }
+        }
+        return invoices;
+    }
+
+    private static boolean isItemsEmbedded(Invoice invoice) {
+        return Boolean.TRUE.equals(invoice.getItemsEmbedded());
     }
 
+    private Map<String, List<Item>> loadItemsByInvoiceIds(Collection<String> invoiceIds) {
+        if (invoiceIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> ids = new ArrayList<>(invoiceIds);
+        List<Item> items = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += ITEM_LOOKUP_BATCH_SIZE) {
+            int to = Math.min(from + ITEM_LOOKUP_BATCH_SIZE, ids.size());
+            items.addAll(itemRepository.findByInvoiceIdIn(ids.subList(from, to)));
+        }
+        return items.stream().collect(Collectors.groupingBy(Item::getInvoiceId));
+    }
+
+    /**
+     * Applies the edit against a fresh read, retrying when the invoice's lines or totals changed between
+     * the read and the write, since the stored totals are shifted by a delta computed from that read.
+     */
     public Invoice updateInvoice(String id, InvoiceDto dto) {
-        return invoiceRepository.findById(id).map(existingInvoice -> {
-            Invoice updatedInvoice = toEntity(dto);
-            updatedInvoice.setId(id);
-            Invoice savedInvoice = invoiceRepository.save(updatedInvoice);
+        for (int attempt = 1; attempt <= MAX_UPDATE_ATTEMPTS; attempt++) {
+            Invoice existingInvoice = invoiceRepository.findById(id).orElse(null);
+            if (existingInvoice == null) {
+                return null;
+            }
+            Invoice updatedInvoice = tryUpdateInvoice(existingInvoice, dto);
+            if (updatedInvoice != null) {
+                return updatedInvoice;
+            }
+        }
+        throw new OptimisticLockingFailureException("Invoice " + id + " kept changing while being updated");
+    }
 
-            List<Item> existingItems = itemRepository.findByInvoiceId(id);
+    // Returns null when the invoice changed since it was read; nothing has been written in that case
+    private Invoice tryUpdateInvoice(Invoice existingInvoice, InvoiceDto dto) {
+        String id = existingInvoice.getId();
+        Invoice updatedInvoice = toEntity(dto);
+        updatedInvoice.setId(id);
+        updatedInvoice.setDeleted(existingInvoice.isDeleted());
+        updatedInvoice.setDeletedAt(existingInvoice.getDeletedAt());
+        Map<String, Object> headerChanges = headerChanges(existingInvoice, updatedInvoice);
+
+        boolean wasEmbedded = isItemsEmbedded(existingInvoice);
+        boolean writeEmbedded = wasEmbedded || embeddedItemWrites;
+        List<Item> existingItems = new ArrayList<>(buildInvoiceItemData(existingInvoice).getItems());
+        List<Item> resultItems = existingItems;
+
+        BigDecimal totalDelta = BigDecimal.ZERO;
+        List<Item> inserts = new ArrayList<>();
+        Map<String, Map<String, Object>> lineUpdates = new LinkedHashMap<>();
+        List<String> toDelete = List.of();
+        if (dto.getItems() != null) {
             Map<String, Item> existingItemMap = existingItems.stream()
                     .filter(i -> i.getId() != null)
-                    .collect(Collectors.toMap(Item::getId, i -> i));
+                    .collect(Collectors.toMap(Item::getId, i -> i, (a, b) -> a));
 
-            List<Item> updatedItems = new ArrayList<>();
+            resultItems = new ArrayList<>();
             Set<String> incomingIds = new HashSet<>();
-
-            if (dto.getItems() != null) {
-                for (var i : dto.getItems()) {
-                    Item item = new Item();
-                    item.setItemName(i.getItemName());
-                    item.setDescription(i.getDescription());
-                    item.setQty(i.getQty());
-                    item.setRate(i.getRate());
-                    item.setAmount(i.getAmount());
-                    item.setInvoiceId(id);
-
-                    if (i.getId() != null && existingItemMap.containsKey(i.getId())) {
-                        item.setId(i.getId());
-                        incomingIds.add(i.getId());
-                    } else {
-                        item.setId(null);
+            int scale = Money.scaleOf(updatedInvoice.getInvoiceCurrency());
+            Map<String, String> itemMasterIds = itemMasterIdsByName();
+
+            for (var i : dto.getItems()) {
+                Item item = toLine(i, id, scale, itemMasterIds);
+
+                Item existingItem = i.getId() != null ? existingItemMap.get(i.getId()) : null;
+                if (existingItem != null && incomingIds.add(i.getId())) {
+                    item.setId(i.getId());
+                    Map<String, Object> changes = lineChanges(existingItem, item);
+                    if (!changes.isEmpty()) {
+                        lineUpdates.put(item.getId(), changes);
                     }
-
-                    updatedItems.add(item);
+                } else {
+                    item.setId(new ObjectId().toHexString());
+                    inserts.add(item);
                 }
-                itemRepository.saveAll(updatedItems);
+                resultItems.add(item);
+            }
 
-                List<Item> toDelete = existingItems.stream()
-                        .filter(i -> i.getId() != null && !incomingIds.contains(i.getId()))
+            if (!writeEmbedded) {
+                toDelete = existingItems.stream()
+                        .map(Item::getId)
+                        .filter(itemId -> itemId != null && !incomingIds.contains(itemId))
                         .toList();
+            }
+            totalDelta = InvoiceTotals.itemTotal(resultItems).subtract(InvoiceTotals.itemTotal(existingItems));
+        }
+        if (writeEmbedded) {
+            // The whole invoice, lines included, goes out as a single-document update
+            headerChanges.put("items", resultItems);
+            headerChanges.put("itemsEmbedded", true);
+        }
+        updatedInvoice.setItems(resultItems);
+        updatedInvoice.setItemsEmbedded(writeEmbedded ? Boolean.TRUE : existingInvoice.getItemsEmbedded());
+
+        // Totals are owned by the item and payment write paths, not by the client payload
+        if (existingInvoice.getTotalAmount() == null) {
+            totalDelta = BigDecimal.ZERO;
+        } else {
+            updatedInvoice.setTotalAmount(existingInvoice.getTotalAmount().add(totalDelta));
+            updatedInvoice.setPaidAmount(Objects.requireNonNullElse(existingInvoice.getPaidAmount(), BigDecimal.ZERO));
+            updatedInvoice.setPendingAmount(updatedInvoice.getTotalAmount().subtract(updatedInvoice.getPaidAmount()));
+        }
+        if (!invoiceRepository.updateHeader(id, existingInvoice.getTotalsVersion(), headerChanges, totalDelta)) {
+            return null;
+        }
+        if (headerChanges.containsKey("invoiceNo")) {
+            invoiceNumberAllocator.advancePast(updatedInvoice.getInvoiceNo());
+        }
+        if (!writeEmbedded) {
+            // Written once the header has claimed the delta, so a retried attempt never sees its own rows
+            itemRepository.bulkApply(inserts, lineUpdates, toDelete);
+        }
+
+        if (writeEmbedded && !wasEmbedded && !existingItems.isEmpty()) {
+            // Lines now live inside the invoice; drop the rows they were copied from
+            itemRepository.deleteAllById(existingItems.stream().map(Item::getId).toList());
+        }
+
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofId(id));
+        return updatedInvoice;
+    }
 
-                itemRepository.deleteAll(toDelete);
+    private Map<String, Object> headerChanges(Invoice existing, Invoice updated) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, "invoiceNo", existing.getInvoiceNo(), updated.getInvoiceNo());
+        putIfChanged(changes, "invoiceDate", existing.getInvoiceDate(), updated.getInvoiceDate());
+        putIfChanged(changes, "invoiceTerms", existing.getInvoiceTerms(), updated.getInvoiceTerms());
+        putIfChanged(changes, "dueDate", existing.getDueDate(), updated.getDueDate());
+        putIfChanged(changes, "invoiceCompanyName", existing.getInvoiceCompanyName(), updated.getInvoiceCompanyName());
+        putIfChanged(changes, "invoiceCompanyAddress", existing.getInvoiceCompanyAddress(), updated.getInvoiceCompanyAddress());
+        putIfChanged(changes, "invoiceCountry", existing.getInvoiceCountry(), updated.getInvoiceCountry());
+        putIfChanged(changes, "invoicePinCode", existing.getInvoicePinCode(), updated.getInvoicePinCode());
+        putIfChanged(changes, "invoiceEmail", existing.getInvoiceEmail(), updated.getInvoiceEmail());
+        putIfChanged(changes, "invoiceMobileNo", existing.getInvoiceMobileNo(), updated.getInvoiceMobileNo());
+        putIfChanged(changes, "invoiceConsultantName", existing.getInvoiceConsultantName(), updated.getInvoiceConsultantName());
+        putIfChanged(changes, "invoiceCurrency", existing.getInvoiceCurrency(), updated.getInvoiceCurrency());
+        putIfChanged(changes, "invoiceStatus", existing.getInvoiceStatus(), updated.getInvoiceStatus());
+        putIfChanged(changes, "companyName", existing.getCompanyName(), updated.getCompanyName());
+        putIfChanged(changes, "companyAddress", existing.getCompanyAddress(), updated.getCompanyAddress());
+        putIfChanged(changes, "companyMobileNo", existing.getCompanyMobileNo(), updated.getCompanyMobileNo());
+        putIfChanged(changes, "companyEmail", existing.getCompanyEmail(), updated.getCompanyEmail());
+        putIfChanged(changes, "thanksNote", existing.getThanksNote(), updated.getThanksNote());
+        return changes;
+    }
+
+    private Map<String, Object> lineChanges(Item existing, Item updated) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, "itemName", existing.getItemName(), updated.getItemName());
+        putIfChanged(changes, "description", existing.getDescription(), updated.getDescription());
+        putIfChanged(changes, "qty", existing.getQty(), updated.getQty());
+        putIfChanged(changes, "rate", existing.getRate(), updated.getRate());
+        putIfChanged(changes, "discountPercent", existing.getDiscountPercent(), updated.getDiscountPercent());
+        putIfChanged(changes, "taxPercent", existing.getTaxPercent(), updated.getTaxPercent());
+        putIfChanged(changes, "discountAmount", existing.getDiscountAmount(), updated.getDiscountAmount());
+        putIfChanged(changes, "taxAmount", existing.getTaxAmount(), updated.getTaxAmount());
+        putIfChanged(changes, "amount", existing.getAmount(), updated.getAmount());
+        putIfChanged(changes, "itemMasterId", existing.getItemMasterId(), updated.getItemMasterId());
+        return changes;
+    }
+
+    /**
+     * A line from the client's input, priced by the server. Lines without an itemMasterId are linked
+     * to the catalogue entry with the same name, if there is one.
+     */
+    private Item toLine(itemDto dto, String invoiceId, int scale, Map<String, String> itemMasterIds) {
+        Item item = new Item();
+        item.setItemName(dto.getItemName());
+        item.setDescription(dto.getDescription());
+        item.setQty(dto.getQty());
+        item.setRate(dto.getRate());
+        item.setDiscountPercent(dto.getDiscountPercent());
+        item.setTaxPercent(dto.getTaxPercent());
+        item.setItemMasterId(dto.getItemMasterId() != null || dto.getItemName() == null
+                ? dto.getItemMasterId()
+                : itemMasterIds.get(dto.getItemName().trim().toLowerCase(Locale.ROOT)));
+        item.setInvoiceId(invoiceId);
+        LinePricing.price(item, scale);
+        return item;
+    }
+
+    private Map<String, String> itemMasterIdsByName() {
+        Map<String, String> ids = new HashMap<>();
+        for (ItemMasterDto master : itemMasterService.getAllItems()) {
+            if (master.getItemName() != null) {
+                ids.putIfAbsent(master.getItemName().trim().toLowerCase(Locale.ROOT), master.getId());
             }
+        }
+        return ids;
+    }
 
-            return buildInvoiceItemData(savedInvoice);
-        }).orElse(null);
+    private static void putIfChanged(Map<String, Object> changes, String field, Object before, Object after) {
+        boolean same = (before instanceof BigDecimal b && after instanceof BigDecimal a)
+                ? b.compareTo(a) == 0
+                : Objects.equals(before, after);
+        if (!same) {
+            changes.put(field, after);
+        }
     }
 
+    /**
+     * Moves the invoice to the trash; InvoiceArchiver takes it, its lines and its payments out of the
+     * live collections once the retention window has passed.
+     */
     public boolean deleteInvoice(String id) {
-        if (!invoiceRepository.existsById(id)) return false;
-
-        invoiceRepository.deleteById(id);
-        itemRepository.deleteAll(itemRepository.findByInvoiceId(id));
-        return true;
+        return setDeleted(id, true) != null;
     }
 
     public InvoiceDto getInvoiceWithAmounts(String invoiceId) {
         Invoice invoice = invoiceRepository.findById(invoiceId).orElseThrow();
 
-        List<Item> items = itemRepository.findByInvoiceId(invoiceId);
-        BigDecimal totalAmount = items.stream()
-                .map(Item::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
         List<payment> payments = paymentRepository.findByInvoiceNo(invoice.getInvoiceNo());
-        BigDecimal paidAmount = payments.stream()
-                .map(p -> BigDecimal.valueOf(p.getPaymentAmount()))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal pendingAmount = totalAmount.subtract(paidAmount);
+        if (invoice.getTotalAmount() == null || invoice.getPaidAmount() == null) {
+            materializeTotals(invoice, payments);
+        }
 
         InvoiceDto dto = InvoiceMapper.toDto(invoice);
-        dto.setTotalAmount(totalAmount);
-        dto.setPaidAmount(paidAmount);
-        dto.setPendingAmount(pendingAmount);
 
         List<paymentDto> paymentDtos = payments.stream()
                 .map(paymentMapper::toDto)
@@ -217,18 +536,68 @@ public class InvoiceService {
         return dto;
     }
 
+    // Invoices written before totals were stored get them computed once, on first read
+    private void materializeTotals(Invoice invoice, List<payment> payments) {
+        BigDecimal totalAmount = InvoiceTotals.itemTotal(buildInvoiceItemData(invoice).getItems());
+        BigDecimal paidAmount = InvoiceTotals.paidTotal(payments);
+        invoiceRepository.replaceTotals(invoice.getId(), invoice.getTotalsVersion(), totalAmount, paidAmount);
+        invoice.setTotalAmount(totalAmount);
+        invoice.setPaidAmount(paidAmount);
+        invoice.setPendingAmount(totalAmount.subtract(paidAmount));
+    }
+
+    /**
+     * Computes totals in memory for invoices written before totals were stored, with one items lookup
+     * and one payments lookup for the whole list. Nothing is persisted; the reconciler does that.
+     */
+    public void fillMissingTotals(List<Invoice> invoices) {
+        List<Invoice> missing = invoices.stream().filter(invoice -> invoice.getTotalAmount() == null).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<String, BigDecimal> itemTotals = getInvoicesByIds(missing.stream().map(Invoice::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(Invoice::getId, invoice -> InvoiceTotals.itemTotal(invoice.getItems())));
+        Map<String, BigDecimal> paidByInvoiceNo = paymentRepository.sumAmountsByInvoiceNo(
+                missing.stream().map(Invoice::getInvoiceNo).filter(Objects::nonNull).toList());
+        for (Invoice invoice : missing) {
+            BigDecimal total = itemTotals.getOrDefault(invoice.getId(), BigDecimal.ZERO);
+            BigDecimal paid = paidByInvoiceNo.getOrDefault(invoice.getInvoiceNo(), BigDecimal.ZERO);
+            invoice.setTotalAmount(total);
+            invoice.setPaidAmount(paid);
+            invoice.setPendingAmount(total.subtract(paid));
+        }
+    }
+
     public boolean deleteItemById(String itemId) {
-        if (!itemRepository.existsById(itemId)) {
-            return false;
+        Item item = itemRepository.findById(itemId).orElse(null);
+        if (item != null) {
+            itemRepository.deleteById(itemId);
+        } else {
+            item = invoiceRepository.pullEmbeddedItem(itemId);
+            if (item == null) {
+                return false;
+            }
         }
-        itemRepository.deleteById(itemId);
+        invoiceRepository.incrementTotals(item.getInvoiceId(), InvoiceTotals.amountOf(item).negate(), BigDecimal.ZERO);
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofId(item.getInvoiceId()));
         return true;
     }
-    public Invoice updateIsDelete(String id, String isDelete) {
-        return invoiceRepository.findById(id).map(invoice -> {
-            invoice.setIs_delete(isDelete);
-            Invoice savedInvoice = invoiceRepository.save(invoice);
-            return buildInvoiceItemData(savedInvoice);
-        }).orElse(null);
+    public Invoice setDeleted(String id, boolean deleted) {
+        Invoice savedInvoice = invoiceRepository.setDeleted(id, deleted, Instant.now());
+        if (savedInvoice == null) {
+            return null;
+        }
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofId(id));
+        return buildInvoiceItemData(savedInvoice);
+    }
+
+    public Invoice updateStatus(String id, String status) {
+        Invoice savedInvoice = invoiceRepository.setStatus(id, status);
+        if (savedInvoice == null) {
+            return null;
+        }
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofId(id));
+        return buildInvoiceItemData(savedInvoice);
     }
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.dto.CompanyDto;
+import com.example.Invoice_Hrms.dto.TermMasterDto;
+import com.example.Invoice_Hrms.event.BrandingChangedEvent;
+import com.example.Invoice_Hrms.event.CompanyChangedEvent;
+import com.example.Invoice_Hrms.event.TermChangedEvent;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.util.InvoiceBranding;
+import com.example.Invoice_Hrms.util.InvoiceFragments;
+import com.example.Invoice_Hrms.util.LogoCache;
+import com.example.Invoice_Hrms.util.PdfGenerator;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.exceptions.TemplateInputException;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Picks the page template and branding for an invoice from its issuing company, and keeps the
+ * company header, terms and footer pre-rendered per distinct branding, so rendering an invoice only
+ * runs the template over its own details and item rows. Templates are parsed once into Thymeleaf's
+ * cache; a company template that is missing or fails to parse falls back to the default one.
+ */
+@Service
+public class InvoiceTemplateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceTemplateService.class);
+
+    private static final Pattern TEMPLATE_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final PdfGenerator pdfGenerator;
+    private final CompanyService companyService;
+    private final TermMasterService termMasterService;
+    private final LogoCache logoCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxFragments;
+
+    private final Map<InvoiceBranding, InvoiceFragments> fragments = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> templateUsable = new ConcurrentHashMap<>();
+
+    public InvoiceTemplateService(PdfGenerator pdfGenerator,
+                                  CompanyService companyService,
+                                  TermMasterService termMasterService,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${invoice.pdf.fragment-cache.max-entries:1000}") int maxFragments,
+                                  @Value("${invoice.pdf.logo.allowed-hosts:}") Set<String> logoHosts,
+                                  @Value("${invoice.pdf.logo.ttl-hours:24}") long logoTtlHours,
+                                  @Value("${invoice.pdf.logo.retry-minutes:10}") long logoRetryMinutes,
+                                  @Value("${invoice.pdf.logo.max-kb:512}") int logoMaxKb) {
+        this.pdfGenerator = pdfGenerator;
+        this.companyService = companyService;
+        this.termMasterService = termMasterService;
+        this.eventPublisher = eventPublisher;
+        this.maxFragments = maxFragments;
+        // A logo that arrives after invoices were rendered without it makes those PDFs stale
+        this.logoCache = new LogoCache(logoHosts, Duration.ofHours(logoTtlHours), Duration.ofMinutes(logoRetryMinutes),
+                logoMaxKb * 1024, url -> eventPublisher.publishEvent(new BrandingChangedEvent()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        CompletableFuture.runAsync(() -> {
+            if (!usable(PdfGenerator.DEFAULT_TEMPLATE)) {
+                logger.warn("Default invoice template {} could not be loaded", PdfGenerator.DEFAULT_TEMPLATE);
+            }
+            prefetchLogos();
+        });
+    }
+
+    @EventListener
+    public void onCompanyChanged(CompanyChangedEvent event) {
+        // Entries are keyed by their content, so this only drops branding nobody will look up again
+        fragments.clear();
+        templateUsable.clear();
+        eventPublisher.publishEvent(new BrandingChangedEvent());
+        prefetchLogos();
+    }
+
+    /**
+     * Term descriptions are printed on the invoice, so PDFs rendered with the old text are stale.
+     */
+    @EventListener
+    public void onTermChanged(TermChangedEvent event) {
+        eventPublisher.publishEvent(new BrandingChangedEvent());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        logoCache.shutdown();
+    }
+
+    private void prefetchLogos() {
+        try {
+            companyService.getAllCompanies().forEach(company -> logoCache.prefetch(company.getLogoUrl()));
+        } catch (Exception e) {
+            logger.warn("Could not prefetch company logos: {}", e.getMessage());
+        }
+    }
+
+    public byte[] render(Invoice invoice) throws IOException {
+        CompanyDto company = findCompany(invoice.getCompanyName());
+        InvoiceBranding branding = brandingOf(invoice, company);
+        InvoiceFragments rendered = fragments.get(branding);
+        if (rendered == null) {
+            rendered = pdfGenerator.renderFragments(branding);
+            if (fragments.size() >= maxFragments) {
+                fragments.clear();
+            }
+            fragments.put(branding, rendered);
+        }
+        return pdfGenerator.generateInvoicePdf(invoice, templateOf(company), rendered);
+    }
+
+    public int cachedFragmentCount() {
+        return fragments.size();
+    }
+
+    private InvoiceBranding brandingOf(Invoice invoice, CompanyDto company) {
+        String logo = null;
+        String brandColor = null;
+        if (company != null) {
+            logo = logoCache.get(company.getLogoUrl());
+            brandColor = company.getBrandColor();
+        }
+        TermMasterDto term = findTerm(invoice.getInvoiceTerms());
+        return new InvoiceBranding(invoice.getCompanyName(), invoice.getCompanyAddress(), invoice.getCompanyEmail(),
+                invoice.getCompanyMobileNo(), logo, brandColor, invoice.getInvoiceTerms(),
+                term != null ? term.getDescription() : null, invoice.getThanksNote());
+    }
+
+    private String templateOf(CompanyDto company) {
+        String template = company != null ? company.getInvoiceTemplate() : null;
+        if (template == null || template.isBlank() || template.equals(PdfGenerator.DEFAULT_TEMPLATE)) {
+            return PdfGenerator.DEFAULT_TEMPLATE;
+        }
+        return usable(template) ? template : PdfGenerator.DEFAULT_TEMPLATE;
+    }
+
+    /**
+     * Whether the template exists and parses. Checked once per name, which also loads it into
+     * Thymeleaf's template cache.
+     */
+    private boolean usable(String template) {
+        return templateUsable.computeIfAbsent(template, name -> {
+            if (!TEMPLATE_NAME.matcher(name).matches()) {
+                logger.warn("Ignoring invalid invoice template name {}", name);
+                return false;
+            }
+            try {
+                pdfGenerator.warmUp(name);
+                return true;
+            } catch (TemplateInputException e) {
+                logger.warn("Invoice template {} is unusable, falling back to {}: {}",
+                        name, PdfGenerator.DEFAULT_TEMPLATE, e.getMessage());
+                return false;
+            } catch (TemplateProcessingException e) {
+                // Parsed fine; only the blank invoice used for the check tripped an expression
+                return true;
+            }
+        });
+    }
+
+    private CompanyDto findCompany(String companyName) {
+        if (companyName == null) {
+            return null;
+        }
+        for (CompanyDto company : companyService.getAllCompanies()) {
+            if (company.getCompanyName() != null && companyName.trim().equalsIgnoreCase(company.getCompanyName().trim())) {
+                return company;
+            }
+        }
+        return null;
+    }
+
+    private TermMasterDto findTerm(String termName) {
+        if (termName == null) {
+            return null;
+        }
+        for (TermMasterDto term : termMasterService.getAllTerms()) {
+            if (termName.equalsIgnoreCase(term.getTerm())) {
+                return term;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.event.InvoiceChangedEvent;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.paymentRepository;
+import com.example.Invoice_Hrms.util.InvoiceTotals;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Recomputes stored invoice totals from the items and payments collections and repairs any drift
+ * left behind by partial failures between a line/payment write and its $inc.
+ * <p>
+ * A line or payment row is written before its $inc, so a scan can see drift that is only a write in
+ * flight; repairing it would count the row twice once the $inc lands. Drift is therefore only repaired
+ * when a second look, a settle interval later, finds the same totalsVersion and the same recomputed
+ * amounts. The run waits out that interval on its own thread so the shared scheduler is never held up.
+ */
+@Service
+public class InvoiceTotalsReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceTotalsReconciler.class);
+
+    private static final int BATCH_SIZE = 500;
+    // Rounds of settling invoices whose totals kept moving between looks
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceService invoiceService;
+    private final paymentRepository paymentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long settleNanos;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "totals-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InvoiceTotalsReconciler(InvoiceRepository invoiceRepository,
+                                   InvoiceService invoiceService,
+                                   paymentRepository paymentRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${invoice.totals.reconcile-settle-seconds:30}") long settleSeconds) {
+        this.invoiceRepository = invoiceRepository;
+        this.invoiceService = invoiceService;
+        this.paymentRepository = paymentRepository;
+        this.eventPublisher = eventPublisher;
+        this.settleNanos = Duration.ofSeconds(Math.max(0, settleSeconds)).toNanos();
+    }
+
+    @Scheduled(cron = "${invoice.totals.reconcile-cron:0 30 2 * * *}")
+    public void scheduledReconcile() {
+        try {
+            worker.execute(() -> {
+                try {
+                    reconcileAll();
+                } catch (Exception e) {
+                    logger.error("Invoice totals reconciliation failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Reconciler is shutting down, skipping this run");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Reconciles on the calling thread, which waits out the settle interval when drift is found.
+     */
+    public int reconcileAll() {
+        int scanned = 0;
+        List<Drift> drifted = new ArrayList<>();
+        PageRequest firstPage = PageRequest.of(0, BATCH_SIZE, Sort.by("id"));
+        List<Invoice> batch = invoiceRepository.findAll(firstPage).getContent();
+        while (!batch.isEmpty()) {
+            drifted.addAll(findDrift(batch));
+            scanned += batch.size();
+            String lastId = batch.get(batch.size() - 1).getId();
+            batch = invoiceRepository.findByIdGreaterThan(lastId, firstPage);
+        }
+        int repaired = repairSettled(drifted);
+        logger.info("Invoice totals reconciliation scanned {} invoices, {} drifted, repaired {}", scanned,
+                drifted.size(), repaired);
+        return repaired;
+    }
+
+    private int repairSettled(List<Drift> drifted) {
+        int repaired = 0;
+        List<Drift> pending = drifted;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            if (attempt > MAX_ATTEMPTS) {
+                logger.warn("Totals of {} invoices kept changing during reconciliation; left for the next run",
+                        pending.size());
+                break;
+            }
+            long wait = pending.get(pending.size() - 1).observedAt() + settleNanos - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            List<Drift> moved = new ArrayList<>();
+            for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+                List<Drift> chunk = pending.subList(from, Math.min(from + BATCH_SIZE, pending.size()));
+                Map<String, Drift> now = findDrift(invoiceRepository.findAllById(
+                        chunk.stream().map(Drift::invoiceId).toList())).stream()
+                        .collect(Collectors.toMap(Drift::invoiceId, Function.identity()));
+                for (Drift before : chunk) {
+                    Drift after = now.get(before.invoiceId());
+                    // Gone means the write in flight landed (or the invoice was removed)
+                    if (after == null) {
+                        continue;
+                    }
+                    if (after.sameAs(before) && repair(after)) {
+                        repaired++;
+                    } else {
+                        moved.add(after);
+                    }
+                }
+            }
+            pending = moved;
+        }
+        return repaired;
+    }
+
+    private List<Drift> findDrift(List<Invoice> invoices) {
+        List<String> invoiceNos = invoices.stream().map(Invoice::getInvoiceNo).filter(Objects::nonNull).toList();
+
+        // Resolves lines from either storage layout
+        invoiceService.buildInvoiceItemData(invoices);
+        Map<String, BigDecimal> paidByInvoiceNo = paymentRepository.sumAmountsByInvoiceNo(invoiceNos);
+        long observedAt = System.nanoTime();
+
+        List<Drift> drifted = new ArrayList<>();
+        for (Invoice invoice : invoices) {
+            BigDecimal totalAmount = InvoiceTotals.itemTotal(invoice.getItems());
+            BigDecimal paidAmount = paidByInvoiceNo.getOrDefault(invoice.getInvoiceNo(), BigDecimal.ZERO);
+            if (matches(invoice.getTotalAmount(), totalAmount)
+                    && matches(invoice.getPaidAmount(), paidAmount)
+                    && matches(invoice.getPendingAmount(), totalAmount.subtract(paidAmount))) {
+                continue;
+            }
+            drifted.add(new Drift(invoice.getId(), invoice.getInvoiceNo(), invoice.getTotalsVersion(),
+                    invoice.getTotalAmount(), invoice.getPaidAmount(), totalAmount, paidAmount, observedAt));
+        }
+        return drifted;
+    }
+
+    private boolean repair(Drift drift) {
+        if (!invoiceRepository.replaceTotals(drift.invoiceId(), drift.version(), drift.totalAmount(),
+                drift.paidAmount())) {
+            return false;
+        }
+        logger.warn("Repaired totals for invoice {}: total {} -> {}, paid {} -> {}", drift.invoiceNo(),
+                drift.storedTotal(), drift.totalAmount(), drift.storedPaid(), drift.paidAmount());
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofId(drift.invoiceId()));
+        return true;
+    }
+
+    private static boolean matches(BigDecimal stored, BigDecimal expected) {
+        return stored != null && stored.compareTo(expected) == 0;
+    }
+
+    private record Drift(String invoiceId, String invoiceNo, Long version, BigDecimal storedTotal,
+                         BigDecimal storedPaid, BigDecimal totalAmount, BigDecimal paidAmount, long observedAt) {
+
+        boolean sameAs(Drift earlier) {
+            return Objects.equals(version, earlier.version)
+                    && totalAmount.compareTo(earlier.totalAmount) == 0
+                    && paidAmount.compareTo(earlier.paidAmount) == 0;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.model.MigrationCheckpoint;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.ItemRepository;
+import com.example.Invoice_Hrms.repository.MigrationCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Moves rows from the items collection into their parent invoices in the background.
+ * Progress is checkpointed after every batch, so a restart resumes where the last run stopped.
+ * Only runs with invoice.items.embedded-writes on, which must be enabled on every node first so no
+ * node keeps writing lines to the items collection for invoices that are already embedded.
+ */
+@Service
+public class ItemEmbeddingMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemEmbeddingMigrator.class);
+
+    static final String MIGRATION_ID = "embed-items";
+
+    private final InvoiceRepository invoiceRepository;
+    private final ItemRepository itemRepository;
+    private final MigrationCheckpointRepository checkpointRepository;
+    private final boolean enabled;
+    private final boolean embeddedItemWrites;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ItemEmbeddingMigrator(InvoiceRepository invoiceRepository,
+                                 ItemRepository itemRepository,
+                                 MigrationCheckpointRepository checkpointRepository,
+                                 @Value("${invoice.items.migration.enabled:false}") boolean enabled,
+                                 @Value("${invoice.items.embedded-writes:true}") boolean embeddedItemWrites,
+                                 @Value("${invoice.items.migration.batch-size:200}") int batchSize,
+                                 @Value("${invoice.items.migration.pause-ms:100}") long pauseMillis) {
+        this.invoiceRepository = invoiceRepository;
+        this.itemRepository = itemRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.enabled = enabled;
+        this.embeddedItemWrites = embeddedItemWrites;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = pauseMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnBoot() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    public boolean start() {
+        if (!embeddedItemWrites) {
+            logger.warn("Item embedding migration needs invoice.items.embedded-writes=true; not starting");
+            return false;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread worker = new Thread(this::run, "item-embedding-migrator");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    private void run() {
+        try {
+            MigrationCheckpoint checkpoint = checkpointRepository.findById(MIGRATION_ID).orElseGet(() -> {
+                MigrationCheckpoint fresh = new MigrationCheckpoint();
+                fresh.setId(MIGRATION_ID);
+                return fresh;
+            });
+            if (checkpoint.isCompleted()) {
+                logger.info("Item embedding migration already completed ({} invoices)", checkpoint.getProcessed());
+                return;
+            }
+            logger.info("Item embedding migration starting after invoice {}", checkpoint.getLastId());
+
+            List<Invoice> batch;
+            while (!(batch = invoiceRepository.findNotEmbeddedAfter(checkpoint.getLastId(), batchSize)).isEmpty()) {
+                migrateBatch(batch);
+                checkpoint.setLastId(batch.get(batch.size() - 1).getId());
+                checkpoint.setProcessed(checkpoint.getProcessed() + batch.size());
+                checkpoint.setUpdatedAt(Instant.now());
+                checkpointRepository.save(checkpoint);
+                if (pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+
+            checkpoint.setCompleted(true);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointRepository.save(checkpoint);
+            logger.info("Item embedding migration completed ({} invoices)", checkpoint.getProcessed());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Item embedding migration stopped; it will resume from the last checkpoint", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void migrateBatch(List<Invoice> invoices) {
+        List<String> invoiceIds = invoices.stream().map(Invoice::getId).toList();
+        List<Item> items = itemRepository.findByInvoiceIdIn(invoiceIds);
+        Map<String, List<Item>> grouped = items.stream().collect(Collectors.groupingBy(Item::getInvoiceId));
+
+        Map<String, List<Item>> itemsByInvoiceId = new LinkedHashMap<>();
+        for (String invoiceId : invoiceIds) {
+            itemsByInvoiceId.put(invoiceId, grouped.getOrDefault(invoiceId, List.of()));
+        }
+        invoiceRepository.embedItems(itemsByInvoiceId);
+        // Delete exactly the rows that were copied; invoices embedded concurrently already removed theirs
+        if (!items.isEmpty()) {
+            itemRepository.deleteAllById(items.stream().map(Item::getId).toList());
+        }
+    }
+}
@@ -1,39 +1,58 @@
 package com.example.Invoice_Hrms.service;
 
 import com.example.Invoice_Hrms.dto.ItemMasterDto;
+import com.example.Invoice_Hrms.event.ItemMasterChangedEvent;
 import com.example.Invoice_Hrms.model.ItemMaster;
 import com.example.Invoice_Hrms.repository.ItemMasterRepository;
+import com.example.Invoice_Hrms.util.ReferenceDataCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 
 public class ItemMasterService {
 
     private  final ItemMasterRepository repository;
+    private  final ReferenceDataCache<ItemMasterDto> cache;
+    private final ApplicationEventPublisher eventPublisher;
 
 
-    public ItemMasterService(ItemMasterRepository repository) {
+    public ItemMasterService(ItemMasterRepository repository,
+                             ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${invoice.cache.reference.ttl-seconds:300}") long ttlSeconds,
+                             @Value("${invoice.cache.reference.max-entries:10000}") int maxEntries) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.cache = new ReferenceDataCache<>("itemMaster",
+                () -> repository.findAll().stream().map(this::toDto).toList(),
+                id -> repository.findById(id).map(this::toDto),
+                ItemMasterDto::getId, Duration.ofSeconds(ttlSeconds), maxEntries, objectMapper);
     }
     public List<ItemMasterDto> getAllItems() {
-        return repository.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return cache.get().values();
+    }
+
+    public ReferenceDataCache.Snapshot<ItemMasterDto> getItemSnapshot() {
+        return cache.get();
     }
 
     public ItemMasterDto getItemById(String id) {
-        return repository.findById(id)
-                .map(this::toDto)
-                .orElse(null);
+        return cache.find(id).orElse(null);
     }
 
     public ItemMasterDto createItem(ItemMasterDto dto) {
         ItemMaster item = toEntity(dto);
-        return toDto(repository.save(item));
+        ItemMasterDto saved = toDto(repository.save(item));
+        cache.invalidate();
+        eventPublisher.publishEvent(new ItemMasterChangedEvent(saved.getId()));
+        return saved;
     }
 
     public ItemMasterDto updateItem(String id, ItemMasterDto dto) {
@@ -42,13 +61,27 @@ public class ItemMasterService {
             ItemMaster item = optional.get();
             item.setItemName(dto.getItemName());
             item.setDescription(dto.getDescription());
-            return toDto(repository.save(item));
+            item.setRate(dto.getRate());
+            ItemMasterDto saved = toDto(repository.save(item));
+            cache.invalidate();
+            eventPublisher.publishEvent(new ItemMasterChangedEvent(id));
+            return saved;
         }
         return null;
     }
 
     public void deleteItem(String id) {
         repository.deleteById(id);
+        cache.invalidate();
+        eventPublisher.publishEvent(new ItemMasterChangedEvent(id));
+    }
+
+    /**
+     * Called when another replica changed an item master; itemId is null when which one is unknown.
+     */
+    public void evictCache(String itemId) {
+        cache.invalidate();
+        eventPublisher.publishEvent(new ItemMasterChangedEvent(itemId));
     }
 
     private ItemMasterDto toDto(ItemMaster item) {
@@ -56,6 +89,7 @@ public class ItemMasterService {
         dto.setId(item.getId());
         dto.setItemName(item.getItemName());
         dto.setDescription(item.getDescription());
+        dto.setRate(item.getRate());
         return dto;
     }
 
@@ -64,6 +98,7 @@ public class ItemMasterService {
         item.setId(dto.getId());
         item.setItemName(dto.getItemName());
         item.setDescription(dto.getDescription());
+        item.setRate(dto.getRate());
         return item;
     }
 }
@@ -0,0 +1,331 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.dto.BulkMailRequestDto;
+import com.example.Invoice_Hrms.dto.BulkMailResponseDto;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.MailOutboxMessage;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.MailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Durable queue of invoice emails. Requests only insert outbox documents; a scheduled dispatcher
+ * renders the PDFs, sends them in rate-limited batches that share one SMTP connection, and records
+ * the outcome of every message. Sending runs on its own thread, one bounded batch per poll, so rate
+ * limiting never holds up the shared scheduler. Messages survive restarts and are retried with exponential backoff.
+ * Overdue reminders travel the same queue as one digest per recipient, without a PDF.
+ */
+@Service
+public class MailOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutboxService.class);
+
+    private static final int FILTER_PAGE_SIZE = 500;
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final MailOutboxRepository outboxRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceService invoiceService;
+    private final InvoicePdfService invoicePdfService;
+    private final InvoiceEmailService invoiceEmailService;
+    private final int batchSize;
+    private final int messagesPerSecond;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "mail-outbox-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+
+    public MailOutboxService(MailOutboxRepository outboxRepository,
+                             InvoiceRepository invoiceRepository,
+                             InvoiceService invoiceService,
+                             InvoicePdfService invoicePdfService,
+                             InvoiceEmailService invoiceEmailService,
+                             @Value("${invoice.mail.outbox.batch-size:50}") int batchSize,
+                             @Value("${invoice.mail.outbox.messages-per-second:5}") int messagesPerSecond,
+                             @Value("${invoice.mail.outbox.max-attempts:5}") int maxAttempts,
+                             @Value("${invoice.mail.outbox.initial-backoff-seconds:30}") long initialBackoffSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.invoiceService = invoiceService;
+        this.invoicePdfService = invoicePdfService;
+        this.invoiceEmailService = invoiceEmailService;
+        this.batchSize = Math.max(1, batchSize);
+        this.messagesPerSecond = Math.max(1, messagesPerSecond);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = Duration.ofSeconds(initialBackoffSeconds);
+    }
+
+    public BulkMailResponseDto enqueue(BulkMailRequestDto request) {
+        List<Invoice> invoices;
+        List<String> skipped = new ArrayList<>();
+        if (request.getInvoiceNos() != null && !request.getInvoiceNos().isEmpty()) {
+            invoices = invoiceRepository.findLiveByInvoiceNoIn(request.getInvoiceNos());
+            Map<String, Invoice> byNo = invoices.stream()
+                    .collect(Collectors.toMap(Invoice::getInvoiceNo, Function.identity(), (a, b) -> a));
+            request.getInvoiceNos().stream()
+                    .filter(no -> !byNo.containsKey(no))
+                    .forEach(skipped::add);
+        } else if (request.getFilter() != null) {
+            invoices = findByFilter(request);
+        } else {
+            throw new IllegalArgumentException("Either invoiceNos or filter is required");
+        }
+
+        Instant now = Instant.now();
+        List<MailOutboxMessage> messages = new ArrayList<>();
+        for (Invoice invoice : invoices) {
+            if (invoice.getInvoiceEmail() == null || invoice.getInvoiceEmail().isBlank()) {
+                skipped.add(invoice.getInvoiceNo());
+                continue;
+            }
+            MailOutboxMessage message = new MailOutboxMessage();
+            message.setType(MailOutboxMessage.TYPE_INVOICE);
+            message.setInvoiceId(invoice.getId());
+            message.setInvoiceNo(invoice.getInvoiceNo());
+            message.setRecipientEmail(invoice.getInvoiceEmail());
+            message.setStatus(MailOutboxMessage.STATUS_PENDING);
+            message.setNextAttemptAt(now);
+            message.setCreatedAt(now);
+            messages.add(message);
+        }
+
+        List<String> ids = outboxRepository.insert(messages).stream()
+                .map(MailOutboxMessage::getId)
+                .toList();
+        logger.info("Queued {} invoice emails, skipped {}", ids.size(), skipped.size());
+        return new BulkMailResponseDto(ids.size(), ids, skipped);
+    }
+
+    /**
+     * Queues one overdue digest per recipient and returns the number of messages queued.
+     */
+    public int enqueueOverdueDigests(Map<String, List<Invoice>> invoicesByRecipient) {
+        Instant now = Instant.now();
+        List<MailOutboxMessage> messages = new ArrayList<>();
+        invoicesByRecipient.forEach((recipient, invoices) -> {
+            MailOutboxMessage message = new MailOutboxMessage();
+            message.setType(MailOutboxMessage.TYPE_OVERDUE_DIGEST);
+            message.setInvoiceIds(invoices.stream().map(Invoice::getId).toList());
+            message.setRecipientEmail(recipient);
+            message.setStatus(MailOutboxMessage.STATUS_PENDING);
+            message.setNextAttemptAt(now);
+            message.setCreatedAt(now);
+            messages.add(message);
+        });
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        int queued = outboxRepository.insert(messages).size();
+        logger.info("Queued {} overdue digests", queued);
+        return queued;
+    }
+
+    public MailOutboxMessage getMessage(String id) {
+        return outboxRepository.findById(id).orElse(null);
+    }
+
+    public long getPendingCount() {
+        return outboxRepository.countByStatus(MailOutboxMessage.STATUS_PENDING);
+    }
+
+    @Scheduled(fixedDelayString = "${invoice.mail.outbox.poll-interval-ms:5000}",
+            initialDelayString = "${invoice.mail.outbox.initial-delay-ms:30000}")
+    public void dispatch() {
+        // A batch still sending when the next poll fires is left alone; that poll is skipped
+        if (!dispatching.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    dispatchBatch();
+                } catch (Exception e) {
+                    logger.error("Mail outbox dispatch failed", e);
+                } finally {
+                    dispatching.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            dispatching.set(false);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private int dispatchBatch() {
+        List<MailOutboxMessage> claimed = new ArrayList<>();
+        MailOutboxMessage next;
+        while (claimed.size() < batchSize && (next = outboxRepository.claimNext(LEASE)) != null) {
+            claimed.add(next);
+        }
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Invoice> invoices = invoiceService.getInvoicesByIds(
+                        claimed.stream()
+                                .flatMap(message -> message.isOverdueDigest()
+                                        ? message.getInvoiceIds().stream()
+                                        : Stream.of(message.getInvoiceId()))
+                                .distinct()
+                                .toList())
+                .stream()
+                .collect(Collectors.toMap(Invoice::getId, Function.identity()));
+
+        // Render everything up front so the pool works on all PDFs in parallel
+        Map<MailOutboxMessage, CompletableFuture<byte[]>> renders = new LinkedHashMap<>();
+        Map<MimeMessage, MailOutboxMessage> ready = new LinkedHashMap<>();
+        for (MailOutboxMessage message : claimed) {
+            if (message.isOverdueDigest()) {
+                prepareDigest(message, invoices, ready);
+                continue;
+            }
+            Invoice invoice = invoices.get(message.getInvoiceId());
+            if (invoice == null) {
+                markFailed(message, "Invoice no longer exists", false);
+                continue;
+            }
+            if (invoice.isDeleted()) {
+                markFailed(message, "Invoice was deleted", false);
+                continue;
+            }
+            renders.put(message, invoicePdfService.renderAsync(invoice));
+        }
+
+        for (Map.Entry<MailOutboxMessage, CompletableFuture<byte[]>> entry : renders.entrySet()) {
+            MailOutboxMessage message = entry.getKey();
+            try {
+                byte[] pdf = entry.getValue().join();
+                ready.put(invoiceEmailService.buildInvoiceMessage(message.getInvoiceNo(), pdf,
+                        message.getRecipientEmail()), message);
+            } catch (Exception e) {
+                markFailed(message, "PDF rendering failed: " + e.getMessage(), true);
+            }
+        }
+
+        List<MimeMessage> pending = new ArrayList<>(ready.keySet());
+        for (int from = 0; from < pending.size(); from += messagesPerSecond) {
+            long started = System.nanoTime();
+            List<MimeMessage> chunk = pending.subList(from, Math.min(from + messagesPerSecond, pending.size()));
+            Map<MimeMessage, Exception> failures = invoiceEmailService.sendAll(chunk);
+            for (MimeMessage mime : chunk) {
+                MailOutboxMessage message = ready.get(mime);
+                Exception failure = failures.get(mime);
+                if (failure != null) {
+                    markFailed(message, failure.getMessage(), true);
+                } else {
+                    markSent(message);
+                }
+            }
+            throttle(started);
+        }
+        return claimed.size();
+    }
+
+    private void prepareDigest(MailOutboxMessage message, Map<String, Invoice> invoices,
+                               Map<MimeMessage, MailOutboxMessage> ready) {
+        // Invoices settled or deleted since the scan are dropped rather than chased again
+        List<Invoice> stillOverdue = message.getInvoiceIds().stream()
+                .map(invoices::get)
+                .filter(invoice -> invoice != null && !invoice.isDeleted()
+                        && Invoice.STATUS_OVERDUE.equals(invoice.getInvoiceStatus()))
+                .toList();
+        if (stillOverdue.isEmpty()) {
+            markFailed(message, "No invoices are overdue any more", false);
+            return;
+        }
+        try {
+            ready.put(invoiceEmailService.buildOverdueDigest(message.getRecipientEmail(), stillOverdue), message);
+        } catch (Exception e) {
+            markFailed(message, "Building overdue digest failed: " + e.getMessage(), true);
+        }
+    }
+
+    private void throttle(long startedNanos) {
+        long remainingMillis = 1000 - Duration.ofNanos(System.nanoTime() - startedNanos).toMillis();
+        if (remainingMillis > 0) {
+            try {
+                Thread.sleep(remainingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void markSent(MailOutboxMessage message) {
+        message.setStatus(MailOutboxMessage.STATUS_SENT);
+        message.setSentAt(Instant.now());
+        message.setLastError(null);
+        complete(message);
+    }
+
+    private void markFailed(MailOutboxMessage message, String error, boolean retryable) {
+        message.setLastError(error);
+        if (retryable && message.getAttempts() < maxAttempts) {
+            long factor = 1L << Math.min(message.getAttempts() - 1, 20);
+            Duration backoff = initialBackoff.multipliedBy(factor);
+            message.setStatus(MailOutboxMessage.STATUS_PENDING);
+            message.setNextAttemptAt(Instant.now().plus(backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff));
+        } else {
+            message.setStatus(MailOutboxMessage.STATUS_FAILED);
+        }
+        logger.warn("Invoice email {} for {} failed (attempt {}): {}", message.getId(),
+                message.getInvoiceNo() != null ? message.getInvoiceNo() : message.getRecipientEmail(),
+                message.getAttempts(), error);
+        complete(message);
+    }
+
+    // Conditional on this dispatcher's claim, so a message re-claimed after its lease ran out isn't overwritten
+    private void complete(MailOutboxMessage message) {
+        boolean recorded = outboxRepository.completeClaim(message.getId(), message.getAttempts(),
+                message.getStatus(), message.getLastError(), message.getSentAt(),
+                MailOutboxMessage.STATUS_PENDING.equals(message.getStatus()) ? message.getNextAttemptAt() : null);
+        if (!recorded) {
+            logger.warn("Lease on invoice email {} ran out before its outcome ({}) was recorded; "
+                    + "another dispatcher has claimed it", message.getId(), message.getStatus());
+        }
+    }
+
+    private List<Invoice> findByFilter(BulkMailRequestDto request) {
+        List<Invoice> invoices = new ArrayList<>();
+        List<Invoice> page = invoiceRepository.findPage(request.getFilter(), null, null, FILTER_PAGE_SIZE);
+        while (!page.isEmpty()) {
+            invoices.addAll(page);
+            if (page.size() < FILTER_PAGE_SIZE) {
+                break;
+            }
+            Invoice last = page.get(page.size() - 1);
+            page = invoiceRepository.findPage(request.getFilter(), last.getInvoiceDate(), last.getId(), FILTER_PAGE_SIZE);
+        }
+        return invoices;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.dto.OverdueScanResultDto;
+import com.example.Invoice_Hrms.event.InvoiceChangedEvent;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves open invoices past their due date to Overdue and queues one reminder digest per customer email.
+ * Candidates are read off the status/dueDate index, so a run only touches invoices that become overdue;
+ * ones already marked fall out of the index range and are never read again.
+ */
+@Service
+public class OverdueInvoiceScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(OverdueInvoiceScanner.class);
+
+    private final InvoiceRepository invoiceRepository;
+    private final MailOutboxService mailOutboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int pageSize;
+    private final boolean remindersEnabled;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public OverdueInvoiceScanner(InvoiceRepository invoiceRepository,
+                                 MailOutboxService mailOutboxService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${invoice.overdue.page-size:500}") int pageSize,
+                                 @Value("${invoice.overdue.reminders-enabled:true}") boolean remindersEnabled) {
+        this.invoiceRepository = invoiceRepository;
+        this.mailOutboxService = mailOutboxService;
+        this.eventPublisher = eventPublisher;
+        this.pageSize = Math.max(1, pageSize);
+        this.remindersEnabled = remindersEnabled;
+    }
+
+    @Scheduled(cron = "${invoice.overdue.scan-cron:0 0 6 * * *}")
+    public void scheduledScan() {
+        try {
+            scan(LocalDate.now());
+        } catch (Exception e) {
+            logger.error("Overdue invoice scan failed", e);
+        }
+    }
+
+    /**
+     * Returns null when a scan is already running in this instance.
+     */
+    public OverdueScanResultDto scan(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            return doScan(today);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private OverdueScanResultDto doScan(LocalDate today) {
+        long started = System.currentTimeMillis();
+        Instant markedAt = Instant.now();
+        // Two scans can start in the same millisecond, so flips are claimed by token rather than by time
+        String runId = UUID.randomUUID().toString();
+        Map<String, List<Invoice>> byRecipient = new LinkedHashMap<>();
+        long marked = 0;
+
+        List<Invoice> page = invoiceRepository.findNewlyOverdue(today, null, null, pageSize);
+        while (!page.isEmpty()) {
+            // Only invoices this call flipped get a reminder, so concurrent scans never remind twice
+            Set<String> flipped = new HashSet<>(invoiceRepository.markOverdue(
+                    page.stream().map(Invoice::getId).toList(), today, markedAt, runId));
+            for (Invoice invoice : page) {
+                if (!flipped.contains(invoice.getId())) {
+                    continue;
+                }
+                marked++;
+                eventPublisher.publishEvent(InvoiceChangedEvent.ofId(invoice.getId()));
+                String recipient = normalizeEmail(invoice.getInvoiceEmail());
+                if (recipient != null) {
+                    byRecipient.computeIfAbsent(recipient, key -> new ArrayList<>()).add(invoice);
+                }
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            Invoice last = page.get(page.size() - 1);
+            page = invoiceRepository.findNewlyOverdue(today, last.getDueDate(), last.getId(), pageSize);
+        }
+
+        int queued = remindersEnabled ? mailOutboxService.enqueueOverdueDigests(byRecipient) : 0;
+        long elapsed = System.currentTimeMillis() - started;
+        logger.info("Overdue scan for {} marked {} invoices and queued {} reminders in {} ms",
+                today, marked, queued, elapsed);
+        return new OverdueScanResultDto(today, marked, queued, elapsed);
+    }
+
+    private static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
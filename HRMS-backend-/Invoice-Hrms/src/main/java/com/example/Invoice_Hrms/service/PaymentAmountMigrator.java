@@ -0,0 +1,104 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.model.MigrationCheckpoint;
+import com.example.Invoice_Hrms.repository.MigrationCheckpointRepository;
+import com.example.Invoice_Hrms.repository.paymentRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One-time rewrite of payment amounts stored as doubles (or strings) into Decimal128, in the background.
+ * Doubles are converted through their shortest decimal representation, so a stored 0.1 becomes exactly
+ * 0.1. Progress is checkpointed after every batch and a restart resumes where the last run stopped.
+ * Payments keep working during the migration since amounts of any stored type are read.
+ */
+@Service
+public class PaymentAmountMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentAmountMigrator.class);
+
+    static final String MIGRATION_ID = "payment-amounts-decimal128";
+
+    private final paymentRepository paymentRepository;
+    private final MigrationCheckpointRepository checkpointRepository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PaymentAmountMigrator(paymentRepository paymentRepository,
+                                 MigrationCheckpointRepository checkpointRepository,
+                                 @Value("${invoice.payments.migration.enabled:true}") boolean enabled,
+                                 @Value("${invoice.payments.migration.batch-size:500}") int batchSize,
+                                 @Value("${invoice.payments.migration.pause-ms:50}") long pauseMillis) {
+        this.paymentRepository = paymentRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = pauseMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnBoot() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread worker = new Thread(this::run, "payment-amount-migrator");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    private void run() {
+        try {
+            MigrationCheckpoint checkpoint = checkpointRepository.findById(MIGRATION_ID).orElseGet(() -> {
+                MigrationCheckpoint fresh = new MigrationCheckpoint();
+                fresh.setId(MIGRATION_ID);
+                return fresh;
+            });
+            if (checkpoint.isCompleted()) {
+                return;
+            }
+            logger.info("Payment amount migration starting after payment {}", checkpoint.getLastId());
+
+            List<Document> batch;
+            while (!(batch = paymentRepository.findLegacyAmountsAfter(checkpoint.getLastId(), batchSize)).isEmpty()) {
+                int converted = paymentRepository.convertAmounts(batch);
+                checkpoint.setLastId(batch.get(batch.size() - 1).get("_id").toString());
+                checkpoint.setProcessed(checkpoint.getProcessed() + converted);
+                checkpoint.setUpdatedAt(Instant.now());
+                checkpointRepository.save(checkpoint);
+                if (pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+
+            checkpoint.setCompleted(true);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointRepository.save(checkpoint);
+            logger.info("Payment amount migration completed ({} payments converted)", checkpoint.getProcessed());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Payment amount migration stopped; it will resume from the last checkpoint", e);
+        } finally {
+            running.set(false);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.dto.BulkPaymentResultDto;
+import com.example.Invoice_Hrms.dto.BulkPaymentRowErrorDto;
+import com.example.Invoice_Hrms.event.InvoiceChangedEvent;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.payment;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.paymentRepository;
+import com.example.Invoice_Hrms.util.CsvReader;
+import com.example.Invoice_Hrms.util.Money;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports payments in bulk (for example a bank statement) from a JSON array or CSV upload.
+ * The upload is read as a stream and handled in chunks: one invoice lookup, one unordered insert and
+ * one invoice balance/status update per chunk, regardless of how many rows it holds.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentImportService.class);
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final paymentRepository paymentRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceService invoiceService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private record PaymentRow(long row, String invoiceNo, String paymentAmount, String paymentDate,
+                              String paymentMethod, String referenceNo) {
+    }
+
+    /**
+     * Expects a JSON array of objects with the paymentDto fields.
+     */
+    public BulkPaymentResultDto importJson(InputStream in) throws IOException {
+        ImportRun run = new ImportRun();
+        List<PaymentRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        long row = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of payments");
+            }
+            try {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                    row++;
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        run.reject(row, null, "Expected a payment object");
+                        continue;
+                    }
+                    JsonNode node = objectMapper.readTree(parser);
+                    chunk.add(new PaymentRow(row, text(node, "invoiceNo"), text(node, "paymentAmount"),
+                            text(node, "paymentDate"), text(node, "paymentMethod"), text(node, "referenceNo")));
+                    if (chunk.size() == CHUNK_SIZE) {
+                        run.process(chunk);
+                        chunk.clear();
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                // Everything before the syntax error is still imported
+                run.reject(row + 1, null, "Malformed JSON, import stopped: " + e.getOriginalMessage());
+            }
+        }
+        run.process(chunk);
+        return run.finish();
+    }
+
+    /**
+     * Expects a header row naming the columns invoiceNo, paymentAmount, paymentDate, paymentMethod and
+     * referenceNo, in any order; only invoiceNo and paymentAmount are required.
+     */
+    public BulkPaymentResultDto importCsv(InputStream in) throws IOException {
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        List<String> header = reader.readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV upload is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("invoiceno") || !columns.containsKey("paymentamount")) {
+            throw new IllegalArgumentException("CSV header must include invoiceNo and paymentAmount");
+        }
+
+        ImportRun run = new ImportRun();
+        List<PaymentRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        long row = 0;
+        List<String> record;
+        try {
+            while ((record = reader.readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                row++;
+                chunk.add(new PaymentRow(row, column(record, columns, "invoiceno"), column(record, columns, "paymentamount"),
+                        column(record, columns, "paymentdate"), column(record, columns, "paymentmethod"),
+                        column(record, columns, "referenceno")));
+                if (chunk.size() == CHUNK_SIZE) {
+                    run.process(chunk);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            run.reject(row + 1, null, "Malformed CSV, import stopped: " + e.getMessage());
+        }
+        run.process(chunk);
+        return run.finish();
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Counters and error report for one upload.
+     */
+    private final class ImportRun {
+        private final long started = System.nanoTime();
+        private final List<BulkPaymentRowErrorDto> errors = new ArrayList<>();
+        private long totalRows;
+        private long inserted;
+        private int invoicesUpdated;
+
+        private void reject(long row, String invoiceNo, String message) {
+            totalRows = Math.max(totalRows, row);
+            errors.add(new BulkPaymentRowErrorDto(row, invoiceNo, message));
+        }
+
+        private void process(List<PaymentRow> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            totalRows = Math.max(totalRows, rows.get(rows.size() - 1).row());
+
+            Map<String, Invoice> invoices = invoiceRepository.findLiveByInvoiceNoIn(rows.stream()
+                            .map(PaymentRow::invoiceNo)
+                            .filter(no -> no != null && !no.isBlank())
+                            .distinct()
+                            .toList())
+                    .stream()
+                    .collect(Collectors.toMap(Invoice::getInvoiceNo, Function.identity(), (a, b) -> a));
+            materializeTotals(invoices.values());
+
+            List<payment> payments = new ArrayList<>();
+            List<PaymentRow> accepted = new ArrayList<>();
+            for (PaymentRow row : rows) {
+                String error = validate(row, invoices);
+                if (error != null) {
+                    reject(row.row(), row.invoiceNo(), error);
+                    continue;
+                }
+                payment payment = new payment();
+                payment.setId(new ObjectId().toHexString());
+                payment.setInvoiceNo(row.invoiceNo());
+                payment.setPaymentAmount(new BigDecimal(row.paymentAmount()));
+                payment.setPaymentDate(row.paymentDate() != null ? LocalDate.parse(row.paymentDate()) : null);
+                payment.setPaymentMethod(row.paymentMethod());
+                payment.setReferanceNo(row.referenceNo());
+                payments.add(payment);
+                accepted.add(row);
+            }
+
+            Map<Integer, String> failures = paymentRepository.insertUnordered(payments);
+            Map<String, BigDecimal> paidDeltas = new LinkedHashMap<>();
+            for (int i = 0; i < payments.size(); i++) {
+                String failure = failures.get(i);
+                if (failure != null) {
+                    reject(accepted.get(i).row(), accepted.get(i).invoiceNo(), failure);
+                    continue;
+                }
+                payment payment = payments.get(i);
+                paidDeltas.merge(payment.getInvoiceNo(), payment.getPaymentAmount(), BigDecimal::add);
+                inserted++;
+            }
+
+            invoiceRepository.applyPayments(paidDeltas);
+            invoicesUpdated += paidDeltas.size();
+            paidDeltas.keySet().forEach(no -> eventPublisher.publishEvent(InvoiceChangedEvent.ofInvoiceNo(no)));
+        }
+
+        private String validate(PaymentRow row, Map<String, Invoice> invoices) {
+            if (row.invoiceNo() == null || row.invoiceNo().isBlank()) {
+                return "invoiceNo is required";
+            }
+            if (!invoices.containsKey(row.invoiceNo())) {
+                return "Unknown invoice number";
+            }
+            if (row.paymentAmount() == null) {
+                return "paymentAmount is required";
+            }
+            try {
+                BigDecimal amount = new BigDecimal(row.paymentAmount());
+                if (amount.signum() <= 0) {
+                    return "paymentAmount must be positive";
+                }
+                String currency = invoices.get(row.invoiceNo()).getInvoiceCurrency();
+                if (!Money.fitsCurrency(amount, currency)) {
+                    return "paymentAmount has more than " + Money.scaleOf(currency) + " decimals";
+                }
+            } catch (NumberFormatException e) {
+                return "paymentAmount is not a number: " + row.paymentAmount();
+            }
+            if (row.paymentDate() != null) {
+                try {
+                    LocalDate.parse(row.paymentDate());
+                } catch (DateTimeParseException e) {
+                    return "paymentDate must be yyyy-MM-dd: " + row.paymentDate();
+                }
+            }
+            return null;
+        }
+
+        // Balances must exist before they can be shifted by the chunk's payments
+        private void materializeTotals(Collection<Invoice> invoices) {
+            List<Invoice> missing = invoices.stream().filter(invoice -> invoice.getTotalAmount() == null).toList();
+            if (missing.isEmpty()) {
+                return;
+            }
+            invoiceService.fillMissingTotals(missing);
+            for (Invoice invoice : missing) {
+                invoiceRepository.replaceTotals(invoice.getId(), invoice.getTotalsVersion(), invoice.getTotalAmount(),
+                        invoice.getPaidAmount());
+            }
+        }
+
+        private BulkPaymentResultDto finish() {
+            long elapsedNanos = System.nanoTime() - started;
+            long elapsedMillis = elapsedNanos / 1_000_000;
+            double rowsPerSecond = elapsedNanos > 0 ? totalRows * 1_000_000_000.0 / elapsedNanos : 0;
+            logger.info("Imported {} of {} payment rows in {} ms ({} rows/s), {} invoices updated",
+                    inserted, totalRows, elapsedMillis, Math.round(rowsPerSecond), invoicesUpdated);
+            return new BulkPaymentResultDto(totalRows, inserted, totalRows - inserted, invoicesUpdated, errors,
+                    elapsedMillis, rowsPerSecond);
+        }
+    }
+}
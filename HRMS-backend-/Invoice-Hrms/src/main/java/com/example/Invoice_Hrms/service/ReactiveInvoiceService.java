@@ -0,0 +1,69 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.model.payment;
+import com.example.Invoice_Hrms.repository.reactive.ReactiveInvoiceRepository;
+import com.example.Invoice_Hrms.repository.reactive.ReactiveItemRepository;
+import com.example.Invoice_Hrms.repository.reactive.ReactivePaymentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of the invoice listing in {@link InvoiceService}. Invoices are emitted as
+ * the Mongo cursor produces them; line items are attached per batch with one $in query, so memory
+ * stays bounded by the batch size rather than the result set.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveInvoiceService {
+
+    private static final int ITEM_LOOKUP_BATCH_SIZE = 200;
+    private static final Sort BY_ID = Sort.by("id");
+
+    private final ReactiveInvoiceRepository invoiceRepository;
+    private final ReactiveItemRepository itemRepository;
+    private final ReactivePaymentRepository paymentRepository;
+
+    public Flux<Invoice> streamInvoices(String invoiceStatus) {
+        // concatMap keeps cursor order and only requests the next batch once this one is written
+        return invoiceRepository.findLive(invoiceStatus, BY_ID).buffer(ITEM_LOOKUP_BATCH_SIZE).concatMap(this::attachItems);
+    }
+
+    public Flux<payment> streamPayments() {
+        return paymentRepository.findAll(BY_ID);
+    }
+
+    private Flux<Invoice> attachItems(List<Invoice> batch) {
+        List<String> ids = batch.stream()
+                .filter(invoice -> !Boolean.TRUE.equals(invoice.getItemsEmbedded()))
+                .map(Invoice::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return Flux.fromIterable(batch);
+        }
+        return itemRepository.findByInvoiceIdIn(ids)
+                .collectMultimap(Item::getInvoiceId)
+                .flatMapMany(byInvoice -> {
+                    for (Invoice invoice : batch) {
+                        if (!Boolean.TRUE.equals(invoice.getItemsEmbedded())) {
+                            invoice.setItems(toList(byInvoice.get(invoice.getId())));
+                        }
+                    }
+                    return Flux.fromIterable(batch);
+                });
+    }
+
+    private static List<Item> toList(Collection<Item> items) {
+        return items != null ? new ArrayList<>(items) : new ArrayList<>();
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.dto.ReceivablesDashboardDto;
+import com.example.Invoice_Hrms.event.InvoiceChangedEvent;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.ReceivablesContribution;
+import com.example.Invoice_Hrms.model.ReceivablesRollup;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.ReceivablesContributionRepository;
+import com.example.Invoice_Hrms.repository.ReceivablesRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Receivables dashboard served from the receivables_rollups summary collection.
+ * <p>
+ * A full aggregation rebuild runs nightly (which also moves invoices between aging buckets as they get
+ * older). In between, every invoice or payment write marks the invoice dirty and a short-interval flush
+ * applies only the difference between its stored contribution and its current state.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReceivablesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReceivablesService.class);
+
+    private static final int FLUSH_BATCH_SIZE = 1000;
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceService invoiceService;
+    private final ReceivablesRollupRepository rollupRepository;
+    private final ReceivablesContributionRepository contributionRepository;
+
+    private final Set<String> dirtyInvoiceIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyInvoiceNos = ConcurrentHashMap.newKeySet();
+    // Flushes and rebuilds both rewrite contributions, so they never overlap
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public ReceivablesDashboardDto getDashboard() {
+        Map<String, List<ReceivablesRollup>> byDimension = rollupRepository.findAll().stream()
+                .collect(Collectors.groupingBy(ReceivablesRollup::getDimension));
+        Comparator<ReceivablesRollup> largestPendingFirst =
+                Comparator.comparing(ReceivablesRollup::getPendingAmount, Comparator.nullsLast(Comparator.reverseOrder()));
+        Instant refreshedAt = byDimension.values().stream()
+                .flatMap(List::stream)
+                .map(ReceivablesRollup::getUpdatedAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        return new ReceivablesDashboardDto(
+                sorted(byDimension, ReceivablesRollup.DIMENSION_STATUS, largestPendingFirst),
+                sorted(byDimension, ReceivablesRollup.DIMENSION_COMPANY, largestPendingFirst),
+                sorted(byDimension, ReceivablesRollup.DIMENSION_CURRENCY, largestPendingFirst),
+                sorted(byDimension, ReceivablesRollup.DIMENSION_AGING, Comparator.comparing(ReceivablesRollup::getKey)),
+                refreshedAt);
+    }
+
+    private static List<ReceivablesRollup> sorted(Map<String, List<ReceivablesRollup>> byDimension, String dimension,
+                                                  Comparator<ReceivablesRollup> order) {
+        List<ReceivablesRollup> rows = new ArrayList<>(byDimension.getOrDefault(dimension, List.of()));
+        rows.sort(order);
+        return rows;
+    }
+
+    @EventListener
+    public void onInvoiceChanged(InvoiceChangedEvent event) {
+        if (event.invoiceId() != null) {
+            dirtyInvoiceIds.add(event.invoiceId());
+        }
+        if (event.invoiceNo() != null) {
+            dirtyInvoiceNos.add(event.invoiceNo());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                if (rollupRepository.count() == 0) {
+                    rebuild();
+                }
+            } catch (Exception e) {
+                logger.warn("Could not build receivables rollups at startup: {}", e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(cron = "${invoice.reports.rollup-rebuild-cron:0 15 1 * * *}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Receivables rollup rebuild failed", e);
+        }
+    }
+
+    /**
+     * Recomputes every rollup from scratch. Returns false without doing anything when a rebuild or
+     * flush is already running.
+     */
+    public boolean rebuild() {
+        if (!refreshLock.tryLock()) {
+            return false;
+        }
+        try {
+            long started = System.nanoTime();
+            rollupRepository.rebuild();
+            logger.info("Rebuilt receivables rollups in {} ms", (System.nanoTime() - started) / 1_000_000);
+            return true;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${invoice.reports.rollup-flush-ms:2000}", initialDelayString = "${invoice.reports.rollup-flush-ms:2000}")
+    public void flushChanges() {
+        if (dirtyInvoiceIds.isEmpty() && dirtyInvoiceNos.isEmpty()) {
+            return;
+        }
+        // Don't hold up the scheduler behind a rebuild; the changes wait for the next run
+        if (!refreshLock.tryLock()) {
+            return;
+        }
+        Set<String> ids = drain(dirtyInvoiceIds);
+        Set<String> invoiceNos = drain(dirtyInvoiceNos);
+        try {
+            applyChanges(ids, invoiceNos);
+        } catch (Exception e) {
+            // Put them back so the next flush retries
+            dirtyInvoiceIds.addAll(ids);
+            dirtyInvoiceNos.addAll(invoiceNos);
+            logger.error("Receivables rollup flush failed for {} invoices", ids.size() + invoiceNos.size(), e);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void applyChanges(Set<String> ids, Set<String> invoiceNos) {
+        Map<String, Invoice> invoices = new LinkedHashMap<>();
+        invoiceRepository.findAllById(ids).forEach(invoice -> invoices.put(invoice.getId(), invoice));
+        if (!invoiceNos.isEmpty()) {
+            invoiceRepository.findLiveByInvoiceNoIn(invoiceNos).forEach(invoice -> invoices.put(invoice.getId(), invoice));
+        }
+        invoiceService.fillMissingTotals(new ArrayList<>(invoices.values()));
+
+        Set<String> affectedIds = new LinkedHashSet<>(ids);
+        affectedIds.addAll(invoices.keySet());
+        Map<String, ReceivablesContribution> previous = new LinkedHashMap<>();
+        contributionRepository.findAllById(affectedIds).forEach(c -> previous.put(c.getId(), c));
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Map<String, ReceivablesRollup> deltas = new LinkedHashMap<>();
+        List<ReceivablesContribution> upserts = new ArrayList<>();
+        List<String> removals = new ArrayList<>();
+        for (String id : affectedIds) {
+            Invoice invoice = invoices.get(id);
+            ReceivablesContribution current = invoice != null && !invoice.isDeleted()
+                    ? contributionOf(invoice, today)
+                    : null;
+            ReceivablesContribution before = previous.get(id);
+            if (Objects.equals(before, current)) {
+                continue;
+            }
+            if (before != null) {
+                addDeltas(deltas, before, -1);
+            }
+            if (current != null) {
+                addDeltas(deltas, current, 1);
+                upserts.add(current);
+            } else if (before != null) {
+                removals.add(id);
+            }
+        }
+
+        rollupRepository.applyDeltas(deltas.values());
+        contributionRepository.saveAll(upserts);
+        contributionRepository.deleteAllById(removals);
+        logger.debug("Applied receivables changes for {} invoices", upserts.size() + removals.size());
+    }
+
+    private static ReceivablesContribution contributionOf(Invoice invoice, LocalDate today) {
+        ReceivablesContribution contribution = new ReceivablesContribution();
+        contribution.setId(invoice.getId());
+        contribution.setInvoiceStatus(Objects.requireNonNullElse(invoice.getInvoiceStatus(), ""));
+        contribution.setInvoiceCompanyName(Objects.requireNonNullElse(invoice.getInvoiceCompanyName(), ""));
+        contribution.setInvoiceCurrency(Objects.requireNonNullElse(invoice.getInvoiceCurrency(), ""));
+        BigDecimal total = invoice.getTotalAmount();
+        BigDecimal paid = Objects.requireNonNullElse(invoice.getPaidAmount(), BigDecimal.ZERO);
+        BigDecimal pending = total.subtract(paid);
+        contribution.setTotalAmount(total);
+        contribution.setPaidAmount(paid);
+        contribution.setPendingAmount(pending);
+        contribution.setAgingBucket(agingBucket(invoice.getDueDate(), pending, today));
+        return contribution;
+    }
+
+    /**
+     * Days past due, bucketed. Kept in step with the $switch in ReceivablesRollupRepositoryImpl.
+     */
+    static String agingBucket(LocalDate dueDate, BigDecimal pending, LocalDate today) {
+        if (pending.signum() <= 0) {
+            return null;
+        }
+        long days = dueDate != null ? ChronoUnit.DAYS.between(dueDate, today) : 0;
+        if (days <= 0) {
+            return "CURRENT";
+        } else if (days <= 30) {
+            return "1-30";
+        } else if (days <= 60) {
+            return "31-60";
+        } else if (days <= 90) {
+            return "61-90";
+        }
+        return "90+";
+    }
+
+    private static void addDeltas(Map<String, ReceivablesRollup> deltas, ReceivablesContribution contribution, int sign) {
+        String currency = contribution.getInvoiceCurrency();
+        addDelta(deltas, ReceivablesRollup.DIMENSION_STATUS, contribution.getInvoiceStatus(), currency, contribution, sign);
+        addDelta(deltas, ReceivablesRollup.DIMENSION_COMPANY, contribution.getInvoiceCompanyName(), currency, contribution, sign);
+        addDelta(deltas, ReceivablesRollup.DIMENSION_CURRENCY, currency, currency, contribution, sign);
+        if (contribution.getAgingBucket() != null) {
+            addDelta(deltas, ReceivablesRollup.DIMENSION_AGING, contribution.getAgingBucket(), currency, contribution, sign);
+        }
+    }
+
+    private static void addDelta(Map<String, ReceivablesRollup> deltas, String dimension, String key, String currency,
+                                 ReceivablesContribution contribution, int sign) {
+        String id = ReceivablesRollup.idOf(dimension, key, currency);
+        ReceivablesRollup delta = deltas.computeIfAbsent(id, k -> {
+            ReceivablesRollup row = new ReceivablesRollup();
+            row.setId(k);
+            row.setDimension(dimension);
+            row.setKey(key);
+            row.setCurrency(currency);
+            row.setTotalAmount(BigDecimal.ZERO);
+            row.setPaidAmount(BigDecimal.ZERO);
+            row.setPendingAmount(BigDecimal.ZERO);
+            return row;
+        });
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        delta.setInvoiceCount(delta.getInvoiceCount() + sign);
+        delta.setTotalAmount(delta.getTotalAmount().add(contribution.getTotalAmount().multiply(factor)));
+        delta.setPaidAmount(delta.getPaidAmount().add(contribution.getPaidAmount().multiply(factor)));
+        delta.setPendingAmount(delta.getPendingAmount().add(contribution.getPendingAmount().multiply(factor)));
+    }
+
+    private static Set<String> drain(Set<String> source) {
+        Set<String> drained = new LinkedHashSet<>();
+        Iterator<String> iterator = source.iterator();
+        while (iterator.hasNext() && drained.size() < FLUSH_BATCH_SIZE) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+}
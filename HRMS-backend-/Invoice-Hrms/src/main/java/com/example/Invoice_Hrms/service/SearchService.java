@@ -0,0 +1,269 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.dto.SearchHitDto;
+import com.example.Invoice_Hrms.event.CompanyChangedEvent;
+import com.example.Invoice_Hrms.event.InvoiceChangedEvent;
+import com.example.Invoice_Hrms.event.ItemMasterChangedEvent;
+import com.example.Invoice_Hrms.model.Company;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.ItemMaster;
+import com.example.Invoice_Hrms.repository.CompanyRepository;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.ItemMasterRepository;
+import com.example.Invoice_Hrms.util.SearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead search over invoices, companies and item masters, answered from an in-memory
+ * {@link SearchIndex}. The index is built from Mongo at startup and nightly (which also drops the
+ * space held by replaced documents); in between, write paths publish change events and a
+ * short-interval flush re-reads just the changed documents.
+ */
+@Service
+public class SearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    public static final String TYPE_INVOICE = "invoice";
+    public static final String TYPE_COMPANY = "company";
+    public static final String TYPE_ITEM = "item";
+    public static final Set<String> TYPES = Set.of(TYPE_INVOICE, TYPE_COMPANY, TYPE_ITEM);
+
+    private static final int LOAD_BATCH_SIZE = 2000;
+    private static final int FLUSH_BATCH_SIZE = 1000;
+    private static final double MAX_DELETED_RATIO = 0.3;
+
+    private final InvoiceRepository invoiceRepository;
+    private final CompanyRepository companyRepository;
+    private final ItemMasterRepository itemMasterRepository;
+    private final int maxLimit;
+
+    private volatile SearchIndex index = new SearchIndex();
+    private volatile boolean ready;
+
+    private final Set<String> dirtyInvoiceIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyCompanyIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyItemIds = ConcurrentHashMap.newKeySet();
+    // A rebuild swaps in a new index; changes flushed into the old one while it loads would be lost
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    // Set while a rebuild queued off the scheduler (compaction, unknown remote change) is pending or running
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    public SearchService(InvoiceRepository invoiceRepository,
+                         CompanyRepository companyRepository,
+                         ItemMasterRepository itemMasterRepository,
+                         @Value("${invoice.search.max-limit:50}") int maxLimit) {
+        this.invoiceRepository = invoiceRepository;
+        this.companyRepository = companyRepository;
+        this.itemMasterRepository = itemMasterRepository;
+        this.maxLimit = Math.max(1, maxLimit);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ranked hits for the query. types narrows the result to some of {@link #TYPES}; null or empty means all.
+     */
+    public List<SearchHitDto> search(String query, Collection<String> types, int limit) {
+        if (types != null && !TYPES.containsAll(types)) {
+            throw new IllegalArgumentException("Unknown search type, expected any of " + TYPES);
+        }
+        return index.search(query, types, Math.min(Math.max(limit, 1), maxLimit)).stream()
+                .map(hit -> new SearchHitDto(hit.type(), hit.id(), hit.title(), hit.subtitle(), hit.score()))
+                .toList();
+    }
+
+    @EventListener
+    public void onInvoiceChanged(InvoiceChangedEvent event) {
+        // Payment writes only carry the invoice number and never touch the searchable fields
+        if (event.invoiceId() != null) {
+            dirtyInvoiceIds.add(event.invoiceId());
+        }
+    }
+
+    @EventListener
+    public void onCompanyChanged(CompanyChangedEvent event) {
+        if (event.companyId() != null) {
+            dirtyCompanyIds.add(event.companyId());
+        } else {
+            queueRebuild();
+        }
+    }
+
+    @EventListener
+    public void onItemMasterChanged(ItemMasterChangedEvent event) {
+        if (event.itemId() != null) {
+            dirtyItemIds.add(event.itemId());
+        } else {
+            queueRebuild();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAtStartup() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                logger.warn("Could not build the search index at startup: {}", e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(cron = "${invoice.search.rebuild-cron:0 45 1 * * *}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Search index rebuild failed", e);
+        }
+    }
+
+    /**
+     * Loads a fresh index from Mongo and swaps it in. Changes made while it loads stay queued and are
+     * flushed into the new index afterwards.
+     */
+    public void rebuild() {
+        refreshLock.lock();
+        try {
+            long started = System.nanoTime();
+            SearchIndex rebuilt = new SearchIndex();
+            try (Stream<Invoice> invoices = invoiceRepository.streamSearchFields(LOAD_BATCH_SIZE)) {
+                invoices.forEach(invoice -> rebuilt.put(entryOf(invoice)));
+            }
+            companyRepository.findAll().forEach(company -> rebuilt.put(entryOf(company)));
+            itemMasterRepository.findAll().forEach(item -> rebuilt.put(entryOf(item)));
+            index = rebuilt;
+            ready = true;
+            logger.info("Built search index of {} documents in {} ms", rebuilt.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${invoice.search.flush-ms:1000}", initialDelayString = "${invoice.search.flush-ms:1000}")
+    public void flushChanges() {
+        if (!ready || (dirtyInvoiceIds.isEmpty() && dirtyCompanyIds.isEmpty() && dirtyItemIds.isEmpty())) {
+            return;
+        }
+        // Don't hold up the scheduler behind a rebuild; the changes wait for the next run
+        if (!refreshLock.tryLock()) {
+            return;
+        }
+        Set<String> invoiceIds = drain(dirtyInvoiceIds);
+        Set<String> companyIds = drain(dirtyCompanyIds);
+        Set<String> itemIds = drain(dirtyItemIds);
+        try {
+            applyChanges(invoiceIds, companyIds, itemIds);
+        } catch (Exception e) {
+            // Put them back so the next flush retries
+            dirtyInvoiceIds.addAll(invoiceIds);
+            dirtyCompanyIds.addAll(companyIds);
+            dirtyItemIds.addAll(itemIds);
+            logger.error("Search index flush failed for {} documents",
+                    invoiceIds.size() + companyIds.size() + itemIds.size(), e);
+        } finally {
+            refreshLock.unlock();
+        }
+        if (index.deletedRatio() > MAX_DELETED_RATIO) {
+            queueRebuild();
+        }
+    }
+
+    private void queueRebuild() {
+        if (!ready || !rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                scheduledRebuild();
+            } finally {
+                rebuildQueued.set(false);
+            }
+        });
+    }
+
+    private void applyChanges(Set<String> invoiceIds, Set<String> companyIds, Set<String> itemIds) {
+        SearchIndex current = index;
+        if (!invoiceIds.isEmpty()) {
+            Set<String> missing = new HashSet<>(invoiceIds);
+            for (Invoice invoice : invoiceRepository.findSearchFieldsByIds(invoiceIds)) {
+                missing.remove(invoice.getId());
+                if (invoice.isDeleted()) {
+                    current.remove(TYPE_INVOICE, invoice.getId());
+                } else {
+                    current.put(entryOf(invoice));
+                }
+            }
+            missing.forEach(id -> current.remove(TYPE_INVOICE, id));
+        }
+        if (!companyIds.isEmpty()) {
+            Set<String> missing = new HashSet<>(companyIds);
+            for (Company company : companyRepository.findAllById(companyIds)) {
+                missing.remove(company.getId());
+                current.put(entryOf(company));
+            }
+            missing.forEach(id -> current.remove(TYPE_COMPANY, id));
+        }
+        if (!itemIds.isEmpty()) {
+            Set<String> missing = new HashSet<>(itemIds);
+            for (ItemMaster item : itemMasterRepository.findAllById(itemIds)) {
+                missing.remove(item.getId());
+                current.put(entryOf(item));
+            }
+            missing.forEach(id -> current.remove(TYPE_ITEM, id));
+        }
+    }
+
+    private static SearchIndex.Entry entryOf(Invoice invoice) {
+        return new SearchIndex.Entry(TYPE_INVOICE, invoice.getId(), invoice.getInvoiceNo(), invoice.getInvoiceCompanyName())
+                .field(invoice.getInvoiceNo(), 7)
+                .field(invoice.getInvoiceCompanyName(), 4)
+                .field(invoice.getInvoiceConsultantName(), 3)
+                .field(invoice.getInvoiceEmail(), 2);
+    }
+
+    private static SearchIndex.Entry entryOf(Company company) {
+        return new SearchIndex.Entry(TYPE_COMPANY, company.getId(), company.getCompanyName(), company.getContactName())
+                .field(company.getCompanyName(), 6)
+                .field(company.getContactName(), 3)
+                .field(company.getCompanyEmail(), 2);
+    }
+
+    private static SearchIndex.Entry entryOf(ItemMaster item) {
+        return new SearchIndex.Entry(TYPE_ITEM, item.getId(), item.getItemName(), item.getDescription())
+                .field(item.getItemName(), 6)
+                .field(item.getDescription(), 1);
+    }
+
+    private static Set<String> drain(Set<String> source) {
+        Set<String> drained = new LinkedHashSet<>();
+        Iterator<String> iterator = source.iterator();
+        while (iterator.hasNext() && drained.size() < FLUSH_BATCH_SIZE) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+}
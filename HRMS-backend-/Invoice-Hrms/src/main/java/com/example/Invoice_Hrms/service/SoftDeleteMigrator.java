@@ -0,0 +1,143 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.config.MongoIndexInitializer;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.MigrationCheckpoint;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.LiveInvoiceFilter;
+import com.example.Invoice_Hrms.repository.MigrationCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * One-time conversion of the free-form is_delete string into the boolean deleted flag, followed by
+ * dropping the full indexes that the partial ones on Invoice replace. Both are single server-side
+ * updates, so unlike the other migrators there is no batching; the checkpoint only records completion.
+ * Until the flags are converted, {@link LiveInvoiceFilter} counts invoices without one as live. A legacy
+ * index is only dropped once MongoIndexInitializer has built its replacement; if that failed, the
+ * migration stays incomplete and runs again on the next start.
+ */
+@Service
+public class SoftDeleteMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SoftDeleteMigrator.class);
+
+    static final String MIGRATION_ID = "soft-delete-flag";
+
+    // Legacy full index -> the partial index on Invoice that supersedes it
+    private static final Map<String, String> LEGACY_INDEXES = Map.of(
+            "invoiceDate_id", "live_invoiceDate_id",
+            "status_invoiceDate_id", "live_status_invoiceDate_id",
+            "companyName_invoiceDate_id", "live_companyName_invoiceDate_id",
+            "isDelete_invoiceDate_id", "live_invoiceDate_id",
+            "dueDate", "live_dueDate",
+            "status_dueDate_id", "live_status_dueDate_id");
+
+    private final InvoiceRepository invoiceRepository;
+    private final MigrationCheckpointRepository checkpointRepository;
+    private final MongoTemplate mongoTemplate;
+    private final MongoIndexInitializer indexInitializer;
+    private final LiveInvoiceFilter liveFilter;
+    private final boolean enabled;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public SoftDeleteMigrator(InvoiceRepository invoiceRepository,
+                              MigrationCheckpointRepository checkpointRepository,
+                              MongoTemplate mongoTemplate,
+                              MongoIndexInitializer indexInitializer,
+                              LiveInvoiceFilter liveFilter,
+                              @Value("${invoice.soft-delete.migration.enabled:true}") boolean enabled) {
+        this.invoiceRepository = invoiceRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.indexInitializer = indexInitializer;
+        this.liveFilter = liveFilter;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnBoot() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread worker = new Thread(this::run, "soft-delete-migrator");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    private void run() {
+        try {
+            MigrationCheckpoint checkpoint = checkpointRepository.findById(MIGRATION_ID).orElseGet(() -> {
+                MigrationCheckpoint fresh = new MigrationCheckpoint();
+                fresh.setId(MIGRATION_ID);
+                return fresh;
+            });
+            if (checkpoint.isCompleted()) {
+                liveFilter.markFlagsMigrated();
+                return;
+            }
+            long converted = invoiceRepository.migrateLegacyDeleteFlags(Instant.now());
+            liveFilter.markFlagsMigrated();
+
+            indexInitializer.indexesEnsured().join();
+            if (!dropLegacyIndexes()) {
+                logger.warn("Soft delete flags converted ({} invoices) but some partial indexes are missing; "
+                        + "the legacy indexes are kept until the next start", converted);
+                return;
+            }
+
+            checkpoint.setProcessed(converted);
+            checkpoint.setCompleted(true);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointRepository.save(checkpoint);
+            logger.info("Soft delete migration completed ({} invoices converted)", converted);
+        } catch (Exception e) {
+            logger.error("Soft delete migration failed; it will run again on the next start", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Returns false if a legacy index was kept because its replacement doesn't exist
+    private boolean dropLegacyIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Invoice.class);
+        Set<String> existing = indexOps.getIndexInfo().stream().map(IndexInfo::getName).collect(Collectors.toSet());
+        boolean complete = true;
+        for (Map.Entry<String, String> legacy : LEGACY_INDEXES.entrySet()) {
+            if (!existing.contains(legacy.getKey())) {
+                continue;
+            }
+            if (!existing.contains(legacy.getValue())) {
+                complete = false;
+                continue;
+            }
+            try {
+                indexOps.dropIndex(legacy.getKey());
+            } catch (Exception e) {
+                logger.debug("Legacy invoice index {} not dropped: {}", legacy.getKey(), e.getMessage());
+            }
+        }
+        return complete;
+    }
+}
@@ -1,13 +1,19 @@
 package com.example.Invoice_Hrms.service;
 
 import com.example.Invoice_Hrms.dto.TermMasterDto;
+import com.example.Invoice_Hrms.event.TermChangedEvent;
 import com.example.Invoice_Hrms.model.TermMaster;
 import com.example.Invoice_Hrms.repository.TermMasterRepository;
+import com.example.Invoice_Hrms.util.ReferenceDataCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class TermMasterService {
@@ -15,9 +21,42 @@ public class TermMasterService {
     @Autowired
     private TermMasterRepository termMasterRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${invoice.cache.reference.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${invoice.cache.reference.max-entries:10000}")
+    private int maxEntries;
+
+    private ReferenceDataCache<TermMasterDto> cache;
+
+    @PostConstruct
+    void initCache() {
+        cache = new ReferenceDataCache<>("terms",
+                () -> termMasterRepository.findAll().stream().map(this::convertToDto).toList(),
+                id -> termMasterRepository.findById(id).map(this::convertToDto),
+                TermMasterDto::getId, Duration.ofSeconds(ttlSeconds), maxEntries, objectMapper);
+    }
+
     public List<TermMasterDto> getAllTerms() {
-        List<TermMaster> terms = termMasterRepository.findAll();
-        return terms.stream().map(this::convertToDto).collect(Collectors.toList());
+        return cache.get().values();
+    }
+
+    public ReferenceDataCache.Snapshot<TermMasterDto> getTermSnapshot() {
+        return cache.get();
+    }
+
+    /**
+     * Called when another replica changed terms; termId is null when which one is unknown.
+     */
+    public void evictCache(String termId) {
+        cache.invalidate();
+        eventPublisher.publishEvent(new TermChangedEvent(termId));
     }
 
     private TermMasterDto convertToDto(TermMaster term) {
@@ -33,6 +72,8 @@ public class TermMasterService {
         term.setDescription(dto.getDescription());
 
         TermMaster saved = termMasterRepository.save(term);
+        cache.invalidate();
+        eventPublisher.publishEvent(new TermChangedEvent(saved.getId()));
 
         TermMasterDto response = new TermMasterDto();
         response.setId(saved.getId());
@@ -2,13 +2,19 @@ package com.example.Invoice_Hrms.service;
 
 
 import com.example.Invoice_Hrms.dto.paymentDto;
+import com.example.Invoice_Hrms.event.InvoiceChangedEvent;
 import com.example.Invoice_Hrms.mapper.paymentMapper;
 import com.example.Invoice_Hrms.model.payment;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
 import com.example.Invoice_Hrms.repository.paymentRepository;
+import com.example.Invoice_Hrms.util.InvoiceTotals;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,11 +25,16 @@ public class paymentService {
 
     private  final paymentRepository paymentRepository;
     private  final paymentMapper paymentMapper;
+    private  final InvoiceRepository invoiceRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     public  paymentDto createPayment(paymentDto dto){
         payment payment = paymentMapper.toEntity(dto);
-        return  paymentMapper.toDto(paymentRepository.save(payment));
+        payment saved = paymentRepository.save(payment);
+        invoiceRepository.incrementTotalsByInvoiceNo(saved.getInvoiceNo(), BigDecimal.ZERO, InvoiceTotals.amountOf(saved));
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofInvoiceNo(saved.getInvoiceNo()));
+        return  paymentMapper.toDto(saved);
 
     }
 
@@ -37,17 +48,36 @@ public class paymentService {
     }
 
     public  void deletePayment(String id){
-        paymentRepository.deleteById(id);
+        paymentRepository.findById(id).ifPresent(existing -> {
+            paymentRepository.deleteById(id);
+            invoiceRepository.incrementTotalsByInvoiceNo(existing.getInvoiceNo(), BigDecimal.ZERO,
+                    InvoiceTotals.amountOf(existing).negate());
+            eventPublisher.publishEvent(InvoiceChangedEvent.ofInvoiceNo(existing.getInvoiceNo()));
+        });
     }
 
     public  paymentDto updatePayment(String id,paymentDto dto){
         return  paymentRepository.findById(id).map(existing -> {
+            String previousInvoiceNo = existing.getInvoiceNo();
+            BigDecimal previousAmount = InvoiceTotals.amountOf(existing);
             existing.setInvoiceNo(dto.getInvoiceNo());
             existing.setPaymentAmount(dto.getPaymentAmount());
             existing.setPaymentMethod(dto.getPaymentMethod());
             existing.setPaymentDate(dto.getPaymentDate());
             existing.setReferanceNo(dto.getReferenceNo());
-            return paymentMapper.toDto(paymentRepository.save(existing));
+            payment saved = paymentRepository.save(existing);
+
+            BigDecimal newAmount = InvoiceTotals.amountOf(saved);
+            if (Objects.equals(previousInvoiceNo, saved.getInvoiceNo())) {
+                invoiceRepository.incrementTotalsByInvoiceNo(saved.getInvoiceNo(), BigDecimal.ZERO,
+                        newAmount.subtract(previousAmount));
+            } else {
+                invoiceRepository.incrementTotalsByInvoiceNo(previousInvoiceNo, BigDecimal.ZERO, previousAmount.negate());
+                invoiceRepository.incrementTotalsByInvoiceNo(saved.getInvoiceNo(), BigDecimal.ZERO, newAmount);
+                eventPublisher.publishEvent(InvoiceChangedEvent.ofInvoiceNo(previousInvoiceNo));
+            }
+            eventPublisher.publishEvent(InvoiceChangedEvent.ofInvoiceNo(saved.getInvoiceNo()));
+            return paymentMapper.toDto(saved);
         }).orElse(null);
     }
 }
@@ -0,0 +1,48 @@
+package com.example.Invoice_Hrms.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public ExportWriter open(OutputStream out, String sheetName, List<String> headers) throws IOException {
+        ExportWriter writer = this == XLSX ? new XlsxExportWriter(out, sheetName) : new CsvExportWriter(out);
+        writer.writeRow(headers);
+        return writer;
+    }
+
+    /**
+     * Parses the format request parameter; blank means CSV.
+     */
+    public static ExportFormat fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + value);
+    }
+}
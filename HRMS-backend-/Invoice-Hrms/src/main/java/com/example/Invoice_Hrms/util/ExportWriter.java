@@ -0,0 +1,15 @@
+package com.example.Invoice_Hrms.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Row-at-a-time writer for ledger exports. Implementations keep at most a small window of rows in
+ * memory so exports of any size run in constant heap.
+ */
+public interface ExportWriter extends Closeable, Flushable {
+
+    void writeRow(List<?> values) throws IOException;
+}
@@ -0,0 +1,34 @@
+package com.example.Invoice_Hrms.util;
+
+import com.example.Invoice_Hrms.model.Invoice;
+
+import java.util.regex.Pattern;
+
+/**
+ * Everything the static fragments of an invoice page (header, terms, footer) are rendered from.
+ * Invoices with equal branding share the same pre-rendered fragments, so this is also the cache key.
+ *
+ * @param logo logo image as a data URI, or null for none
+ * @param brandColor CSS hex color, or null for the template default
+ */
+public record InvoiceBranding(String companyName, String companyAddress, String companyEmail, String companyMobileNo,
+                              String logo, String brandColor, String termName, String termDescription,
+                              String thanksNote) {
+
+    private static final Pattern HEX_COLOR = Pattern.compile("#(?:[0-9a-fA-F]{3}|[0-9a-fA-F]{6})");
+
+    public InvoiceBranding {
+        // The color ends up inside a style attribute
+        if (brandColor != null && !HEX_COLOR.matcher(brandColor).matches()) {
+            brandColor = null;
+        }
+    }
+
+    /**
+     * Branding taken from the invoice alone, without logo, color or term description.
+     */
+    public static InvoiceBranding of(Invoice invoice) {
+        return new InvoiceBranding(invoice.getCompanyName(), invoice.getCompanyAddress(), invoice.getCompanyEmail(),
+                invoice.getCompanyMobileNo(), null, null, invoice.getInvoiceTerms(), null, invoice.getThanksNote());
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.Invoice_Hrms.util;
+
+/**
+ * Pre-rendered HTML of the parts of an invoice page that don't depend on the invoice itself.
+ */
+public record InvoiceFragments(String header, String terms, String footer) {
+}
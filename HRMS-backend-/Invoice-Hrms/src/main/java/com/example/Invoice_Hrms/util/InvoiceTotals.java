@@ -0,0 +1,37 @@
+package com.example.Invoice_Hrms.util;
+
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.model.payment;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+public final class InvoiceTotals {
+
+    private InvoiceTotals() {
+    }
+
+    public static BigDecimal itemTotal(Collection<Item> items) {
+        Money.Sum total = Money.sum();
+        for (Item item : items) {
+            total.add(item.getAmount());
+        }
+        return total.toBigDecimal();
+    }
+
+    public static BigDecimal paidTotal(Collection<payment> payments) {
+        Money.Sum total = Money.sum();
+        for (payment payment : payments) {
+            total.add(payment.getPaymentAmount());
+        }
+        return total.toBigDecimal();
+    }
+
+    public static BigDecimal amountOf(Item item) {
+        return item.getAmount() != null ? item.getAmount() : BigDecimal.ZERO;
+    }
+
+    public static BigDecimal amountOf(payment payment) {
+        return payment.getPaymentAmount() != null ? payment.getPaymentAmount() : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.Invoice_Hrms.util;
+
+import com.example.Invoice_Hrms.model.Item;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Line arithmetic, owned by the server. Each step is rounded half-up to the currency's minor unit:
+ * <pre>
+ *   gross    = qty * rate
+ *   discount = gross * discountPercent / 100
+ *   tax      = (gross - discount) * taxPercent / 100
+ *   amount   = gross - discount + tax
+ * </pre>
+ */
+public final class LinePricing {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private LinePricing() {
+    }
+
+    /**
+     * Validates the line's qty, rate and percentages and sets its discount, tax and total amounts.
+     * Throws IllegalArgumentException naming the line when an input is missing or out of range.
+     */
+    public static void price(Item line, int scale) {
+        String name = line.getItemName() != null ? line.getItemName() : "(unnamed)";
+        if (line.getQty() == null || line.getRate() == null) {
+            throw new IllegalArgumentException("Line " + name + " needs qty and rate");
+        }
+        if (line.getQty().signum() < 0 || line.getRate().signum() < 0) {
+            throw new IllegalArgumentException("Line " + name + " has a negative qty or rate");
+        }
+        checkPercent(line.getDiscountPercent(), "discountPercent", name);
+        checkPercent(line.getTaxPercent(), "taxPercent", name);
+
+        BigDecimal gross = line.getQty().multiply(line.getRate()).setScale(scale, RoundingMode.HALF_UP);
+        BigDecimal discount = percentOf(gross, line.getDiscountPercent(), scale);
+        BigDecimal taxable = gross.subtract(discount);
+        BigDecimal tax = percentOf(taxable, line.getTaxPercent(), scale);
+        line.setDiscountAmount(discount);
+        line.setTaxAmount(tax);
+        line.setAmount(taxable.add(tax));
+    }
+
+    private static BigDecimal percentOf(BigDecimal amount, BigDecimal percent, int scale) {
+        if (percent == null || percent.signum() == 0) {
+            return BigDecimal.ZERO.setScale(scale);
+        }
+        return amount.multiply(percent).divide(HUNDRED, scale, RoundingMode.HALF_UP);
+    }
+
+    private static void checkPercent(BigDecimal percent, String field, String name) {
+        if (percent != null && (percent.signum() < 0 || percent.compareTo(HUNDRED) > 0)) {
+            throw new IllegalArgumentException("Line " + name + " has " + field + " outside 0-100");
+        }
+    }
+}
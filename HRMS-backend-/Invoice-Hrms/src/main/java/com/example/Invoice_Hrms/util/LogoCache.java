@@ -0,0 +1,178 @@
+package com.example.Invoice_Hrms.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Company logos, downloaded in the background and kept as data URIs so the PDF renderer never goes to
+ * the network: a logo that isn't cached yet renders as no logo, and onChange fires once it arrives.
+ * Only hosts on the allowlist are fetched, without following redirects, since the URLs come from company
+ * data and the bytes end up in downloadable PDFs. Logos are refreshed after the TTL; a failed download
+ * is remembered for the retry interval so a broken URL costs one attempt per interval.
+ */
+public class LogoCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogoCache.class);
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient;
+    private final Set<String> allowedHosts;
+    private final Duration ttl;
+    private final Duration retryAfter;
+    private final int maxBytes;
+    private final Consumer<String> onChange;
+    private final Map<String, Logo> logos = new ConcurrentHashMap<>();
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "logo-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LogoCache(Set<String> allowedHosts, Duration ttl, Duration retryAfter, int maxBytes,
+                     Consumer<String> onChange) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.allowedHosts = allowedHosts.stream()
+                .map(host -> host.trim().toLowerCase(Locale.ROOT))
+                .filter(host -> !host.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.ttl = ttl;
+        this.retryAfter = retryAfter;
+        this.maxBytes = maxBytes;
+        this.onChange = onChange;
+    }
+
+    /**
+     * The logo at url as a data URI, or null if there is none (yet). Never blocks: a missing or expired
+     * logo is loaded in the background, and an expired one is still served until the refresh lands.
+     */
+    public String get(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        if (url.startsWith("data:image/")) {
+            return url;
+        }
+        Logo logo = logos.get(url);
+        if (logo == null || Instant.now().isAfter(logo.expiresAt())) {
+            prefetch(url);
+        }
+        return logo != null ? logo.dataUri() : null;
+    }
+
+    /**
+     * Starts loading the logo unless it is cached and fresh or already loading.
+     */
+    public void prefetch(String url) {
+        if (url == null || url.isBlank() || url.startsWith("data:")) {
+            return;
+        }
+        Logo logo = logos.get(url);
+        if (logo != null && Instant.now().isBefore(logo.expiresAt())) {
+            return;
+        }
+        if (!loading.add(url)) {
+            return;
+        }
+        try {
+            loader.execute(() -> load(url));
+        } catch (RejectedExecutionException e) {
+            loading.remove(url);
+        }
+    }
+
+    public void invalidate(String url) {
+        if (url != null) {
+            logos.remove(url);
+        }
+    }
+
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private void load(String url) {
+        Logo previous = logos.get(url);
+        Logo loaded = null;
+        try {
+            loaded = fetch(url);
+        } catch (RuntimeException e) {
+            logger.warn("Could not load logo {}: {}", url, e.toString());
+        } finally {
+            if (loaded == null) {
+                // Keep serving the last good logo through a failed refresh
+                loaded = new Logo(previous != null ? previous.dataUri() : null, Instant.now().plus(retryAfter));
+            }
+            logos.put(url, loaded);
+            loading.remove(url);
+        }
+        if (!Objects.equals(previous != null ? previous.dataUri() : null, loaded.dataUri())) {
+            onChange.accept(url);
+        }
+    }
+
+    private Logo fetch(String url) {
+        try {
+            URI uri = URI.create(url.trim());
+            if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+                throw new IOException("unsupported scheme");
+            }
+            if (uri.getHost() == null || !allowedHosts.contains(uri.getHost().toLowerCase(Locale.ROOT))) {
+                throw new IOException("host not in invoice.pdf.logo.allowed-hosts");
+            }
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET().build();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new IOException("HTTP " + response.statusCode());
+                }
+                String contentType = response.headers().firstValue("Content-Type").orElse("")
+                        .split(";")[0].trim().toLowerCase(Locale.ROOT);
+                if (!contentType.startsWith("image/")) {
+                    throw new IOException("not an image: " + contentType);
+                }
+                byte[] bytes = body.readNBytes(maxBytes + 1);
+                if (bytes.length > maxBytes) {
+                    throw new IOException("larger than " + maxBytes + " bytes");
+                }
+                String dataUri = "data:" + contentType + ";base64," + Base64.getEncoder().encodeToString(bytes);
+                return new Logo(dataUri, Instant.now().plus(ttl));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while loading logo {}", url);
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Could not load logo {}: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    private record Logo(String dataUri, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.Invoice_Hrms.util;
+
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Currency;
+import java.util.Locale;
+
+/**
+ * Exact money arithmetic on scaled longs. Amounts cross the API and Mongo boundaries as BigDecimal
+ * (stored as Decimal128), but sums are kept as an unscaled long plus a scale, so adding up a ledger
+ * doesn't allocate a BigDecimal per row. A currency's scale is its number of minor-unit digits.
+ */
+public final class Money {
+
+    public static final int DEFAULT_SCALE = 2;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private static final int DECIMAL128_EXPONENT_OFFSET = 6176;
+    private static final long DECIMAL128_COMBINATION_MASK = 0x6000000000000000L;
+    private static final long DECIMAL128_EXPONENT_MASK = 0x7FFF800000000000L;
+    private static final long DECIMAL128_COEFFICIENT_HIGH_MASK = 0x0001FFFFFFFFFFFFL;
+
+    private Money() {
+    }
+
+    /**
+     * Minor-unit digits of an ISO 4217 currency code; DEFAULT_SCALE for anything else (symbols,
+     * blanks, unknown codes), matching how invoices without a currency have always been treated.
+     */
+    public static int scaleOf(String currency) {
+        if (currency == null || currency.length() != 3) {
+            return DEFAULT_SCALE;
+        }
+        try {
+            int digits = Currency.getInstance(currency.toUpperCase(Locale.ROOT)).getDefaultFractionDigits();
+            return digits >= 0 ? digits : DEFAULT_SCALE;
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_SCALE;
+        }
+    }
+
+    /**
+     * Whether the amount can be paid in the currency, i.e. has no more decimals than its minor unit.
+     */
+    public static boolean fitsCurrency(BigDecimal amount, String currency) {
+        return amount.stripTrailingZeros().scale() <= scaleOf(currency);
+    }
+
+    /**
+     * Decimal128 for storing an amount, or null for null. Throws if the amount has more significant
+     * digits than Decimal128 holds rather than rounding it.
+     */
+    public static Decimal128 toDecimal128(BigDecimal amount) {
+        return amount != null ? new Decimal128(amount) : null;
+    }
+
+    /**
+     * An amount as stored by any version of the application: Decimal128, a double (read as its
+     * shortest decimal representation, so 0.1 stays 0.1 rather than 0.1000000000000000055...), an
+     * integer or a numeric string. Null and blank give null.
+     */
+    public static BigDecimal fromStored(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Decimal128 decimal) {
+            return bigDecimalOf(decimal);
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (value instanceof Double d) {
+            if (d.isNaN() || d.isInfinite()) {
+                throw new IllegalArgumentException("Not a finite amount: " + d);
+            }
+            return BigDecimal.valueOf(d);
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof String text) {
+            return text.isBlank() ? null : new BigDecimal(text.trim());
+        }
+        throw new IllegalArgumentException("Not an amount: " + value);
+    }
+
+    // bigDecimalValue refuses negative zero, which BigDecimal can't represent; it is just zero
+    private static BigDecimal bigDecimalOf(Decimal128 value) {
+        try {
+            return value.bigDecimalValue();
+        } catch (ArithmeticException e) {
+            return new BigDecimal(value.toString());
+        }
+    }
+
+    public static Sum sum() {
+        return new Sum();
+    }
+
+    /**
+     * Running total. Stays on a long while the value fits, growing the scale to the largest one seen,
+     * and only switches to BigDecimal when it would overflow; either way the result is exact.
+     */
+    public static final class Sum {
+        private long unscaled;
+        private int scale;
+        private BigDecimal overflow;
+
+        private Sum() {
+        }
+
+        public Sum add(BigDecimal amount) {
+            if (amount == null) {
+                return this;
+            }
+            if (overflow == null && amount.scale() >= 0 && amount.precision() < 19) {
+                return add(amount.unscaledValue().longValue(), amount.scale());
+            }
+            addOverflow(amount);
+            return this;
+        }
+
+        /**
+         * Adds a stored amount without going through BigDecimal for values whose coefficient fits in a long.
+         */
+        public Sum add(Decimal128 amount) {
+            if (amount == null) {
+                return this;
+            }
+            if (amount.isNaN() || amount.isInfinite()) {
+                throw new IllegalArgumentException("Not a finite amount: " + amount);
+            }
+            long high = amount.getHigh();
+            long low = amount.getLow();
+            if ((high & DECIMAL128_COMBINATION_MASK) == DECIMAL128_COMBINATION_MASK) {
+                // Non-canonical encodings have a coefficient of zero
+                return this;
+            }
+            int exponent = (int) ((high & DECIMAL128_EXPONENT_MASK) >>> 49) - DECIMAL128_EXPONENT_OFFSET;
+            if ((high & DECIMAL128_COEFFICIENT_HIGH_MASK) != 0 || low < 0 || exponent > 0) {
+                return add(bigDecimalOf(amount));
+            }
+            return add(high < 0 ? -low : low, -exponent);
+        }
+
+        /**
+         * Adds an amount as read from a raw document, see {@link #fromStored(Object)}.
+         */
+        public Sum addStored(Object value) {
+            if (value instanceof Decimal128 decimal) {
+                return add(decimal);
+            }
+            return add(fromStored(value));
+        }
+
+        public Sum add(Sum other) {
+            if (other.overflow != null) {
+                addOverflow(other.overflow);
+                return this;
+            }
+            return add(other.unscaled, other.scale);
+        }
+
+        public Sum add(long unscaledAmount, int amountScale) {
+            if (overflow != null) {
+                overflow = overflow.add(BigDecimal.valueOf(unscaledAmount, amountScale));
+                return this;
+            }
+            try {
+                int targetScale = Math.max(scale, amountScale);
+                long current = rescale(unscaled, targetScale - scale);
+                long addend = rescale(unscaledAmount, targetScale - amountScale);
+                unscaled = Math.addExact(current, addend);
+                scale = targetScale;
+            } catch (ArithmeticException e) {
+                addOverflow(BigDecimal.valueOf(unscaledAmount, amountScale));
+            }
+            return this;
+        }
+
+        public Sum negate() {
+            if (overflow != null) {
+                overflow = overflow.negate();
+            } else if (unscaled == Long.MIN_VALUE) {
+                overflow = new BigDecimal(BigInteger.valueOf(unscaled).negate(), scale);
+            } else {
+                unscaled = -unscaled;
+            }
+            return this;
+        }
+
+        public BigDecimal toBigDecimal() {
+            return overflow != null ? overflow : BigDecimal.valueOf(unscaled, scale);
+        }
+
+        private void addOverflow(BigDecimal amount) {
+            if (overflow == null) {
+                overflow = BigDecimal.valueOf(unscaled, scale);
+            }
+            overflow = overflow.add(amount);
+        }
+
+        private static long rescale(long value, int digits) {
+            if (digits == 0 || value == 0) {
+                return value;
+            }
+            if (digits >= POWERS_OF_TEN.length) {
+                throw new ArithmeticException("scale out of range");
+            }
+            return Math.multiplyExact(value, POWERS_OF_TEN[digits]);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.Invoice_Hrms.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the invoice listing: the invoiceDate (null for undated invoices) and id of the last row
+ * of a page. Travels as an opaque URL-safe token, "date|id" in Base64.
+ */
+public record PageCursor(LocalDate invoiceDate, String id) {
+
+    public String encode() {
+        String raw = (invoiceDate != null ? invoiceDate.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Throws IllegalArgumentException when the token wasn't produced by {@link #encode()}.
+     */
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 2 || parts[1].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new PageCursor(parts[0].isEmpty() ? null : LocalDate.parse(parts[0]), parts[1]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.Invoice_Hrms.util;
 
 import com.example.Invoice_Hrms.model.Invoice;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
 import org.thymeleaf.TemplateEngine;
 
@@ -9,29 +12,115 @@ import org.xhtmlrenderer.pdf.ITextRenderer;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class PdfGenerator {
 
+    public static final String DEFAULT_TEMPLATE = "invoice-template";
+    public static final String FRAGMENTS_TEMPLATE = "invoice-fragments";
+
+    // ITextRenderer is not thread-safe but can be reused for consecutive documents, which keeps its
+    // font resolver and image/CSS caches warm. Each render thread therefore keeps its own instance.
+    private static final ThreadLocal<ITextRenderer> RENDERERS = ThreadLocal.withInitial(ITextRenderer::new);
 
     private final TemplateEngine templateEngine;
+    private final Timer templateTimer;
+    private final Timer fragmentsTimer;
+    private final Timer layoutTimer;
+    private final Timer createPdfTimer;
+    private final DistributionSummary pdfSize;
+    private final DistributionSummary itemCount;
 
-    public PdfGenerator(TemplateEngine templateEngine) {
+    public PdfGenerator(TemplateEngine templateEngine, MeterRegistry meterRegistry) {
         this.templateEngine = templateEngine;
+        this.templateTimer = phaseTimer(meterRegistry, "template");
+        this.fragmentsTimer = phaseTimer(meterRegistry, "fragments");
+        this.layoutTimer = phaseTimer(meterRegistry, "layout");
+        this.createPdfTimer = phaseTimer(meterRegistry, "create");
+        this.pdfSize = DistributionSummary.builder("invoice.pdf.size")
+                .description("Size of rendered invoice PDFs")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.itemCount = DistributionSummary.builder("invoice.pdf.items")
+                .description("Line items per rendered invoice")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Renders the header, terms and footer fragments for the given branding.
+     */
+    public InvoiceFragments renderFragments(InvoiceBranding branding) {
+        return fragmentsTimer.record(() -> {
+            Context context = new Context();
+            context.setVariable("branding", branding);
+            return new InvoiceFragments(
+                    templateEngine.process(FRAGMENTS_TEMPLATE, Set.of("header"), context),
+                    templateEngine.process(FRAGMENTS_TEMPLATE, Set.of("terms"), context),
+                    templateEngine.process(FRAGMENTS_TEMPLATE, Set.of("footer"), context));
+        });
+    }
+
+    /**
+     * Runs the given page template and the fragments once without recording metrics, so they are
+     * parsed into the template engine's cache before the first real invoice.
+     */
+    public void warmUp(String template) {
+        Context context = new Context();
+        context.setVariable("branding", InvoiceBranding.of(new Invoice()));
+        context.setVariable("invoice", new Invoice());
+        context.setVariable("fragments", new InvoiceFragments("", "", ""));
+        templateEngine.process(FRAGMENTS_TEMPLATE, Set.of("header", "terms", "footer"), context);
+        templateEngine.process(template, context);
+    }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("invoice.pdf.render")
+                .description("Time spent in each invoice PDF rendering phase")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
+    /**
+     * Renders with the default template and fragments rendered on the spot from the invoice alone.
+     * InvoiceTemplateService adds company branding and reuses fragments between invoices.
+     */
     public byte[] generateInvoicePdf(Invoice invoice) throws IOException {
+        return generateInvoicePdf(invoice, DEFAULT_TEMPLATE, renderFragments(InvoiceBranding.of(invoice)));
+    }
+
+    public byte[] generateInvoicePdf(Invoice invoice, String template, InvoiceFragments fragments) throws IOException {
         Context context = new Context();
         context.setVariable("invoice", invoice);
+        context.setVariable("fragments", fragments);
 
-        String html = templateEngine.process("invoice-template", context);
+        String html = templateTimer.record(() -> templateEngine.process(template, context));
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
-        ITextRenderer renderer = new ITextRenderer();
-        renderer.setDocumentFromString(html);
-        renderer.layout();
-        renderer.createPDF(outputStream);
+        ITextRenderer renderer = RENDERERS.get();
+        try {
+            // Parsing the XHTML is counted as part of layout
+            long started = System.nanoTime();
+            renderer.setDocumentFromString(html);
+            renderer.layout();
+            long laidOut = System.nanoTime();
+            layoutTimer.record(laidOut - started, TimeUnit.NANOSECONDS);
+            renderer.createPDF(outputStream);
+            createPdfTimer.record(System.nanoTime() - laidOut, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            // Don't reuse a renderer left in an unknown state
+            RENDERERS.remove();
+            throw e;
+        }
 
-        return outputStream.toByteArray();
+        byte[] pdf = outputStream.toByteArray();
+        pdfSize.record(pdf.length);
+        itemCount.record(invoice.getItems() != null ? invoice.getItems().size() : 0);
+        return pdf;
     }
 }
@@ -0,0 +1,175 @@
+package com.example.Invoice_Hrms.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through, in-process cache for a small reference collection that is always read whole.
+ * A snapshot holds the list, an id index and an ETag derived from the content, so identical data
+ * yields the same ETag on every node. Snapshots expire after the TTL and are dropped on invalidate().
+ * A collection that outgrows maxEntries is not snapshotted; until the TTL passes, find() then loads
+ * single documents by id and keeps up to maxEntries of them instead of reading the whole collection.
+ */
+public class ReferenceDataCache<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private final String name;
+    private final Supplier<List<T>> loader;
+    private final Function<String, Optional<T>> byIdLoader;
+    private final Function<T, String> idOf;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong generation = new AtomicLong();
+    // A lock rather than synchronized: the load does Mongo I/O and must not pin a virtual thread's carrier
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile Snapshot<T> snapshot;
+    // Set while the last full load was over maxEntries; find() goes by id until then
+    private volatile Instant oversizedUntil;
+    // Least recently used first, guarded by entriesLock
+    private final Map<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock entriesLock = new ReentrantLock();
+
+    public ReferenceDataCache(String name, Supplier<List<T>> loader, Function<String, Optional<T>> byIdLoader,
+                              Function<T, String> idOf, Duration ttl, int maxEntries, ObjectMapper objectMapper) {
+        this.name = name;
+        this.loader = loader;
+        this.byIdLoader = byIdLoader;
+        this.idOf = idOf;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.objectMapper = objectMapper;
+    }
+
+    public Snapshot<T> get() {
+        Snapshot<T> current = snapshot;
+        if (current != null && Instant.now().isBefore(current.expiresAt())) {
+            return current;
+        }
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (current != null && Instant.now().isBefore(current.expiresAt())) {
+                return current;
+            }
+            long loadGeneration = generation.get();
+            Snapshot<T> loaded = load();
+            // Don't publish data that an invalidation overtook while it was loading
+            if (loaded.values().size() <= maxEntries && generation.get() == loadGeneration) {
+                snapshot = loaded;
+            } else if (loaded.values().size() > maxEntries) {
+                if (!isOversized()) {
+                    logger.warn("{} has {} entries, above the cache limit of {}; caching single entries by id",
+                            name, loaded.values().size(), maxEntries);
+                }
+                oversizedUntil = loaded.expiresAt();
+            }
+            return loaded;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    public Optional<T> find(String id) {
+        if (!isOversized()) {
+            Snapshot<T> current = get();
+            if (current.values().size() <= maxEntries) {
+                T cached = current.byId().get(id);
+                // A miss may be a document added since the snapshot was loaded
+                return cached != null ? Optional.of(cached) : byIdLoader.apply(id);
+            }
+        }
+        return findEntry(id);
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+        entriesLock.lock();
+        try {
+            entries.clear();
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    private boolean isOversized() {
+        Instant until = oversizedUntil;
+        return until != null && Instant.now().isBefore(until);
+    }
+
+    private Optional<T> findEntry(String id) {
+        entriesLock.lock();
+        try {
+            Entry<T> entry = entries.get(id);
+            if (entry != null && Instant.now().isBefore(entry.expiresAt())) {
+                return Optional.of(entry.value());
+            }
+        } finally {
+            entriesLock.unlock();
+        }
+        long loadGeneration = generation.get();
+        // Loaded outside the lock so one slow lookup doesn't hold up the others
+        Optional<T> loaded = byIdLoader.apply(id);
+        if (loaded.isPresent()) {
+            entriesLock.lock();
+            try {
+                if (generation.get() == loadGeneration) {
+                    entries.put(id, new Entry<>(loaded.get(), Instant.now().plus(ttl)));
+                    if (entries.size() > maxEntries) {
+                        entries.remove(entries.keySet().iterator().next());
+                    }
+                }
+            } finally {
+                entriesLock.unlock();
+            }
+        }
+        return loaded;
+    }
+
+    private Snapshot<T> load() {
+        List<T> values = List.copyOf(loader.get());
+        Map<String, T> byId = new LinkedHashMap<>();
+        for (T value : values) {
+            byId.put(idOf.apply(value), value);
+        }
+        return new Snapshot<>(values, byId, etagOf(values), Instant.now().plus(ttl));
+    }
+
+    private String etagOf(List<T> values) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(values));
+            return "\"" + name + "-" + HexFormat.of().formatHex(digest, 0, 12) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not compute ETag for " + name, e);
+        }
+    }
+
+    private record Entry<T>(T value, Instant expiresAt) {
+    }
+
+    public record Snapshot<T>(List<T> values, Map<String, T> byId, String etag, Instant expiresAt) {
+
+        public boolean matches(String ifNoneMatch) {
+            return ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"));
+        }
+    }
+}
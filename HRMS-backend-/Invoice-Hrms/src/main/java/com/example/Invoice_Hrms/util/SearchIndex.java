@@ -0,0 +1,327 @@
+package com.example.Invoice_Hrms.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index for typeahead search. Every token of every field is indexed by its edge
+ * n-grams (prefixes of MIN_GRAM to MAX_GRAM characters), so a partially typed word is a plain dictionary
+ * lookup. A multi-word query returns the documents matching all words, ranked by field boost (doubled
+ * when the word is complete), newest first on ties.
+ * <p>
+ * Documents get ascending internal numbers, so every posting list is sorted and lists are intersected
+ * by galloping through the longer ones. Updating a document tombstones its old number and appends it
+ * again; the tombstones are only reclaimed by building a new index.
+ */
+public class SearchIndex {
+
+    public static final int MIN_GRAM = 2;
+    public static final int MAX_GRAM = 20;
+    public static final int MAX_BOOST = 7;
+
+    // A posting packs the document number and its weight for the gram into one int
+    private static final int WEIGHT_BITS = 4;
+    private static final int WEIGHT_MASK = (1 << WEIGHT_BITS) - 1;
+    private static final int MAX_DOCS = Integer.MAX_VALUE >>> WEIGHT_BITS;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<String, Integer> liveDocs = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private final Map<String, Integer> typeBits = new HashMap<>();
+    private byte[] docTypes = new byte[1024];
+
+    public record Entry(String type, String id, String title, String subtitle, List<Field> fields) {
+
+        public Entry(String type, String id, String title, String subtitle) {
+            this(type, id, title, subtitle, new ArrayList<>());
+        }
+
+        /**
+         * Adds searchable text with a boost between 1 and MAX_BOOST. Null or blank text is ignored.
+         */
+        public Entry field(String text, int boost) {
+            if (boost < 1 || boost > MAX_BOOST) {
+                throw new IllegalArgumentException("Boost must be between 1 and " + MAX_BOOST);
+            }
+            if (text != null && !text.isBlank()) {
+                fields.add(new Field(text, boost));
+            }
+            return this;
+        }
+    }
+
+    public record Field(String text, int boost) {
+    }
+
+    public record Hit(String type, String id, String title, String subtitle, int score) {
+    }
+
+    /**
+     * Adds the document, replacing an earlier version with the same type and id.
+     */
+    public void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(entry.type(), entry.id());
+            int doc = entries.size();
+            if (doc >= MAX_DOCS) {
+                throw new IllegalStateException("Search index is full, rebuild it to reclaim deleted documents");
+            }
+            Map<String, Integer> grams = new HashMap<>();
+            for (Field field : entry.fields()) {
+                for (String token : tokenize(field.text())) {
+                    int last = Math.min(token.length(), MAX_GRAM);
+                    for (int length = MIN_GRAM; length <= last; length++) {
+                        boolean complete = length == token.length();
+                        grams.merge(token.substring(0, length), complete ? field.boost() * 2 : field.boost(), Math::max);
+                    }
+                }
+            }
+            grams.forEach((gram, weight) ->
+                    postings.computeIfAbsent(gram, g -> new PostingList()).add(doc << WEIGHT_BITS | weight));
+
+            entries.add(new Entry(entry.type(), entry.id(), entry.title(), entry.subtitle(), List.of()));
+            if (doc == docTypes.length) {
+                docTypes = Arrays.copyOf(docTypes, docTypes.length * 2);
+            }
+            docTypes[doc] = (byte) typeBit(entry.type());
+            liveDocs.put(key(entry.type(), entry.id()), doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String type, String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(type, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(String type, String id) {
+        Integer doc = liveDocs.remove(key(type, id));
+        if (doc != null) {
+            deleted.set(doc);
+        }
+    }
+
+    /**
+     * Top hits for the query, optionally restricted to the given types (null or empty for all).
+     * Words shorter than MIN_GRAM are ignored; a query without any usable word matches nothing.
+     */
+    public List<Hit> search(String query, Collection<String> types, int limit) {
+        List<String> words = new ArrayList<>();
+        for (String token : new LinkedHashSet<>(tokenize(query))) {
+            if (token.length() >= MIN_GRAM) {
+                words.add(token.length() > MAX_GRAM ? token.substring(0, MAX_GRAM) : token);
+            }
+        }
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int typeMask = 0;
+            if (types != null && !types.isEmpty()) {
+                for (String type : types) {
+                    Integer bit = typeBits.get(type);
+                    typeMask |= bit != null ? bit : 0;
+                }
+                if (typeMask == 0) {
+                    return List.of();
+                }
+            } else {
+                typeMask = -1;
+            }
+
+            PostingList[] lists = new PostingList[words.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(words.get(i));
+                if (lists[i] == null) {
+                    return List.of();
+                }
+            }
+            // Drive the intersection from the rarest word
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            int bestPossible = 0;
+            for (PostingList list : lists) {
+                bestPossible += list.maxWeight;
+            }
+
+            // Walk newest to oldest. Once the heap is full of hits scoring the best possible, every older
+            // document can at most tie, and ties go to the newer one, so the scan can stop
+            PriorityQueue<Long> top = new PriorityQueue<>(limit);
+            int[] cursors = new int[lists.length];
+            for (int l = 1; l < lists.length; l++) {
+                cursors[l] = lists[l].size - 1;
+            }
+            PostingList driver = lists[0];
+            candidates:
+            for (int i = driver.size - 1; i >= 0; i--) {
+                if (top.size() == limit && top.peek() >>> 32 >= bestPossible) {
+                    break;
+                }
+                int posting = driver.postings[i];
+                int doc = posting >>> WEIGHT_BITS;
+                if ((docTypes[doc] & typeMask) == 0 || deleted.get(doc)) {
+                    continue;
+                }
+                int score = posting & WEIGHT_MASK;
+                for (int l = 1; l < lists.length; l++) {
+                    int found = lists[l].seekBack(doc, cursors[l]);
+                    cursors[l] = found;
+                    if (found < 0) {
+                        break candidates;
+                    }
+                    int other = lists[l].postings[found];
+                    if (other >>> WEIGHT_BITS != doc) {
+                        continue candidates;
+                    }
+                    score += other & WEIGHT_MASK;
+                }
+                long ranked = (long) score << 32 | doc;
+                if (top.size() < limit) {
+                    top.add(ranked);
+                } else if (ranked > top.peek()) {
+                    top.poll();
+                    top.add(ranked);
+                }
+            }
+
+            Hit[] hits = new Hit[top.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                long ranked = top.poll();
+                Entry entry = entries.get((int) ranked);
+                hits[i] = new Hit(entry.type(), entry.id(), entry.title(), entry.subtitle(), (int) (ranked >>> 32));
+            }
+            return List.of(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Share of internal document numbers taken by replaced or removed documents.
+     */
+    public double deletedRatio() {
+        lock.readLock().lock();
+        try {
+            return entries.isEmpty() ? 0 : (double) deleted.cardinality() / entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Distinct type names registered so far, for validating request parameters.
+     */
+    public Set<String> types() {
+        lock.readLock().lock();
+        try {
+            return Set.copyOf(typeBits.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cased words: maximal runs of letters and digits. "INV-2024/07" gives "inv" and "2024" and "07".
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private int typeBit(String type) {
+        return typeBits.computeIfAbsent(type, t -> {
+            if (typeBits.size() == Byte.SIZE) {
+                throw new IllegalStateException("At most " + Byte.SIZE + " document types are supported");
+            }
+            return 1 << typeBits.size();
+        });
+    }
+
+    private static String key(String type, String id) {
+        return type + '\u0000' + id;
+    }
+
+    private static final class PostingList {
+        private int[] postings = new int[1];
+        private int size;
+        private int maxWeight;
+
+        private void add(int posting) {
+            if (size == postings.length) {
+                postings = Arrays.copyOf(postings, size + (size >> 1) + 1);
+            }
+            postings[size++] = posting;
+            maxWeight = Math.max(maxWeight, posting & WEIGHT_MASK);
+        }
+
+        /**
+         * Index of the last posting at or before from whose document is <= doc, or -1 if there is none.
+         * Gallops backwards, then binary searches the last step.
+         */
+        private int seekBack(int doc, int from) {
+            int limit = doc << WEIGHT_BITS | WEIGHT_MASK;
+            int high = from;
+            int step = 1;
+            int low = from;
+            while (low >= 0 && postings[low] > limit) {
+                high = low - 1;
+                low -= step;
+                step <<= 1;
+            }
+            low = Math.max(low, -1);
+            // postings[low] <= limit (or low == -1) and everything after high is > limit
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (postings[mid] <= limit) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+    }
+}
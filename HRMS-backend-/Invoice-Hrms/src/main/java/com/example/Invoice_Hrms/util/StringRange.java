@@ -0,0 +1,53 @@
+package com.example.Invoice_Hrms.util;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Half-open range [from, to) over a string field; a null bound is open. A prefix becomes the range
+ * from the prefix up to its successor, which Mongo answers by walking an index on the field from the
+ * first match to the last, unlike a case-insensitive regex that has to examine every key.
+ * Bounds compare by code point, the same order Mongo uses for strings without a collation, so
+ * prefix matches are case-sensitive.
+ */
+public record StringRange(String from, String to) {
+
+    public static StringRange prefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new IllegalArgumentException("Prefix must not be empty");
+        }
+        // Smallest string greater than every string starting with prefix: bump the last code point
+        // that can be bumped and drop everything after it
+        int end = prefix.length();
+        while (end > 0) {
+            int codePoint = prefix.codePointBefore(end);
+            int start = end - Character.charCount(codePoint);
+            if (codePoint < Character.MAX_CODE_POINT) {
+                int next = codePoint + 1 == Character.MIN_SURROGATE ? Character.MAX_SURROGATE + 1 : codePoint + 1;
+                return new StringRange(prefix, prefix.substring(0, start) + Character.toString(next));
+            }
+            end = start;
+        }
+        return new StringRange(prefix, null);
+    }
+
+    public static StringRange between(String fromInclusive, String toExclusive) {
+        if (fromInclusive != null && toExclusive != null && fromInclusive.compareTo(toExclusive) > 0) {
+            throw new IllegalArgumentException("Range start " + fromInclusive + " is after its end " + toExclusive);
+        }
+        return new StringRange(fromInclusive, toExclusive);
+    }
+
+    public Criteria toCriteria(String field) {
+        Criteria criteria = Criteria.where(field);
+        if (from != null) {
+            criteria.gte(from);
+        }
+        if (to != null) {
+            criteria.lt(to);
+        }
+        if (from == null && to == null) {
+            criteria.exists(true);
+        }
+        return criteria;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.Invoice_Hrms.util;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Streaming XLSX writer. Only the last {@value #ROW_WINDOW} rows are held in memory; older rows are
+ * spilled to a temp file until the workbook is written out on close. Rows beyond the sheet limit
+ * continue on a new sheet.
+ */
+public class XlsxExportWriter implements ExportWriter {
+
+    private static final int ROW_WINDOW = 100;
+    private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private final OutputStream out;
+    private final String sheetName;
+    private final SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+    private final CellStyle dateStyle;
+    private List<?> headers;
+    private SXSSFSheet sheet;
+    private int sheetCount;
+    private int rowIndex;
+
+    public XlsxExportWriter(OutputStream out, String sheetName) {
+        this.out = out;
+        this.sheetName = sheetName;
+        this.dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+    }
+
+    @Override
+    public void writeRow(List<?> values) {
+        if (headers == null) {
+            headers = List.copyOf(values);
+        }
+        if (sheet == null || rowIndex == MAX_ROWS) {
+            newSheet();
+        }
+        writeCells(sheet.createRow(rowIndex++), values);
+    }
+
+    private void newSheet() {
+        sheetCount++;
+        sheet = workbook.createSheet(sheetCount == 1 ? sheetName : sheetName + " " + sheetCount);
+        rowIndex = 0;
+        if (sheetCount > 1) {
+            writeCells(sheet.createRow(rowIndex++), headers);
+        }
+    }
+
+    private void writeCells(Row row, List<?> values) {
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(i);
+            if (value instanceof BigDecimal decimal) {
+                cell.setCellValue(decimal.doubleValue());
+            } else if (value instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof LocalDate date) {
+                cell.setCellValue(date);
+                cell.setCellStyle(dateStyle);
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Rows leave memory through the row window; the file itself can only be written on close
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.write(out);
+            out.flush();
+        } finally {
+            // Also deletes the spilled temp files
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.payment;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class InvoiceRepositoryImplTest {
+
+    private static final Instant CUTOFF = Instant.parse("2024-08-01T00:00:00Z");
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private InvoiceRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(client, "invoicetest");
+        repository = new InvoiceRepositoryImpl(mongoTemplate, new LiveInvoiceFilter());
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void replaceTotalsMaterializesLegacyInvoice() {
+        Invoice legacy = insertInvoice(null, null);
+
+        assertThat(repository.replaceTotals("a", legacy.getTotalsVersion(), new BigDecimal("100.00"),
+                new BigDecimal("40.00"))).isTrue();
+
+        Invoice stored = mongoTemplate.findById("a", Invoice.class);
+        assertThat(stored.getTotalAmount()).isEqualByComparingTo("100.00");
+        assertThat(stored.getPendingAmount()).isEqualByComparingTo("60.00");
+        assertThat(stored.getTotalsVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void replaceTotalsLosesToAnIncrementAfterTheRead() {
+        Invoice read = insertInvoice("100.00", "0.00");
+        // A payment lands between the reconciler's read and its write
+        repository.incrementTotals("a", BigDecimal.ZERO, new BigDecimal("25.00"));
+
+        assertThat(repository.replaceTotals("a", read.getTotalsVersion(), new BigDecimal("100.00"),
+                BigDecimal.ZERO)).isFalse();
+
+        Invoice stored = mongoTemplate.findById("a", Invoice.class);
+        assertThat(stored.getPaidAmount()).isEqualByComparingTo("25.00");
+        assertThat(stored.getPendingAmount()).isEqualByComparingTo("75.00");
+    }
+
+    @Test
+    void replaceTotalsLosesEvenWhenTheIncrementsCancelOut() {
+        Invoice read = insertInvoice("100.00", "0.00");
+        // The stored amounts end where they started, but two writes happened in between
+        repository.incrementTotals(Map.of("a", new BigDecimal("10.00")));
+        assertThat(repository.updateHeader("a", 1L, Map.of(), new BigDecimal("-10.00"))).isTrue();
+
+        assertThat(repository.replaceTotals("a", read.getTotalsVersion(), new BigDecimal("90.00"),
+                BigDecimal.ZERO)).isFalse();
+
+        Invoice reread = mongoTemplate.findById("a", Invoice.class);
+        assertThat(reread.getTotalAmount()).isEqualByComparingTo("100.00");
+        assertThat(repository.replaceTotals("a", reread.getTotalsVersion(), new BigDecimal("90.00"),
+                BigDecimal.ZERO)).isTrue();
+    }
+
+    @Test
+    void updateHeaderRejectsADeltaComputedFromAnOlderRead() {
+        Invoice read = insertInvoice("100.00", "0.00");
+        // Another edit adds a 20.00 line between this edit's read and its write
+        assertThat(repository.updateHeader("a", read.getTotalsVersion(), Map.of(), new BigDecimal("20.00"))).isTrue();
+
+        assertThat(repository.updateHeader("a", read.getTotalsVersion(), Map.of("invoiceEmail", "x@example.com"),
+                new BigDecimal("5.00"))).isFalse();
+
+        Invoice stored = mongoTemplate.findById("a", Invoice.class);
+        assertThat(stored.getTotalAmount()).isEqualByComparingTo("120.00");
+        assertThat(stored.getInvoiceEmail()).isNull();
+        assertThat(stored.getTotalsVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void markOverdueReturnsOnlyTheInvoicesThisRunFlipped() {
+        LocalDate today = LocalDate.of(2024, 8, 1);
+        insertOpenInvoice("a", today.minusDays(3));
+        insertOpenInvoice("b", today.minusDays(2));
+        Instant sameMillisecond = Instant.parse("2024-08-01T02:00:00Z");
+        // Another scan stamped with the same instant gets to b first
+        assertThat(repository.markOverdue(List.of("b"), today, sameMillisecond, "other-run")).containsExactly("b");
+
+        List<String> flipped = repository.markOverdue(List.of("a", "b"), today, sameMillisecond, "this-run");
+
+        assertThat(flipped).containsExactly("a");
+        assertThat(mongoTemplate.findById("b", Invoice.class).getOverdueRun()).isEqualTo("other-run");
+    }
+
+    @Test
+    void archiveMovesTheInvoiceWithItsPayments() {
+        insertTrashedInvoice();
+        insertPayment("p1");
+
+        List<Document> batch = repository.findArchivable(CUTOFF, 10);
+
+        assertThat(repository.archive(batch, CUTOFF)).isEqualTo(1);
+        assertThat(mongoTemplate.findAll(payment.class)).isEmpty();
+        assertThat(mongoTemplate.findAll(Document.class, InvoiceRepositoryImpl.PAYMENTS_ARCHIVE)).hasSize(1);
+        assertThat(mongoTemplate.findAll(Document.class, InvoiceRepositoryImpl.INVOICES_ARCHIVE)).hasSize(1);
+    }
+
+    @Test
+    void archiveKeepsAPaymentRecordedAfterTheCopy() {
+        insertTrashedInvoice();
+        insertPayment("p1");
+        MongoTemplate racing = spy(mongoTemplate);
+        // The late payment lands right after the payments were copied to the archive
+        doAnswer(invocation -> {
+            BulkOperations bulk = (BulkOperations) invocation.callRealMethod();
+            insertPayment("p2");
+            return bulk;
+        }).when(racing).bulkOps(any(BulkOperations.BulkMode.class), eq(InvoiceRepositoryImpl.PAYMENTS_ARCHIVE));
+        InvoiceRepositoryImpl archiving = new InvoiceRepositoryImpl(racing, new LiveInvoiceFilter());
+
+        assertThat(archiving.archive(archiving.findArchivable(CUTOFF, 10), CUTOFF)).isZero();
+
+        // The invoice stays in the trash with every payment live, ready for the next run
+        assertThat(mongoTemplate.findAll(payment.class)).extracting(payment::getId)
+                .containsExactlyInAnyOrder("p1", "p2");
+        assertThat(mongoTemplate.findById("a", Invoice.class)).isNotNull();
+        assertThat(mongoTemplate.findAll(Document.class, InvoiceRepositoryImpl.PAYMENTS_ARCHIVE)).isEmpty();
+        assertThat(mongoTemplate.findAll(Document.class, InvoiceRepositoryImpl.INVOICES_ARCHIVE)).isEmpty();
+    }
+
+    private void insertTrashedInvoice() {
+        Invoice invoice = new Invoice();
+        invoice.setId("a");
+        invoice.setInvoiceNo("INV-1");
+        invoice.setDeleted(true);
+        invoice.setDeletedAt(CUTOFF.minusSeconds(60));
+        mongoTemplate.insert(invoice);
+    }
+
+    private void insertPayment(String id) {
+        payment row = new payment();
+        row.setId(id);
+        row.setInvoiceNo("INV-1");
+        row.setPaymentAmount(new BigDecimal("10.00"));
+        mongoTemplate.insert(row);
+    }
+
+    private void insertOpenInvoice(String id, LocalDate dueDate) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setInvoiceNo("INV-" + id);
+        invoice.setInvoiceStatus(Invoice.STATUS_NEW);
+        invoice.setDueDate(dueDate);
+        mongoTemplate.insert(invoice);
+    }
+
+    private Invoice insertInvoice(String totalAmount, String paidAmount) {
+        Invoice invoice = new Invoice();
+        invoice.setId("a");
+        invoice.setInvoiceNo("INV-1");
+        if (totalAmount != null) {
+            invoice.setTotalAmount(new BigDecimal(totalAmount));
+            invoice.setPaidAmount(new BigDecimal(paidAmount));
+            invoice.setPendingAmount(invoice.getTotalAmount().subtract(invoice.getPaidAmount()));
+        }
+        return mongoTemplate.insert(invoice);
+    }
+}
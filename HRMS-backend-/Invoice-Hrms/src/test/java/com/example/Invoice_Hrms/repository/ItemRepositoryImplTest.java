@@ -0,0 +1,97 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.util.LinePricing;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemRepositoryImplTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ItemRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(client, "itemtest");
+        repository = new ItemRepositoryImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void repricesLinesThatAreUnchanged() {
+        Item before = insertLine("a", "2", "10.00");
+
+        int applied = repository.applyRepricing(List.of(new ItemRepositoryCustom.Repricing(before, repriced(before, "12.00"))));
+
+        assertThat(applied).isEqualTo(1);
+        Item stored = mongoTemplate.findById("a", Item.class);
+        assertThat(stored.getRate()).isEqualByComparingTo("12.00");
+        assertThat(stored.getAmount()).isEqualByComparingTo("24.00");
+    }
+
+    @Test
+    void skipsLineEditedSinceItWasRead() {
+        Item before = insertLine("a", "2", "10.00");
+        Item untouched = insertLine("b", "1", "10.00");
+        // Someone changes the qty of line a between the read and the re-pricing write
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is("a")),
+                new Update().set("qty", new BigDecimal("5")).set("amount", new BigDecimal("50.00")), Item.class);
+
+        int applied = repository.applyRepricing(List.of(
+                new ItemRepositoryCustom.Repricing(before, repriced(before, "12.00")),
+                new ItemRepositoryCustom.Repricing(untouched, repriced(untouched, "12.00"))));
+
+        assertThat(applied).isEqualTo(1);
+        Item edited = mongoTemplate.findById("a", Item.class);
+        assertThat(edited.getQty()).isEqualByComparingTo("5");
+        assertThat(edited.getRate()).isEqualByComparingTo("10.00");
+        assertThat(edited.getAmount()).isEqualByComparingTo("50.00");
+        assertThat(mongoTemplate.findById("b", Item.class).getRate()).isEqualByComparingTo("12.00");
+    }
+
+    private Item insertLine(String id, String qty, String rate) {
+        Item line = new Item();
+        line.setId(id);
+        line.setItemName("Consulting");
+        line.setQty(new BigDecimal(qty));
+        line.setRate(new BigDecimal(rate));
+        line.setItemMasterId("master");
+        LinePricing.price(line, 2);
+        return mongoTemplate.insert(line);
+    }
+
+    private static Item repriced(Item before, String rate) {
+        Item after = new Item();
+        after.setId(before.getId());
+        after.setItemName(before.getItemName());
+        after.setQty(before.getQty());
+        after.setRate(new BigDecimal(rate));
+        LinePricing.price(after, 2);
+        return after;
+    }
+}
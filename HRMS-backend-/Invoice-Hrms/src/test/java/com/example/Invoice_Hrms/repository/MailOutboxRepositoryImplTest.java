@@ -0,0 +1,84 @@
+package com.example.Invoice_Hrms.repository;
+
+import com.example.Invoice_Hrms.model.MailOutboxMessage;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailOutboxRepositoryImplTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private MailOutboxRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(client, "outboxtest");
+        repository = new MailOutboxRepositoryImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void recordsTheOutcomeOfTheCurrentClaim() {
+        insertPending();
+        MailOutboxMessage claimed = repository.claimNext(Duration.ofMinutes(5));
+
+        assertThat(repository.completeClaim(claimed.getId(), claimed.getAttempts(), MailOutboxMessage.STATUS_SENT,
+                null, Instant.now(), null)).isTrue();
+
+        MailOutboxMessage stored = mongoTemplate.findById(claimed.getId(), MailOutboxMessage.class);
+        assertThat(stored.getStatus()).isEqualTo(MailOutboxMessage.STATUS_SENT);
+        assertThat(stored.getSentAt()).isNotNull();
+    }
+
+    @Test
+    void outcomeOfAnExpiredClaimDoesNotOverwriteTheNewOne() {
+        insertPending();
+        // A zero lease is already over, so a second dispatcher can claim the message straight away
+        MailOutboxMessage first = repository.claimNext(Duration.ZERO);
+        MailOutboxMessage second = repository.claimNext(Duration.ofMinutes(5));
+        assertThat(second.getAttempts()).isEqualTo(2);
+        assertThat(repository.completeClaim(second.getId(), second.getAttempts(), MailOutboxMessage.STATUS_SENT,
+                null, Instant.now(), null)).isTrue();
+
+        assertThat(repository.completeClaim(first.getId(), first.getAttempts(), MailOutboxMessage.STATUS_PENDING,
+                "SMTP timeout", null, Instant.now().plusSeconds(30))).isFalse();
+
+        MailOutboxMessage stored = mongoTemplate.findById(first.getId(), MailOutboxMessage.class);
+        assertThat(stored.getStatus()).isEqualTo(MailOutboxMessage.STATUS_SENT);
+        assertThat(stored.getLastError()).isNull();
+        assertThat(stored.getAttempts()).isEqualTo(2);
+    }
+
+    private void insertPending() {
+        MailOutboxMessage message = new MailOutboxMessage();
+        message.setType(MailOutboxMessage.TYPE_INVOICE);
+        message.setInvoiceId("a");
+        message.setInvoiceNo("INV-1");
+        message.setRecipientEmail("billing@example.com");
+        message.setStatus(MailOutboxMessage.STATUS_PENDING);
+        message.setNextAttemptAt(Instant.now().minusSeconds(1));
+        message.setCreatedAt(Instant.now());
+        mongoTemplate.insert(message);
+    }
+}
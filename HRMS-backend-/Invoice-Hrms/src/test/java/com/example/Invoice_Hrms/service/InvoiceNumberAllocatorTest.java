@@ -0,0 +1,97 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.model.InvoiceSequence;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvoiceNumberAllocatorTest {
+
+    private final Map<String, Long> counters = new HashMap<>();
+    private MongoTemplate mongoTemplate;
+    private InvoiceNumberAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.exists(any(Query.class), eq(InvoiceSequence.class))).thenReturn(true);
+        // Stands in for the $inc on invoice_sequences
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(InvoiceSequence.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            String prefix = query.getQueryObject().getString("_id");
+            long seq = counters.merge(prefix, 3L, Long::sum);
+            InvoiceSequence sequence = new InvoiceSequence();
+            sequence.setId(prefix);
+            sequence.setSeq(seq);
+            return sequence;
+        });
+        allocator = new InvoiceNumberAllocator(mongoTemplate, mock(InvoiceRepository.class), 3);
+    }
+
+    @Test
+    void formatPadsTheSequenceToTwoDigits() {
+        assertThat(InvoiceNumberAllocator.format("202610", 7)).isEqualTo("20261007");
+        assertThat(InvoiceNumberAllocator.format("202610", 42)).isEqualTo("20261042");
+        assertThat(InvoiceNumberAllocator.format("202610", 123)).isEqualTo("202610123");
+    }
+
+    @Test
+    void sequenceOfReadsOnlyNumericSuffixesUnderThePrefix() {
+        assertThat(InvoiceNumberAllocator.sequenceOf("202610", "20261007")).isEqualTo(7);
+        assertThat(InvoiceNumberAllocator.sequenceOf("202610", "202610123")).isEqualTo(123);
+        assertThat(InvoiceNumberAllocator.sequenceOf("202610", "202610")).isEqualTo(-1);
+        assertThat(InvoiceNumberAllocator.sequenceOf("202610", "202610A1")).isEqualTo(-1);
+        assertThat(InvoiceNumberAllocator.sequenceOf("202610", "20261107")).isEqualTo(-1);
+        assertThat(InvoiceNumberAllocator.sequenceOf("202610", "2026101234567890123456789")).isEqualTo(-1);
+        assertThat(InvoiceNumberAllocator.sequenceOf("202610", null)).isEqualTo(-1);
+    }
+
+    @Test
+    void servesNumbersFromReservedBlocks() {
+        assertThat(allocator.next("202610")).isEqualTo(1);
+        assertThat(allocator.next("202610")).isEqualTo(2);
+        assertThat(allocator.next("202610")).isEqualTo(3);
+        assertThat(allocator.next("202610")).isEqualTo(4);
+    }
+
+    @Test
+    void aNewPrefixEvictsTheOldOneWithoutFailing() {
+        allocator.next("202610");
+        assertThat(allocator.next("202611")).isEqualTo(1);
+        assertThat(allocator.next("202610")).isEqualTo(4);
+    }
+
+    @Test
+    void explicitNumbersMoveTheCounterAndDropTheLocalBlock() {
+        assertThat(allocator.next("202610")).isEqualTo(1);
+
+        allocator.advancePast("20261002");
+        verify(mongoTemplate).upsert(any(Query.class), eq(new Update().max("seq", 2L)), eq(InvoiceSequence.class));
+
+        // The block 1..3 held the explicit number, so the next allocation reserves a fresh one
+        assertThat(allocator.next("202610")).isEqualTo(4);
+    }
+
+    @Test
+    void explicitNumbersOutsideTheFormatAreIgnored() {
+        allocator.advancePast("INV-2026-1");
+        allocator.advancePast("2026");
+        allocator.advancePast(null);
+        assertThat(allocator.next("202610")).isEqualTo(1);
+    }
+}
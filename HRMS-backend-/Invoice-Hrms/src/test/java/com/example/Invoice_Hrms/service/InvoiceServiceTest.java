@@ -0,0 +1,80 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.dto.InvoiceDto;
+import com.example.Invoice_Hrms.mapper.paymentMapper;
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.ItemRepository;
+import com.example.Invoice_Hrms.repository.paymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvoiceServiceTest {
+
+    private static final DuplicateKeyException NUMBER_TAKEN = new DuplicateKeyException(
+            "E11000 duplicate key error collection: hrms.invoices index: invoiceNo dup key: { invoiceNo: \"x\" }");
+
+    private InvoiceRepository invoiceRepository;
+    private InvoiceNumberAllocator allocator;
+    private InvoiceService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        invoiceRepository = mock(InvoiceRepository.class);
+        allocator = mock(InvoiceNumberAllocator.class);
+        when(allocator.next(anyString())).thenReturn(1L, 2L);
+        service = new InvoiceService(invoiceRepository, mock(ItemRepository.class), mock(paymentMapper.class),
+                mock(paymentRepository.class), allocator, mock(ItemMasterService.class),
+                mock(ApplicationEventPublisher.class), mock(ObjectProvider.class));
+    }
+
+    @Test
+    void generatedNumberTakenOutsideTheAllocatorIsReplacedOnce() {
+        when(invoiceRepository.insert(any(Invoice.class)))
+                .thenThrow(NUMBER_TAKEN)
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Invoice created = service.createInvoice(new InvoiceDto());
+
+        assertThat(created.getInvoiceNo()).endsWith("02");
+        verify(invoiceRepository, never()).existsByInvoiceNo(anyString());
+    }
+
+    @Test
+    void givesUpAfterASecondCollision() {
+        when(invoiceRepository.insert(any(Invoice.class))).thenThrow(NUMBER_TAKEN);
+
+        assertThatThrownBy(() -> service.createInvoice(new InvoiceDto()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("already exists");
+        verify(invoiceRepository, times(2)).insert(any(Invoice.class));
+    }
+
+    @Test
+    void explicitNumberThatIsTakenIsNotReplaced() {
+        when(invoiceRepository.insert(any(Invoice.class))).thenThrow(NUMBER_TAKEN);
+        InvoiceDto dto = new InvoiceDto();
+        dto.setInvoiceNo("20240801");
+
+        assertThatThrownBy(() -> service.createInvoice(dto))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invoice number already exists: 20240801");
+        verify(allocator, never()).next(anyString());
+        verify(invoiceRepository, times(1)).insert(any(Invoice.class));
+    }
+}
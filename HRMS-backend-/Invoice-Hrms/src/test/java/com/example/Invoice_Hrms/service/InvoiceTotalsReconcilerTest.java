@@ -0,0 +1,107 @@
+package com.example.Invoice_Hrms.service;
+
+import com.example.Invoice_Hrms.model.Invoice;
+import com.example.Invoice_Hrms.model.Item;
+import com.example.Invoice_Hrms.repository.InvoiceRepository;
+import com.example.Invoice_Hrms.repository.paymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvoiceTotalsReconcilerTest {
+
+    private InvoiceRepository invoiceRepository;
+    private paymentRepository paymentRepository;
+    private InvoiceTotalsReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        invoiceRepository = mock(InvoiceRepository.class);
+        paymentRepository = mock(paymentRepository.class);
+        InvoiceService invoiceService = mock(InvoiceService.class);
+        when(invoiceService.buildInvoiceItemData(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(invoiceRepository.findByIdGreaterThan(anyString(), any(Pageable.class))).thenReturn(List.of());
+        when(paymentRepository.sumAmountsByInvoiceNo(anyCollection()))
+                .thenReturn(Map.of("INV-1", new BigDecimal("25.00")));
+        reconciler = new InvoiceTotalsReconciler(invoiceRepository, invoiceService, paymentRepository,
+                mock(ApplicationEventPublisher.class), 0);
+    }
+
+    @Test
+    void leavesAPaymentWhoseIncrementLandsBeforeTheSecondLook() {
+        // The payment row is saved but its $inc hasn't been applied yet
+        scanFinds(invoice(1L, "0.00"));
+        laterLooksFind(invoice(2L, "25.00"));
+
+        assertThat(reconciler.reconcileAll()).isZero();
+
+        verify(invoiceRepository, never()).replaceTotals(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void repairsDriftThatIsStillThereAfterSettling() {
+        scanFinds(invoice(1L, "0.00"));
+        laterLooksFind(invoice(1L, "0.00"));
+        when(invoiceRepository.replaceTotals("a", 1L, new BigDecimal("100.00"), new BigDecimal("25.00")))
+                .thenReturn(true);
+
+        assertThat(reconciler.reconcileAll()).isEqualTo(1);
+    }
+
+    @Test
+    void settlesAgainWhenTheTotalsMovedButStillDrift() {
+        scanFinds(invoice(1L, "0.00"));
+        laterLooksFind(invoice(2L, "10.00"), invoice(2L, "10.00"));
+        when(invoiceRepository.replaceTotals(eq("a"), eq(2L), any(), any())).thenReturn(true);
+
+        assertThat(reconciler.reconcileAll()).isEqualTo(1);
+
+        verify(invoiceRepository, never()).replaceTotals(eq("a"), eq(1L), any(), any());
+    }
+
+    private void scanFinds(Invoice invoice) {
+        when(invoiceRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(invoice)));
+    }
+
+    // Each later look re-reads the invoice once
+    private void laterLooksFind(Invoice... looks) {
+        Iterator<Invoice> next = List.of(looks).iterator();
+        when(invoiceRepository.findAllById(anyIterable())).thenAnswer(invocation -> List.of(next.next()));
+    }
+
+    // One embedded 100.00 line; the payments collection holds 25.00 against it
+    private static Invoice invoice(Long totalsVersion, String paidAmount) {
+        Item line = new Item();
+        line.setAmount(new BigDecimal("100.00"));
+        Invoice invoice = new Invoice();
+        invoice.setId("a");
+        invoice.setInvoiceNo("INV-1");
+        invoice.setItemsEmbedded(true);
+        invoice.setItems(new ArrayList<>(List.of(line)));
+        invoice.setTotalsVersion(totalsVersion);
+        invoice.setTotalAmount(new BigDecimal("100.00"));
+        invoice.setPaidAmount(new BigDecimal(paidAmount));
+        invoice.setPendingAmount(invoice.getTotalAmount().subtract(invoice.getPaidAmount()));
+        return invoice;
+    }
+}
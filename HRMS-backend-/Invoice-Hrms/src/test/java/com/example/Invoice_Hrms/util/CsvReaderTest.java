@@ -0,0 +1,128 @@
+package com.example.Invoice_Hrms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void splitsPlainFields() throws IOException {
+        assertThat(readAll("invoiceNo,amount\nINV-1,10.50\n"))
+                .containsExactly(List.of("invoiceNo", "amount"), List.of("INV-1", "10.50"));
+    }
+
+    @Test
+    void keepsEmptyFields() throws IOException {
+        assertThat(readAll(",a,,\n")).containsExactly(List.of("", "a", "", ""));
+    }
+
+    @Test
+    void quotedFieldsMayHoldCommasAndLineBreaks() throws IOException {
+        assertThat(readAll("\"Acme, Inc.\",\"line one\nline two\",x\n"))
+                .containsExactly(List.of("Acme, Inc.", "line one\nline two", "x"));
+    }
+
+    @Test
+    void doubledQuoteIsALiteralQuote() throws IOException {
+        assertThat(readAll("\"say \"\"hi\"\"\",\"\"\"\",\"\"\n"))
+                .containsExactly(List.of("say \"hi\"", "\"", ""));
+    }
+
+    @Test
+    void quoteInsideUnquotedFieldIsKept() throws IOException {
+        assertThat(readAll("5\" pipe,a\n")).containsExactly(List.of("5\" pipe", "a"));
+    }
+
+    @Test
+    void acceptsCrlfLfAndLoneCr() throws IOException {
+        assertThat(readAll("a,b\r\nc,d\ne,f\rg,h"))
+                .containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e", "f"), List.of("g", "h"));
+    }
+
+    @Test
+    void crlfInsideQuotesIsPartOfTheField() throws IOException {
+        assertThat(readAll("\"a\r\nb\",c\r\n")).containsExactly(List.of("a\r\nb", "c"));
+    }
+
+    @Test
+    void lastRecordNeedsNoLineBreak() throws IOException {
+        assertThat(readAll("a,b\nc,\"d\"")).containsExactly(List.of("a", "b"), List.of("c", "d"));
+        assertThat(readAll("a,b\r")).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertThat(readAll("")).isEmpty();
+    }
+
+    @Test
+    void blankLineIsOneEmptyField() throws IOException {
+        assertThat(readAll("a\n\nb\n")).containsExactly(List.of("a"), List.of(""), List.of("b"));
+    }
+
+    @Test
+    void unterminatedQuoteFails() {
+        assertThatThrownBy(() -> readAll("a,\"b\nc")).isInstanceOf(IOException.class)
+                .hasMessageContaining("Unterminated");
+    }
+
+    @Test
+    void sameRecordsWhenTheInputArrivesInSmallChunks() throws IOException {
+        String csv = "invoiceNo,note\r\n\"INV-1\",\"a \"\"b\"\"\r\nc\"\r\nINV-2,\"x,y\"";
+        List<List<String>> expected = readAll(csv);
+        for (int chunk = 1; chunk <= 4; chunk++) {
+            assertThat(readAll(new ChunkedReader(csv, chunk))).as("chunk size %d", chunk).isEqualTo(expected);
+        }
+        assertThat(expected).containsExactly(
+                List.of("invoiceNo", "note"), List.of("INV-1", "a \"b\"\r\nc"), List.of("INV-2", "x,y"));
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        return readAll(new StringReader(csv));
+    }
+
+    private static List<List<String>> readAll(Reader input) throws IOException {
+        CsvReader reader = new CsvReader(input);
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    // Hands out at most chunk characters per read, like a network stream that delivers partial buffers
+    private static final class ChunkedReader extends Reader {
+        private final String text;
+        private final int chunk;
+        private int position;
+
+        private ChunkedReader(String text, int chunk) {
+            this.text = text;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, chunk), text.length() - position);
+            text.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.Invoice_Hrms.util;
+
+import com.example.Invoice_Hrms.model.Item;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LinePricingTest {
+
+    @Test
+    void roundsEachStepHalfUpToTheMinorUnit() {
+        Item line = line("3", "19.99", "10", "18");
+
+        LinePricing.price(line, 2);
+
+        // gross 59.97, discount 5.997 -> 6.00, tax 53.97 * 18% = 9.7146 -> 9.71
+        assertThat(line.getDiscountAmount()).isEqualTo(new BigDecimal("6.00"));
+        assertThat(line.getTaxAmount()).isEqualTo(new BigDecimal("9.71"));
+        assertThat(line.getAmount()).isEqualTo(new BigDecimal("63.68"));
+    }
+
+    @Test
+    void grossIsRoundedBeforeThePercentages() {
+        Item line = line("1", "0.125", null, "100");
+
+        LinePricing.price(line, 2);
+
+        // The gross 0.125 rounds up to 0.13 before the tax is taken from it
+        assertThat(line.getTaxAmount()).isEqualTo(new BigDecimal("0.13"));
+        assertThat(line.getAmount()).isEqualTo(new BigDecimal("0.26"));
+    }
+
+    @Test
+    void zeroDecimalCurrencyRoundsToWholeUnits() {
+        Item line = line("1.5", "333", null, "10");
+
+        LinePricing.price(line, Money.scaleOf("JPY"));
+
+        assertThat(line.getDiscountAmount()).isEqualTo(new BigDecimal("0"));
+        assertThat(line.getTaxAmount()).isEqualTo(new BigDecimal("50"));
+        assertThat(line.getAmount()).isEqualTo(new BigDecimal("550"));
+    }
+
+    @Test
+    void threeDecimalCurrencyKeepsThreeDigits() {
+        Item line = line("2", "1.2345", "0", "5");
+
+        LinePricing.price(line, Money.scaleOf("BHD"));
+
+        assertThat(line.getAmount()).isEqualTo(new BigDecimal("2.592"));
+        assertThat(line.getAmount().scale()).isEqualTo(3);
+    }
+
+    @Test
+    void missingPercentagesGiveZeroAmountsAtTheCurrencyScale() {
+        Item line = line("2", "5", null, null);
+
+        LinePricing.price(line, 2);
+
+        assertThat(line.getDiscountAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(line.getTaxAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(line.getAmount()).isEqualTo(new BigDecimal("10.00"));
+    }
+
+    @Test
+    void fullDiscountLeavesNothingToTax() {
+        Item line = line("4", "2.50", "100", "20");
+
+        LinePricing.price(line, 2);
+
+        assertThat(line.getDiscountAmount()).isEqualTo(new BigDecimal("10.00"));
+        assertThat(line.getTaxAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(line.getAmount()).isEqualTo(new BigDecimal("0.00"));
+    }
+
+    @Test
+    void rejectsMissingOrNegativeQtyAndRate() {
+        assertThatThrownBy(() -> LinePricing.price(line(null, "1", null, null), 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("needs qty and rate");
+        assertThatThrownBy(() -> LinePricing.price(line("1", "-1", null, null), 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("negative");
+    }
+
+    @Test
+    void rejectsPercentagesOutsideTheRange() {
+        assertThatThrownBy(() -> LinePricing.price(line("1", "1", "100.01", null), 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("discountPercent");
+        assertThatThrownBy(() -> LinePricing.price(line("1", "1", null, "-1"), 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("taxPercent");
+    }
+
+    private static Item line(String qty, String rate, String discountPercent, String taxPercent) {
+        Item line = new Item();
+        line.setItemName("Consulting");
+        line.setQty(decimal(qty));
+        line.setRate(decimal(rate));
+        line.setDiscountPercent(decimal(discountPercent));
+        line.setTaxPercent(decimal(taxPercent));
+        return line;
+    }
+
+    private static BigDecimal decimal(String value) {
+        return value != null ? new BigDecimal(value) : null;
+    }
+}
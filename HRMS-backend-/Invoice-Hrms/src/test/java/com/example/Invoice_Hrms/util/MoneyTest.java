@@ -0,0 +1,127 @@
+package com.example.Invoice_Hrms.util;
+
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void scaleFollowsTheCurrencyMinorUnit() {
+        assertThat(Money.scaleOf("USD")).isEqualTo(2);
+        assertThat(Money.scaleOf("jpy")).isZero();
+        assertThat(Money.scaleOf("BHD")).isEqualTo(3);
+    }
+
+    @Test
+    void unknownCurrencyUsesTheDefaultScale() {
+        assertThat(Money.scaleOf(null)).isEqualTo(Money.DEFAULT_SCALE);
+        assertThat(Money.scaleOf("$")).isEqualTo(Money.DEFAULT_SCALE);
+        assertThat(Money.scaleOf("ZZZ")).isEqualTo(Money.DEFAULT_SCALE);
+        // XXX is a real code without a minor unit
+        assertThat(Money.scaleOf("XXX")).isEqualTo(Money.DEFAULT_SCALE);
+    }
+
+    @Test
+    void fitsCurrencyIgnoresTrailingZeros() {
+        assertThat(Money.fitsCurrency(new BigDecimal("10.500"), "USD")).isTrue();
+        assertThat(Money.fitsCurrency(new BigDecimal("10.005"), "USD")).isFalse();
+        assertThat(Money.fitsCurrency(new BigDecimal("100.00"), "JPY")).isTrue();
+    }
+
+    @Test
+    void fromStoredReadsEveryStoredForm() {
+        assertThat(Money.fromStored(new Decimal128(new BigDecimal("12.34")))).isEqualTo(new BigDecimal("12.34"));
+        assertThat(Money.fromStored(0.1d)).isEqualTo(new BigDecimal("0.1"));
+        assertThat(Money.fromStored(7)).isEqualTo(BigDecimal.valueOf(7));
+        assertThat(Money.fromStored(7_000_000_000L)).isEqualTo(BigDecimal.valueOf(7_000_000_000L));
+        assertThat(Money.fromStored(" 12.50 ")).isEqualTo(new BigDecimal("12.50"));
+    }
+
+    @Test
+    void fromStoredGivesNullForNullAndBlank() {
+        assertThat(Money.fromStored(null)).isNull();
+        assertThat(Money.fromStored("  ")).isNull();
+    }
+
+    @Test
+    void fromStoredRejectsNonNumbers() {
+        assertThatThrownBy(() -> Money.fromStored("12,50 USD")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.fromStored(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.fromStored(true)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sumGrowsToTheLargestScale() {
+        BigDecimal total = Money.sum()
+                .add(new BigDecimal("1.5"))
+                .add(new BigDecimal("0.25"))
+                .add((BigDecimal) null)
+                .toBigDecimal();
+
+        assertThat(total).isEqualTo(new BigDecimal("1.75"));
+    }
+
+    @Test
+    void sumSwitchesToBigDecimalOnOverflow() {
+        BigDecimal total = Money.sum().add(Long.MAX_VALUE, 0).add(1, 0).add(new BigDecimal("0.01")).toBigDecimal();
+
+        assertThat(total).isEqualTo(new BigDecimal("9223372036854775808.01"));
+    }
+
+    @Test
+    void negateHandlesTheSmallestLong() {
+        assertThat(Money.sum().add(Long.MIN_VALUE, 2).negate().toBigDecimal())
+                .isEqualTo(new BigDecimal("92233720368547758.08"));
+        assertThat(Money.sum().add(new BigDecimal("-3.10")).negate().toBigDecimal()).isEqualTo(new BigDecimal("3.10"));
+    }
+
+    @Test
+    void decimal128AddsItsExactValue() {
+        String[] amounts = {"12.34", "-12.34", "0", "-0.00", "0.001", "1E+3", "-2.5E+2",
+                "-0E+3", "9223372036854775807", "9223372036854775808", "123456789012345678901234.56", "-1E-20"};
+        for (String amount : amounts) {
+            assertThat(Money.sum().add(Decimal128.parse(amount)).toBigDecimal())
+                    .as(amount)
+                    .isEqualByComparingTo(new BigDecimal(amount));
+        }
+    }
+
+    @Test
+    void negativeZeroIsZero() {
+        assertThat(Money.fromStored(Decimal128.NEGATIVE_ZERO)).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void decimal128KeepsTheStoredScale() {
+        assertThat(Money.sum().add(Decimal128.parse("10.50")).toBigDecimal()).isEqualTo(new BigDecimal("10.50"));
+    }
+
+    @Test
+    void decimal128MixesWithOtherAmounts() {
+        BigDecimal total = Money.sum()
+                .add(Decimal128.parse("10.50"))
+                .addStored(2.25d)
+                .addStored("0.125")
+                .addStored(Decimal128.parse("-1"))
+                .toBigDecimal();
+
+        assertThat(total).isEqualTo(new BigDecimal("11.875"));
+    }
+
+    @Test
+    void decimal128RejectsNonFiniteValues() {
+        assertThatThrownBy(() -> Money.sum().add(Decimal128.NaN)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.sum().add(Decimal128.POSITIVE_INFINITY))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void addStoredRejectsNonNumericStrings() {
+        assertThatThrownBy(() -> Money.sum().addStored("n/a")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
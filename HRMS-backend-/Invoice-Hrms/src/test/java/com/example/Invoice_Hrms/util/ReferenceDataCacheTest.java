@@ -0,0 +1,80 @@
+package com.example.Invoice_Hrms.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReferenceDataCacheTest {
+
+    private final List<String> collection = new ArrayList<>(List.of("a", "b", "c"));
+    private final AtomicInteger fullLoads = new AtomicInteger();
+    private final AtomicInteger idLoads = new AtomicInteger();
+
+    @Test
+    void smallCollectionIsServedFromTheSnapshot() {
+        ReferenceDataCache<String> cache = cache(10);
+
+        assertThat(cache.find("a")).contains("a");
+        assertThat(cache.find("b")).contains("b");
+
+        assertThat(fullLoads).hasValue(1);
+        assertThat(idLoads).hasValue(0);
+    }
+
+    @Test
+    void oversizedCollectionIsLoadedByIdAfterTheFirstFullRead() {
+        ReferenceDataCache<String> cache = cache(2);
+
+        assertThat(cache.find("a")).contains("a");
+        assertThat(cache.find("a")).contains("a");
+        assertThat(cache.find("b")).contains("b");
+
+        assertThat(fullLoads).hasValue(1);
+        assertThat(idLoads).hasValue(2);
+    }
+
+    @Test
+    void oversizedEntriesStayWithinTheBound() {
+        ReferenceDataCache<String> cache = cache(2);
+        cache.find("a");
+        cache.find("b");
+        cache.find("c");
+
+        // a was the least recently used of the three and made room for c
+        cache.find("a");
+
+        assertThat(idLoads).hasValue(4);
+    }
+
+    @Test
+    void invalidateDropsOversizedEntries() {
+        ReferenceDataCache<String> cache = cache(2);
+        cache.find("a");
+
+        cache.invalidate();
+        cache.find("a");
+
+        assertThat(fullLoads).hasValue(1);
+        assertThat(idLoads).hasValue(2);
+    }
+
+    private ReferenceDataCache<String> cache(int maxEntries) {
+        return new ReferenceDataCache<>("test",
+                () -> {
+                    fullLoads.incrementAndGet();
+                    return collection;
+                },
+                id -> {
+                    idLoads.incrementAndGet();
+                    return collection.contains(id) ? Optional.of(id) : Optional.empty();
+                },
+                value -> value, Duration.ofMinutes(5), maxEntries, new ObjectMapper());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.Invoice_Hrms.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+
+    private final SearchIndex index = new SearchIndex();
+
+    @Test
+    void partialWordMatchesByPrefix() {
+        index.put(invoice("1", "Acme Corporation"));
+
+        assertThat(ids(index.search("acm", null, 10))).containsExactly("1");
+        assertThat(ids(index.search("CORP", null, 10))).containsExactly("1");
+        assertThat(index.search("cme", null, 10)).isEmpty();
+    }
+
+    @Test
+    void wordsShorterThanMinGramAreIgnored() {
+        index.put(invoice("1", "Acme"));
+
+        assertThat(index.search("a", null, 10)).isEmpty();
+        assertThat(ids(index.search("a acm", null, 10))).containsExactly("1");
+    }
+
+    @Test
+    void everyWordMustMatch() {
+        index.put(invoice("1", "Acme Corporation"));
+        index.put(invoice("2", "Acme Limited"));
+
+        assertThat(ids(index.search("acme lim", null, 10))).containsExactly("2");
+        assertThat(index.search("acme globex", null, 10)).isEmpty();
+    }
+
+    @Test
+    void completeWordScoresDoubleTheBoost() {
+        index.put(invoice("1", "Acme"));
+
+        assertThat(index.search("acm", null, 10).get(0).score()).isEqualTo(4);
+        assertThat(index.search("acme", null, 10).get(0).score()).isEqualTo(8);
+    }
+
+    @Test
+    void higherBoostRanksFirstAndTiesGoToTheNewerDocument() {
+        index.put(new SearchIndex.Entry("invoice", "low", "low", null).field("Acme", 1));
+        index.put(invoice("old", "Acme"));
+        index.put(invoice("new", "Acme"));
+
+        assertThat(ids(index.search("acme", null, 10))).containsExactly("new", "old", "low");
+        assertThat(ids(index.search("acme", null, 2))).containsExactly("new", "old");
+    }
+
+    @Test
+    void removedDocumentIsTombstoned() {
+        index.put(invoice("1", "Acme"));
+        index.put(invoice("2", "Acme"));
+
+        index.remove("invoice", "1");
+
+        assertThat(ids(index.search("acme", null, 10))).containsExactly("2");
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.deletedRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void replacingDocumentDropsItsOldText() {
+        index.put(invoice("1", "Acme"));
+        index.put(invoice("1", "Globex"));
+
+        assertThat(index.search("acme", null, 10)).isEmpty();
+        assertThat(ids(index.search("glob", null, 10))).containsExactly("1");
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.deletedRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void removingUnknownDocumentIsHarmless() {
+        index.remove("invoice", "missing");
+
+        assertThat(index.size()).isZero();
+        assertThat(index.deletedRatio()).isZero();
+    }
+
+    @Test
+    void typesNarrowTheResult() {
+        index.put(invoice("1", "Acme"));
+        index.put(new SearchIndex.Entry("company", "c1", "Acme", null).field("Acme", 6));
+
+        assertThat(ids(index.search("acme", List.of("company"), 10))).containsExactly("c1");
+        assertThat(index.search("acme", List.of("item"), 10)).isEmpty();
+        assertThat(index.search("acme", null, 10)).hasSize(2);
+    }
+
+    @Test
+    void tokenizeSplitsOnNonWordCharacters() {
+        assertThat(SearchIndex.tokenize("INV-2024/07 Acme")).containsExactly("inv", "2024", "07", "acme");
+        assertThat(SearchIndex.tokenize(null)).isEmpty();
+    }
+
+    private static SearchIndex.Entry invoice(String id, String companyName) {
+        return new SearchIndex.Entry("invoice", id, id, companyName).field(companyName, 4);
+    }
+
+    private static List<String> ids(List<SearchIndex.Hit> hits) {
+        return hits.stream().map(SearchIndex.Hit::id).toList();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.Invoice_Hrms.util;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StringRangeTest {
+
+    @Test
+    void prefixEndsAtItsSuccessor() {
+        assertThat(StringRange.prefix("INV-2024")).isEqualTo(new StringRange("INV-2024", "INV-2025"));
+        assertThat(StringRange.prefix("INV-")).isEqualTo(new StringRange("INV-", "INV."));
+    }
+
+    @Test
+    void prefixRangeHoldsExactlyTheStringsStartingWithIt() {
+        StringRange range = StringRange.prefix("INV-1");
+
+        for (String invoiceNo : List.of("INV-1", "INV-1000", "INV-1~", "INV-0999", "INV-2", "INV-", "inv-1")) {
+            boolean inRange = invoiceNo.compareTo(range.from()) >= 0 && invoiceNo.compareTo(range.to()) < 0;
+            assertThat(inRange).as(invoiceNo).isEqualTo(invoiceNo.startsWith("INV-1"));
+        }
+    }
+
+    @Test
+    void lastCodePointThatCannotBeBumpedIsDropped() {
+        String max = Character.toString(Character.MAX_CODE_POINT);
+
+        assertThat(StringRange.prefix("A" + max).to()).isEqualTo("B");
+        assertThat(StringRange.prefix(max + max)).isEqualTo(new StringRange(max + max, null));
+    }
+
+    @Test
+    void successorSkipsTheSurrogateBlock() {
+        assertThat(StringRange.prefix("a\uD7FF").to()).isEqualTo("a\uE000");
+    }
+
+    @Test
+    void supplementaryCodePointIsBumpedAsAWhole() {
+        // U+1F600 is a surrogate pair in UTF-16; bumping its low half alone would not be U+1F601
+        assertThat(StringRange.prefix("x" + Character.toString(0x1F600)).to())
+                .isEqualTo("x" + Character.toString(0x1F601));
+    }
+
+    @Test
+    void rejectsEmptyPrefix() {
+        assertThatThrownBy(() -> StringRange.prefix("")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> StringRange.prefix(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void betweenRejectsReversedBounds() {
+        assertThat(StringRange.between("INV-1", "INV-1")).isEqualTo(new StringRange("INV-1", "INV-1"));
+        assertThatThrownBy(() -> StringRange.between("INV-2", "INV-1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("after its end");
+    }
+
+    @Test
+    void criteriaUsesOnlyTheBoundsThatAreSet() {
+        assertThat(criteria(StringRange.between("a", "b"))).isEqualTo(new Document("$gte", "a").append("$lt", "b"));
+        assertThat(criteria(StringRange.between("a", null))).isEqualTo(new Document("$gte", "a"));
+        assertThat(criteria(StringRange.between(null, "b"))).isEqualTo(new Document("$lt", "b"));
+        assertThat(criteria(StringRange.between(null, null))).isEqualTo(new Document("$exists", true));
+    }
+
+    private static Object criteria(StringRange range) {
+        return range.toCriteria("invoiceNo").getCriteriaObject().get("invoiceNo");
+    }
+}